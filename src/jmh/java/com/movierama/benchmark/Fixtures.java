@@ -0,0 +1,83 @@
+package com.movierama.benchmark;
+
+import com.movierama.dto.MovieDto;
+import com.movierama.entity.Movie;
+import com.movierama.entity.MovieReaction;
+import com.movierama.entity.User;
+import com.movierama.paging.PagingResponse;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic test data shared by the benchmarks.
+ */
+public final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    public static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setEmail("user" + id + "@movierama.test");
+        user.setFirstName("First" + id);
+        user.setLastName("Last" + id);
+        user.setRole(User.Role.USER);
+        return user;
+    }
+
+    /**
+     * A movie with {@code reactions} attached reactions, two likes for every hate, and the
+     * denormalized counters set to match.
+     */
+    public static Movie movie(long id, int reactions) {
+        Movie movie = new Movie();
+        movie.setId(id);
+        movie.setTitle("Movie " + id);
+        movie.setDescription("A synthetic movie used by the benchmarks, number " + id);
+        movie.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0).plusMinutes(id));
+        movie.setUser(user(id % 50));
+
+        List<MovieReaction> list = new ArrayList<>(reactions);
+        for (int i = 0; i < reactions; i++) {
+            MovieReaction reaction = new MovieReaction();
+            reaction.setId(id * 100_000 + i);
+            reaction.setMovie(movie);
+            reaction.setUser(user(1_000 + i));
+            reaction.setReactionType(i % 3 == 2 ? MovieReaction.ReactionType.HATE : MovieReaction.ReactionType.LIKE);
+            list.add(reaction);
+        }
+        movie.setReactions(list);
+        movie.setLikeCount(reactions - reactions / 3);
+        movie.setHateCount(reactions / 3);
+        return movie;
+    }
+
+    public static PagingResponse<MovieDto> page(int movies) {
+        List<MovieDto> content = new ArrayList<>(movies);
+        for (int i = 1; i <= movies; i++) {
+            MovieDto dto = new MovieDto();
+            dto.setId((long) i);
+            dto.setTitle("Movie " + i);
+            dto.setDescription("A synthetic movie used by the benchmarks, number " + i);
+            dto.setUserId((long) (i % 50));
+            dto.setUserName("First" + (i % 50) + " Last" + (i % 50));
+            dto.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0).plusMinutes(i));
+            dto.setLikeCount(i * 7L);
+            dto.setHateCount(i * 2L);
+            content.add(dto);
+        }
+
+        PagingResponse<MovieDto> page = new PagingResponse<>();
+        page.setContent(content);
+        page.setPage(0);
+        page.setSize(movies);
+        page.setTotalElements(10_000);
+        page.setTotalPages(10_000 / movies);
+        page.setLast(false);
+        return page;
+    }
+}
@@ -0,0 +1,82 @@
+package com.movierama.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movierama.benchmark.Fixtures;
+import com.movierama.dto.MovieDto;
+import com.movierama.paging.PagingResponse;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * moviePage value serde with the serializers CacheConfig builds: the default-typed JSON one and
+ * the typed Smile + LZ4 one. The encoded size of each is reported as the {@code bytes} counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheSerializerBenchmark {
+
+    @Param({"json", "binary"})
+    String codec;
+
+    @Param({"10", "50"})
+    int pageSize;
+
+    private RedisSerializer<Object> serializer;
+    private PagingResponse<MovieDto> page;
+    private byte[] encoded;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        if ("json".equals(codec)) {
+            serializer = new GenericJackson2JsonRedisSerializer(CacheConfig.createCacheObjectMapper());
+        } else {
+            ObjectMapper binaryMapper = CacheConfig.createBinaryCacheObjectMapper();
+            serializer = CacheConfig.binarySerializer(binaryMapper,
+                    binaryMapper.getTypeFactory().constructParametricType(PagingResponse.class, MovieDto.class));
+        }
+        page = Fixtures.page(pageSize);
+        encoded = serializer.serialize(page);
+    }
+
+    @Benchmark
+    public byte[] serialize(EncodedSize size) {
+        byte[] bytes = serializer.serialize(page);
+        size.bytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(encoded);
+    }
+}
@@ -0,0 +1,49 @@
+package com.movierama.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.movierama.benchmark.Fixtures;
+import com.movierama.dto.MovieDto;
+import com.movierama.paging.PagingResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response body encoding of a listing page with the REST ObjectMapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PagingResponseJsonBenchmark {
+
+    @Param({"10", "50"})
+    int pageSize;
+
+    private ObjectWriter writer;
+    private PagingResponse<MovieDto> page;
+
+    @Setup
+    public void setUp() {
+        writer = CacheConfig.createRestObjectMapper().writer();
+        page = Fixtures.page(pageSize);
+    }
+
+    @Benchmark
+    public byte[] encode() throws JsonProcessingException {
+        return writer.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,66 @@
+package com.movierama.mapper;
+
+import com.movierama.benchmark.Fixtures;
+import com.movierama.dto.MovieDto;
+import com.movierama.entity.Movie;
+import com.movierama.entity.MovieReaction;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Movie to DTO mapping for a listing page, without a viewer (the shared, cacheable page) and with
+ * a viewer's reactions overlaid. The movies carry large reaction lists to show that neither path
+ * touches them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MovieMapperBenchmark {
+
+    @Param({"10", "10000"})
+    int reactionsPerMovie;
+
+    private final MovieMapper mapper = Mappers.getMapper(MovieMapper.class);
+
+    private Movie movie;
+    private MovieDto sharedDto;
+    private Map<Long, MovieReaction.ReactionType> viewerReactions;
+
+    @Setup
+    public void setUp() {
+        movie = Fixtures.movie(42L, reactionsPerMovie);
+        sharedDto = mapper.toDto(movie);
+        viewerReactions = Map.of(42L, MovieReaction.ReactionType.LIKE, 43L, MovieReaction.ReactionType.HATE);
+    }
+
+    @Benchmark
+    public MovieDto toDtoWithoutViewer() {
+        return mapper.toDto(movie);
+    }
+
+    @Benchmark
+    public MovieDto toDtoWithViewer() {
+        return mapper.toDto(sharedDto, viewerReactions);
+    }
+
+    @Benchmark
+    public long likeCount() {
+        return movie.getLikeCount();
+    }
+}
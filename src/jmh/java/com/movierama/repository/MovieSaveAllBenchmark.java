@@ -0,0 +1,115 @@
+package com.movierama.repository;
+
+import com.movierama.MovieramaApplication;
+import com.movierama.entity.Movie;
+import com.movierama.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second persisted through {@link MovieRepository#saveAll} against Postgres in
+ * Testcontainers (needs Docker). {@code unbatched} runs with {@code hibernate.jdbc.batch_size=1},
+ * one INSERT round trip per row as with the former IDENTITY ids; {@code batched} is the
+ * application's configuration: pooled sequence ids, batch size 50 and rewritten batched inserts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MovieSaveAllBenchmark {
+
+    private static final int ROWS = 1_000;
+
+    @Param({"unbatched", "batched"})
+    String mode;
+
+    private PostgreSQLContainer<?> postgres;
+    private GenericContainer<?> redis;
+    private ConfigurableApplicationContext application;
+
+    private MovieRepository movieRepository;
+    private JdbcTemplate jdbcTemplate;
+    private User owner;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:15-alpine"))
+                .withDatabaseName("movierama")
+                .withUsername("movierama")
+                .withPassword("movierama123");
+        redis = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+                .withExposedPorts(6379)
+                .waitingFor(Wait.forListeningPort());
+        postgres.start();
+        redis.start();
+
+        boolean batched = "batched".equals(mode);
+        application = new SpringApplicationBuilder(MovieramaApplication.class)
+                .properties(Map.of(
+                        "spring.datasource.url", postgres.getJdbcUrl(),
+                        "spring.datasource.hikari.data-source-properties.reWriteBatchedInserts", batched,
+                        "spring.jpa.properties.hibernate.jdbc.batch_size", batched ? 50 : 1,
+                        "spring.data.redis.host", redis.getHost(),
+                        "spring.data.redis.port", redis.getFirstMappedPort(),
+                        "server.port", 0))
+                .run();
+        movieRepository = application.getBean(MovieRepository.class);
+        jdbcTemplate = application.getBean(JdbcTemplate.class);
+        // seeded by the V4 migration
+        owner = application.getBean(UserRepository.class).findById(1L).orElseThrow();
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteInserted() {
+        jdbcTemplate.update("DELETE FROM movie WHERE title LIKE 'Bulk %'");
+    }
+
+    @TearDown
+    public void tearDown() {
+        application.close();
+        redis.stop();
+        postgres.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Movie> saveAll() {
+        List<Movie> movies = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            long n = sequence++;
+            Movie movie = new Movie();
+            movie.setTitle("Bulk " + n);
+            movie.setDescription("Bulk inserted movie " + n);
+            movie.setUser(owner);
+            movies.add(movie);
+        }
+        return movieRepository.saveAll(movies);
+    }
+}
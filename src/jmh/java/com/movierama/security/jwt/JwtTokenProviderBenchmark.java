@@ -0,0 +1,80 @@
+package com.movierama.security.jwt;
+
+import com.movierama.benchmark.Fixtures;
+import com.movierama.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issuing and verification. {@code verifyRepeatedToken} is the common case of a client
+ * reusing its bearer token; {@code verifyFreshToken} cycles through more tokens than the
+ * verified-token cache holds, so it pays for the signature check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private static final int FRESH_TOKENS = 50_000;
+
+    private JwtTokenProvider provider;
+    private User user;
+    private String token;
+    private VerifiedToken verified;
+    private String[] freshTokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // the verification timers stay on in production, so they are part of the measurement
+        provider = new JwtTokenProvider(new SimpleMeterRegistry());
+        user = Fixtures.user(1L);
+        token = provider.generateToken(user);
+        verified = provider.verify(token);
+
+        freshTokens = new String[FRESH_TOKENS];
+        for (int i = 0; i < FRESH_TOKENS; i++) {
+            freshTokens[i] = provider.generateToken(Fixtures.user(i));
+        }
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return provider.generateToken(user);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyRepeatedToken() {
+        return provider.verify(token);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyFreshToken() {
+        next = (next + 1) % FRESH_TOKENS;
+        return provider.verify(freshTokens[next]);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return provider.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return provider.validateToken(verified, user);
+    }
+}
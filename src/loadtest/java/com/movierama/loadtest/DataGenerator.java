@@ -0,0 +1,188 @@
+package com.movierama.loadtest;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+
+/**
+ * Replaces the contents of the movierama schema with a synthetic dataset, streamed in with
+ * COPY so millions of rows load in minutes:
+ * <ul>
+ *     <li>users {@code 1..users}, all with the password {@link #PASSWORD};</li>
+ *     <li>movies {@code 1..movies}, authored with a Zipf skew (a few users post most movies);</li>
+ *     <li>about {@code reactions} reactions with a Zipf skew over movies (a few movies get most
+ *     of them), at most one per (user, movie) and never by the author.</li>
+ * </ul>
+ * The like/hate counters are then rebuilt from the reactions the same way the V5 migration does.
+ * Generation is seeded, so the same options always produce the same data.
+ */
+final class DataGenerator {
+
+    static final String PASSWORD = "loadtest";
+
+    private static final double AUTHOR_SKEW = 1.0;
+    private static final double POPULARITY_SKEW = 1.1;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    private final String jdbcUrl;
+    private final String username;
+    private final String password;
+    private final LoadTestOptions options;
+
+    DataGenerator(String jdbcUrl, String username, String password, LoadTestOptions options) {
+        this.jdbcUrl = jdbcUrl;
+        this.username = username;
+        this.password = password;
+        this.options = options;
+    }
+
+    void generate() throws SQLException, IOException {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, username, password)) {
+            CopyManager copy = connection.unwrap(PGConnection.class).getCopyAPI();
+
+            execute(connection, "TRUNCATE movie_reaction, movie, user_profile RESTART IDENTITY CASCADE");
+
+            long started = System.nanoTime();
+            copyUsers(copy);
+            log("users", options.users(), started);
+
+            started = System.nanoTime();
+            long[] authors = copyMovies(copy);
+            log("movies", options.movies(), started);
+
+            started = System.nanoTime();
+            long reactions = copyReactions(copy, authors);
+            log("reactions", reactions, started);
+
+            started = System.nanoTime();
+            execute(connection, """
+                    UPDATE movie m
+                    SET like_count = c.like_count,
+                        hate_count = c.hate_count,
+                        trending_score = c.trending_score
+                    FROM (
+                        SELECT movie_id,
+                               COUNT(*) FILTER (WHERE reaction_type = 'LIKE') AS like_count,
+                               COUNT(*) FILTER (WHERE reaction_type = 'HATE') AS hate_count,
+                               SUM(trending_weight(reaction_type, created_at)) AS trending_score
+                        FROM movie_reaction
+                        GROUP BY movie_id
+                    ) c
+                    WHERE c.movie_id = m.id""");
+            execute(connection, "SELECT setval('user_profile_id_seq', " + options.users() + ")");
+            execute(connection, "SELECT setval('movie_id_seq', " + options.movies() + ")");
+            execute(connection, "SELECT setval('movie_reaction_id_seq', " + Math.max(reactions, 1) + ")");
+            execute(connection, "ANALYZE");
+            log("counters and statistics", options.movies(), started);
+        }
+    }
+
+    private void copyUsers(CopyManager copy) throws SQLException, IOException {
+        // One hash for everyone: hashing millions of passwords would take hours
+        String hash = new BCryptPasswordEncoder().encode(PASSWORD);
+        try (Writer out = copyWriter(copy,
+                "COPY user_profile (id, username, email, password, first_name, last_name, created_at, role) FROM STDIN (FORMAT csv)")) {
+            for (long id = 1; id <= options.users(); id++) {
+                out.write(id + "," + username(id) + ",user" + id + "@load.test," + hash
+                        + ",First" + id + ",Last" + id + "," + EPOCH.plusSeconds(id) + ",USER\n");
+            }
+        }
+    }
+
+    /**
+     * @return the author of every movie, indexed by movie id
+     */
+    private long[] copyMovies(CopyManager copy) throws SQLException, IOException {
+        SplittableRandom random = new SplittableRandom(options.seed());
+        ZipfDistribution authorship = new ZipfDistribution(options.users(), AUTHOR_SKEW);
+        long[] authors = new long[options.movies() + 1];
+
+        try (Writer out = copyWriter(copy,
+                "COPY movie (id, title, description, created_at, user_id) FROM STDIN (FORMAT csv)")) {
+            for (int id = 1; id <= options.movies(); id++) {
+                long author = ZipfDistribution.spread(authorship.sample(random), options.users());
+                authors[id] = author;
+                out.write(id + ",Movie " + id + ",Synthetic movie " + id + " for load testing,"
+                        + EPOCH.plusMinutes(id) + "," + author + "\n");
+            }
+        }
+        return authors;
+    }
+
+    private long copyReactions(CopyManager copy, long[] authors) throws SQLException, IOException {
+        SplittableRandom random = new SplittableRandom(options.seed() + 1);
+        ZipfDistribution popularity = new ZipfDistribution(options.movies(), POPULARITY_SKEW);
+        int users = options.users();
+        long written = 0;
+        long id = 1;
+
+        try (Writer out = copyWriter(copy,
+                "COPY movie_reaction (id, reaction_type, created_at, user_id, movie_id) FROM STDIN (FORMAT csv)")) {
+            for (int rank = 0; rank < popularity.size(); rank++) {
+                long movieId = ZipfDistribution.spread(rank, options.movies());
+                long count = Math.min(Math.round(options.reactions() * popularity.probability(rank)), users - 1);
+                if (count == 0) {
+                    continue;
+                }
+                double likeRatio = 0.4 + random.nextDouble() * 0.55;
+
+                // Walking the users with a stride coprime to their count visits each at most once,
+                // which keeps (user, movie) unique without remembering who already reacted
+                long start = random.nextLong(users);
+                long stride = coprimeStride(random, users);
+                for (long i = 0, reacted = 0; reacted < count && i < users; i++) {
+                    long userId = (start + i * stride) % users + 1;
+                    if (userId == authors[(int) movieId]) {
+                        continue;
+                    }
+                    String type = random.nextDouble() < likeRatio ? "LIKE" : "HATE";
+                    out.write(id++ + "," + type + "," + EPOCH.plusMinutes(movieId).plusSeconds(reacted)
+                            + "," + userId + "," + movieId + "\n");
+                    reacted++;
+                    written++;
+                }
+            }
+        }
+        return written;
+    }
+
+    static String username(long id) {
+        return "lt_user_" + id;
+    }
+
+    private static long coprimeStride(SplittableRandom random, int n) {
+        long stride = 1 + random.nextLong(Math.max(n - 1, 1));
+        while (ZipfDistribution.gcd(stride, n) != 1) {
+            stride++;
+        }
+        return stride;
+    }
+
+    private static Writer copyWriter(CopyManager copy, String sql) throws SQLException {
+        return new BufferedWriter(new OutputStreamWriter(new PGCopyOutputStream(copy.copyIn(sql)), StandardCharsets.UTF_8),
+                1 << 16);
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static void log(String what, long rows, long startedNanos) {
+        System.out.printf("seeded %-24s %,12d rows in %,8d ms%n", what, rows, (System.nanoTime() - startedNanos) / 1_000_000);
+    }
+}
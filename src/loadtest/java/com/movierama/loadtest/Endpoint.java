@@ -0,0 +1,33 @@
+package com.movierama.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * The operations the load driver mixes; each one is reported separately.
+ */
+enum Endpoint {
+
+    LIST("list", "POST /api/movies"),
+    USER_LIST("user-list", "POST /api/movies/user/{id}"),
+    REACT("react", "POST /api/secured/movies/{id}/react"),
+    LOGIN("login", "POST /api/auth/login");
+
+    private final String optionName;
+    private final String label;
+
+    Endpoint(String optionName, String label) {
+        this.optionName = optionName;
+        this.label = label;
+    }
+
+    String label() {
+        return label;
+    }
+
+    static Endpoint fromName(String name) {
+        return Arrays.stream(values())
+                .filter(endpoint -> endpoint.optionName.equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown endpoint in mix: " + name));
+    }
+}
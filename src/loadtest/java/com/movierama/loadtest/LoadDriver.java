@@ -0,0 +1,189 @@
+package com.movierama.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load: {@code concurrency} clients each send one request at a time, picking the
+ * endpoint by the configured mix, for the warmup and then the measured duration. Listings favour
+ * the first pages and the popular authors, reactions favour the popular movies, following the
+ * same skew the data was generated with. Latencies are recorded per client and merged at the end.
+ */
+final class LoadDriver {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final String[] SORTS = {"id", "createdAt", "title", "likeCount", "hateCount", "trending"};
+    private static final long HIGHEST_LATENCY_MICROS = Duration.ofMinutes(1).toNanos() / 1_000;
+
+    private final LoadTestOptions options;
+    private final String baseUrl;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final ZipfDistribution pages = new ZipfDistribution(200, 1.2);
+    private final ZipfDistribution authorship;
+    private final ZipfDistribution popularity;
+    private final Endpoint[] weightedEndpoints;
+
+    LoadDriver(LoadTestOptions options, String baseUrl) {
+        this.options = options;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.authorship = new ZipfDistribution(options.users(), 1.0);
+        this.popularity = new ZipfDistribution(options.movies(), 1.1);
+
+        List<Endpoint> weighted = new ArrayList<>();
+        options.mix().forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(endpoint);
+            }
+        });
+        this.weightedEndpoints = weighted.toArray(Endpoint[]::new);
+    }
+
+    LoadReport run() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(options.concurrency());
+        try {
+            List<String> tokens = loginPool(clients);
+
+            long measureFrom = System.nanoTime() + options.warmup().toNanos();
+            long until = measureFrom + options.duration().toNanos();
+            List<Future<ClientStats>> results = new ArrayList<>();
+            for (int i = 0; i < options.concurrency(); i++) {
+                long seed = options.seed() * 31 + i;
+                results.add(clients.submit(() -> drive(new SplittableRandom(seed), tokens, measureFrom, until)));
+            }
+
+            LoadReport report = new LoadReport(options.duration());
+            for (Future<ClientStats> result : results) {
+                report.add(result.get().latencies, result.get().errors);
+            }
+            return report;
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    /**
+     * Logs in a pool of users up front so reactions do not pay for a login each.
+     */
+    private List<String> loginPool(ExecutorService clients) throws Exception {
+        int size = Math.min(options.users(), options.concurrency() * 4);
+        SplittableRandom random = new SplittableRandom(options.seed());
+        List<Future<String>> logins = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            long userId = 1 + random.nextLong(options.users());
+            logins.add(clients.submit(() -> token(send(login(userId)))));
+        }
+        List<String> tokens = new ArrayList<>(size);
+        for (Future<String> login : logins) {
+            tokens.add(login.get());
+        }
+        System.out.printf("logged in %d users for the reaction traffic%n", tokens.size());
+        return tokens;
+    }
+
+    private ClientStats drive(SplittableRandom random, List<String> tokens, long measureFrom, long until) {
+        ClientStats stats = new ClientStats();
+        long now;
+        while ((now = System.nanoTime()) < until) {
+            Endpoint endpoint = weightedEndpoints[random.nextInt(weightedEndpoints.length)];
+            HttpRequest request = request(endpoint, random, tokens);
+
+            boolean failed;
+            long started = System.nanoTime();
+            try {
+                failed = send(request).statusCode() >= 400;
+            } catch (IOException e) {
+                failed = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            long elapsedMicros = (System.nanoTime() - started) / 1_000;
+
+            if (now >= measureFrom) {
+                stats.latencies.get(endpoint).recordValue(Math.min(elapsedMicros, HIGHEST_LATENCY_MICROS));
+                if (failed) {
+                    stats.errors.merge(endpoint, 1L, Long::sum);
+                }
+            }
+        }
+        return stats;
+    }
+
+    private HttpRequest request(Endpoint endpoint, SplittableRandom random, List<String> tokens) {
+        return switch (endpoint) {
+            case LIST -> post("/api/movies", listing(random), null);
+            case USER_LIST -> post("/api/movies/user/" + ZipfDistribution.spread(authorship.sample(random), options.users()),
+                    listing(random), null);
+            case REACT -> post("/api/secured/movies/" + ZipfDistribution.spread(popularity.sample(random), options.movies())
+                            + "/react?reaction=" + (random.nextInt(4) == 0 ? "HATE" : "LIKE"),
+                    "", tokens.get(random.nextInt(tokens.size())));
+            case LOGIN -> login(1 + random.nextLong(options.users()));
+        };
+    }
+
+    private String listing(SplittableRandom random) {
+        String sortBy = SORTS[random.nextInt(SORTS.length)];
+        String direction = random.nextInt(4) == 0 ? "ASC" : "DESC";
+        return "{\"page\":" + pages.sample(random) + ",\"size\":10,\"sortBy\":\"" + sortBy
+                + "\",\"sortDirection\":\"" + direction + "\"}";
+    }
+
+    private HttpRequest login(long userId) {
+        return post("/api/auth/login", "{\"username\":\"" + DataGenerator.username(userId)
+                + "\",\"password\":\"" + DataGenerator.PASSWORD + "\"}", null);
+    }
+
+    private HttpRequest post(String path, String body, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String token(HttpResponse<String> response) {
+        Matcher matcher = TOKEN.matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("Login failed with " + response.statusCode() + ": " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    private static final class ClientStats {
+        private final Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+        private final Map<Endpoint, Long> errors = new EnumMap<>(Endpoint.class);
+
+        private ClientStats() {
+            for (Endpoint endpoint : Endpoint.values()) {
+                latencies.put(endpoint, new Histogram(HIGHEST_LATENCY_MICROS, 3));
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.movierama.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Throughput and latency percentiles per endpoint over the measured window.
+ */
+final class LoadReport {
+
+    private final Duration duration;
+    private final Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Long> errors = new EnumMap<>(Endpoint.class);
+
+    LoadReport(Duration duration) {
+        this.duration = duration;
+    }
+
+    void add(Map<Endpoint, Histogram> clientLatencies, Map<Endpoint, Long> clientErrors) {
+        clientLatencies.forEach((endpoint, histogram) -> latencies
+                .computeIfAbsent(endpoint, e -> new Histogram(histogram.getHighestTrackableValue(), 3))
+                .add(histogram));
+        clientErrors.forEach((endpoint, count) -> errors.merge(endpoint, count, Long::sum));
+    }
+
+    void print(PrintStream out) {
+        double seconds = duration.toMillis() / 1000.0;
+        out.printf("%n%-38s %10s %10s %8s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms");
+
+        Histogram total = null;
+        long totalErrors = 0;
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram histogram = latencies.get(endpoint);
+            if (histogram == null || histogram.getTotalCount() == 0) {
+                continue;
+            }
+            long endpointErrors = errors.getOrDefault(endpoint, 0L);
+            row(out, endpoint.label(), histogram, endpointErrors, seconds);
+            if (total == null) {
+                total = new Histogram(histogram.getHighestTrackableValue(), 3);
+            }
+            total.add(histogram);
+            totalErrors += endpointErrors;
+        }
+        if (total != null) {
+            row(out, "total", total, totalErrors, seconds);
+        }
+    }
+
+    private static void row(PrintStream out, String label, Histogram histogram, long errors, double seconds) {
+        out.printf("%-38s %,10d %,10.1f %,8d %9.2f %9.2f %9.2f %9.2f%n",
+                label,
+                histogram.getTotalCount(),
+                histogram.getTotalCount() / seconds,
+                errors,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
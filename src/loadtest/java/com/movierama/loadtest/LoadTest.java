@@ -0,0 +1,62 @@
+package com.movierama.loadtest;
+
+/**
+ * End-to-end load test: seeds a large synthetic dataset, drives a mix of listing, per-user
+ * listing, login and react calls, and prints throughput and latency percentiles per endpoint.
+ * <p>
+ * By default it starts Postgres, Redis and the application itself, so a run needs nothing but
+ * Docker: {@code mvn -Ploadtest verify -Dloadtest.args="--users=200000 --duration=1m"}.
+ * With {@code --target} it drives an instance that is already running instead, seeding its
+ * database only when {@code --jdbc-url} is given. See {@link LoadTestOptions} for every option.
+ * <p>
+ * A list of thread modes and concurrency levels measures every combination on the same data, e.g.
+ * {@code --threads=platform,virtual --concurrency=64,256,1024 --db-pool=10} to find where each
+ * mode stops adding throughput with the database pool held constant.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        if (options.target() != null) {
+            if (options.jdbcUrl() != null && !options.skipSeed()) {
+                new DataGenerator(options.jdbcUrl(), options.jdbcUser(), options.jdbcPassword(), options).generate();
+            }
+            sweep(options, options.target(), "target");
+            return;
+        }
+
+        try (LoadTestEnvironment environment = new LoadTestEnvironment()) {
+            environment.startInfrastructure();
+            boolean seeded = options.skipSeed();
+            for (String threads : options.threadModes()) {
+                // The application applies the migrations on startup; the data replaces their dummy rows
+                String baseUrl = environment.startApplication("virtual".equals(threads), options.dbPool());
+                if (!seeded) {
+                    new DataGenerator(environment.jdbcUrl(), environment.jdbcUser(), environment.jdbcPassword(), options)
+                            .generate();
+                    seeded = true;
+                }
+                sweep(options, baseUrl, "threads=" + threads + ", db-pool=" + options.dbPool());
+                environment.stopApplication();
+                environment.flushRedis();
+            }
+        }
+    }
+
+    private static void sweep(LoadTestOptions options, String baseUrl, String label) throws Exception {
+        for (int clients : options.concurrencyLevels()) {
+            run(options.withConcurrency(clients), baseUrl, label);
+        }
+    }
+
+    private static void run(LoadTestOptions options, String baseUrl, String label) throws Exception {
+        System.out.printf("== %s, concurrency=%d ==%n", label, options.concurrency());
+        System.out.printf("driving %s with %d clients: %s warmup, %s measured%n",
+                baseUrl, options.concurrency(), options.warmup(), options.duration());
+        new LoadDriver(options, baseUrl).run().print(System.out);
+    }
+}
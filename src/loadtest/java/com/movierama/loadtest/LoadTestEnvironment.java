@@ -0,0 +1,92 @@
+package com.movierama.loadtest;
+
+import com.movierama.MovieramaApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.Map;
+
+/**
+ * Postgres and Redis in Testcontainers (the same images as the integration specs) plus the
+ * application itself, started in this JVM on a random port with the Flyway migrations applied.
+ */
+final class LoadTestEnvironment implements AutoCloseable {
+
+    private final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:15-alpine"))
+            .withDatabaseName("movierama")
+            .withUsername("movierama")
+            .withPassword("movierama123")
+            // sized for bulk loading rather than durability
+            .withCommand("postgres", "-c", "fsync=off", "-c", "synchronous_commit=off",
+                    "-c", "max_wal_size=4GB", "-c", "shared_buffers=512MB");
+
+    private final GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379)
+            .waitingFor(Wait.forListeningPort());
+
+    private ConfigurableApplicationContext application;
+
+    void startInfrastructure() {
+        postgres.start();
+        redis.start();
+    }
+
+    /**
+     * Starts the application with virtual or platform request threads and a Hikari pool of
+     * {@code dbPool} connections, so both thread modes are measured against the same pool.
+     */
+    String startApplication(boolean virtualThreads, int dbPool) {
+        application = new SpringApplicationBuilder(MovieramaApplication.class)
+                .properties(Map.ofEntries(
+                        Map.entry("spring.threads.virtual.enabled", virtualThreads),
+                        Map.entry("spring.datasource.hikari.maximum-pool-size", dbPool),
+                        Map.entry("spring.datasource.url", postgres.getJdbcUrl()),
+                        Map.entry("spring.datasource.username", postgres.getUsername()),
+                        Map.entry("spring.datasource.password", postgres.getPassword()),
+                        Map.entry("spring.flyway.user", postgres.getUsername()),
+                        Map.entry("spring.flyway.password", postgres.getPassword()),
+                        Map.entry("spring.data.redis.host", redis.getHost()),
+                        Map.entry("spring.data.redis.port", redis.getFirstMappedPort()),
+                        Map.entry("server.port", 0)))
+                .run();
+        return "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+    }
+
+    void stopApplication() {
+        if (application != null) {
+            application.close();
+            application = null;
+        }
+    }
+
+    /**
+     * Empties Redis between runs so a later mode does not start with the caches the previous one
+     * warmed.
+     */
+    void flushRedis() throws Exception {
+        redis.execInContainer("redis-cli", "FLUSHALL");
+    }
+
+    String jdbcUrl() {
+        return postgres.getJdbcUrl();
+    }
+
+    String jdbcUser() {
+        return postgres.getUsername();
+    }
+
+    String jdbcPassword() {
+        return postgres.getPassword();
+    }
+
+    @Override
+    public void close() {
+        stopApplication();
+        redis.stop();
+        postgres.stop();
+    }
+}
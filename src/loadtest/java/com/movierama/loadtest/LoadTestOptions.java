@@ -0,0 +1,117 @@
+package com.movierama.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options, all {@code --name=value}:
+ * <pre>
+ *   --users=1000000        synthetic users to seed
+ *   --movies=1000000       synthetic movies to seed
+ *   --reactions=10000000   approximate number of reactions to seed
+ *   --seed=42              random seed for the data and the request mix
+ *   --skip-seed            keep the data already in the database
+ *   --target=URL           drive an already running instance instead of starting one
+ *   --jdbc-url=URL         with --target: database to seed (seeding is skipped without it)
+ *   --jdbc-user=NAME, --jdbc-password=SECRET
+ *   --concurrency=64       concurrent clients; a list (16,64,256) measures each level in turn
+ *   --threads=platform     request threads of the started application: platform, virtual or
+ *                          platform,virtual to compare both modes on the same data
+ *   --db-pool=10           connection pool size of the started application, the same in every mode
+ *   --warmup=30s           load applied before measuring
+ *   --duration=2m          measured load
+ *   --mix=list:60,user-list:20,react:15,login:5   relative weight of each endpoint
+ * </pre>
+ */
+record LoadTestOptions(
+        int users,
+        int movies,
+        long reactions,
+        long seed,
+        boolean skipSeed,
+        String target,
+        String jdbcUrl,
+        String jdbcUser,
+        String jdbcPassword,
+        int concurrency,
+        List<Integer> concurrencyLevels,
+        List<String> threadModes,
+        int dbPool,
+        Duration warmup,
+        Duration duration,
+        Map<Endpoint, Integer> mix) {
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int equals = arg.indexOf('=');
+            values.put(equals < 0 ? arg.substring(2) : arg.substring(2, equals),
+                    equals < 0 ? "true" : arg.substring(equals + 1));
+        }
+
+        List<Integer> concurrencyLevels = list(values.getOrDefault("concurrency", "64")).stream()
+                .map(Integer::parseInt)
+                .toList();
+        List<String> threadModes = list(values.getOrDefault("threads", "platform"));
+        for (String mode : threadModes) {
+            if (!mode.equals("platform") && !mode.equals("virtual")) {
+                throw new IllegalArgumentException("--threads must list platform and/or virtual: " + mode);
+            }
+        }
+
+        return new LoadTestOptions(
+                Integer.parseInt(values.getOrDefault("users", "1000000")),
+                Integer.parseInt(values.getOrDefault("movies", "1000000")),
+                Long.parseLong(values.getOrDefault("reactions", "10000000")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                Boolean.parseBoolean(values.getOrDefault("skip-seed", "false")),
+                values.get("target"),
+                values.get("jdbc-url"),
+                values.getOrDefault("jdbc-user", "movierama"),
+                values.getOrDefault("jdbc-password", "movierama123"),
+                concurrencyLevels.get(0),
+                concurrencyLevels,
+                threadModes,
+                Integer.parseInt(values.getOrDefault("db-pool", "10")),
+                duration(values.getOrDefault("warmup", "30s")),
+                duration(values.getOrDefault("duration", "2m")),
+                mix(values.getOrDefault("mix", "list:60,user-list:20,react:15,login:5")));
+    }
+
+    /**
+     * The same options with {@code concurrency} clients.
+     */
+    LoadTestOptions withConcurrency(int clients) {
+        return new LoadTestOptions(users, movies, reactions, seed, skipSeed, target, jdbcUrl, jdbcUser, jdbcPassword,
+                clients, concurrencyLevels, threadModes, dbPool, warmup, duration, mix);
+    }
+
+    private static List<String> list(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).toList();
+    }
+
+    private static Duration duration(String value) {
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Duration must end in s, m or h: " + value);
+        };
+    }
+
+    private static Map<Endpoint, Integer> mix(String value) {
+        Map<Endpoint, Integer> mix = new HashMap<>();
+        for (String part : value.split(",")) {
+            String[] weight = part.split(":");
+            mix.put(Endpoint.fromName(weight[0].trim()), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,66 @@
+package com.movierama.loadtest;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Zipf distribution over ranks {@code 0..n-1}: rank k is drawn with probability proportional to
+ * {@code 1 / (k + 1)^exponent}. Sampling is a binary search over the precomputed CDF, which costs
+ * 8 bytes per rank and stays cheap for the few million ranks a load test needs.
+ */
+final class ZipfDistribution {
+
+    private final double[] cdf;
+
+    ZipfDistribution(int n, double exponent) {
+        cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cdf[k] /= sum;
+        }
+    }
+
+    int size() {
+        return cdf.length;
+    }
+
+    double probability(int rank) {
+        return rank == 0 ? cdf[0] : cdf[rank] - cdf[rank - 1];
+    }
+
+    int sample(SplittableRandom random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cdf.length - 1);
+    }
+
+    /**
+     * Maps a rank to an id in {@code 1..n} through a fixed permutation, so the most popular rows
+     * are spread over the id range instead of being the oldest ones.
+     */
+    static long spread(int rank, int n) {
+        long multiplier = coprimeMultiplier(n);
+        return (rank * multiplier) % n + 1;
+    }
+
+    private static long coprimeMultiplier(int n) {
+        long candidate = 2_654_435_761L % n;
+        while (candidate <= 1 || gcd(candidate, n) != 1) {
+            candidate++;
+        }
+        return candidate;
+    }
+
+    static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
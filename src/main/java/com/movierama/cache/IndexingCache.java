@@ -0,0 +1,100 @@
+package com.movierama.cache;
+
+import com.movierama.paging.PagingResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Cache decorator that records every stored page in the {@link MoviePageIndex}. A page this
+ * decorator loaded is evicted again right after it was stored if one of its movies changed while
+ * it was loading, since the load may have read the counts from before the change.
+ */
+@RequiredArgsConstructor
+public class IndexingCache implements Cache {
+
+    private final Cache delegate;
+    private final MoviePageIndex index;
+    private final Duration ttl;
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // sequence the load started at; stays null when the value came from the cache
+        Long[] loadedAt = new Long[1];
+        T value = delegate.get(key, () -> {
+            long sequence = index.changeSequence();
+            T loaded = valueLoader.call();
+            record(key, loaded);
+            loadedAt[0] = sequence;
+            return loaded;
+        });
+        // The delegate has stored the page by now, so a change this misses evicts it through the index
+        if (loadedAt[0] != null && value instanceof PagingResponse<?> page && index.changedSince(page, loadedAt[0])) {
+            delegate.evict(key);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        record(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        if (existing == null) {
+            record(key, value);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    private void record(Object key, Object value) {
+        if (value instanceof PagingResponse<?> page) {
+            index.record(String.valueOf(key), page, ttl);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.movierama.cache;
+
+import com.movierama.entity.User;
+import com.movierama.paging.PagingRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * HTTP validators and caching policy of the GET listings. A listing's ETag digests the request,
+ * the viewer and the {@link MoviePageKeys#listingVersion version} of the listing, so a conditional
+ * request is answered after one Redis round trip, before any page is loaded or mapped.
+ * <p>
+ * Anonymous responses are public and may be served by shared caches for {@code max-age}
+ * (0 makes them revalidate every time); a viewer's responses carry their own reaction flags and
+ * are private. Both vary by {@code Authorization}.
+ */
+@Component
+public class ListingETags {
+
+    private final MoviePageKeys keys;
+    private final CacheControl anonymous;
+
+    public ListingETags(MoviePageKeys keys,
+                        @Value("${movierama.listing.http.max-age:5s}") Duration maxAge) {
+        this.keys = keys;
+        this.anonymous = maxAge.isZero()
+                ? CacheControl.noCache().cachePublic()
+                : CacheControl.maxAge(maxAge).cachePublic();
+    }
+
+    /**
+     * Strong ETag of the listing {@code request} asks for, of the catalog or of {@code userId}'s
+     * movies, as {@code viewer} sees it.
+     */
+    public String eTag(Long userId, PagingRequest request, User viewer) {
+        String scope = userId != null ? MoviePageKeys.userScope(userId) : "global";
+        String identity = String.join("|",
+                keys.listingVersion(scope, request.getSortBy()),
+                scope,
+                String.valueOf(request.getMode()),
+                String.valueOf(request.getPage()),
+                String.valueOf(request.getSize()),
+                String.valueOf(request.getSortBy()),
+                String.valueOf(request.getSortDirection()),
+                String.valueOf(request.getCursor()),
+                viewer != null ? String.valueOf(viewer.getId()) : "anonymous");
+        return '"' + DigestUtils.md5DigestAsHex(identity.getBytes(StandardCharsets.UTF_8)) + '"';
+    }
+
+    /**
+     * Whether any of the {@code If-None-Match} header values names {@code eTag} (or is {@code *}),
+     * compared weakly as If-None-Match requires.
+     */
+    public static boolean matches(String eTag, String[] ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        ETag current = ETag.create(eTag);
+        for (String header : ifNoneMatch) {
+            for (ETag candidate : ETag.parse(header)) {
+                if (candidate.isWildcard() || candidate.compare(current, false)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public CacheControl cacheControl(User viewer) {
+        return viewer != null ? CacheControl.noCache().cachePrivate() : anonymous;
+    }
+}
@@ -0,0 +1,72 @@
+package com.movierama.cache;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compresses the output of another serializer with LZ4 once it reaches {@code threshold} bytes.
+ * The first byte tells the two forms apart; compressed values then carry their original length:
+ * <pre>
+ *   0x00 | payload
+ *   0x01 | original length (int) | LZ4 block
+ * </pre>
+ */
+public class Lz4CompressingSerializer implements RedisSerializer<Object> {
+
+    private static final byte RAW = 0;
+    private static final byte LZ4 = 1;
+    private static final int LZ4_HEADER = 1 + Integer.BYTES;
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private final RedisSerializer<Object> delegate;
+    private final int threshold;
+
+    public Lz4CompressingSerializer(RedisSerializer<Object> delegate, int threshold) {
+        this.delegate = delegate;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte[] raw = delegate.serialize(value);
+        if (raw == null || raw.length == 0) {
+            return raw;
+        }
+
+        if (raw.length < threshold) {
+            byte[] out = new byte[raw.length + 1];
+            out[0] = RAW;
+            System.arraycopy(raw, 0, out, 1, raw.length);
+            return out;
+        }
+
+        int maxLength = COMPRESSOR.maxCompressedLength(raw.length);
+        byte[] out = new byte[LZ4_HEADER + maxLength];
+        ByteBuffer.wrap(out).put(LZ4).putInt(raw.length);
+        int compressedLength = COMPRESSOR.compress(raw, 0, raw.length, out, LZ4_HEADER, maxLength);
+        return Arrays.copyOf(out, LZ4_HEADER + compressedLength);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        return switch (bytes[0]) {
+            case RAW -> delegate.deserialize(Arrays.copyOfRange(bytes, 1, bytes.length));
+            case LZ4 -> {
+                int originalLength = ByteBuffer.wrap(bytes, 1, Integer.BYTES).getInt();
+                yield delegate.deserialize(DECOMPRESSOR.decompress(bytes, LZ4_HEADER, originalLength));
+            }
+            default -> throw new SerializationException("Unknown cache value format: " + bytes[0]);
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package com.movierama.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outermost cache decorator that times lookups by result and counts puts and evictions per cache.
+ * A hit's time is the lookup itself: L1, or the Redis round trip plus deserialization. A miss
+ * through {@link #get(Object, Callable)} includes loading the value, so a slow page shows up as
+ * either a slow hit or a miss.
+ */
+public class MeteredCache implements Cache {
+
+    private final Cache delegate;
+
+    private final Timer hits;
+    private final Timer misses;
+    private final Counter puts;
+    private final Counter evictions;
+
+    public MeteredCache(Cache delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.hits = lookupTimer(meterRegistry, "hit");
+        this.misses = lookupTimer(meterRegistry, "miss");
+        this.puts = Counter.builder("cache.puts")
+                .description("Values stored in the cache")
+                .tag("cache", delegate.getName())
+                .register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions")
+                .description("Explicit evictions and clears of the cache")
+                .tag("cache", delegate.getName())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        long start = System.nanoTime();
+        ValueWrapper wrapper = delegate.get(key);
+        (wrapper != null ? hits : misses).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return wrapper;
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        long start = System.nanoTime();
+        T value = delegate.get(key, type);
+        (value != null ? hits : misses).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        long start = System.nanoTime();
+        boolean[] loaded = new boolean[1];
+        T value = delegate.get(key, () -> {
+            loaded[0] = true;
+            return valueLoader.call();
+        });
+        (loaded[0] ? misses : hits).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        puts.increment();
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        if (existing == null) {
+            puts.increment();
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        evictions.increment();
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = delegate.evictIfPresent(key);
+        if (evicted) {
+            evictions.increment();
+        }
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        evictions.increment();
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = delegate.invalidate();
+        evictions.increment();
+        return invalidated;
+    }
+
+    private Timer lookupTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("cache.gets")
+                .description("Cache lookups by result; misses through a value loader include the load")
+                .tag("cache", delegate.getName())
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofSeconds(5))
+                .register(meterRegistry);
+    }
+}
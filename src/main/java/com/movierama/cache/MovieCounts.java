@@ -0,0 +1,90 @@
+package com.movierama.cache;
+
+import com.movierama.repository.MovieRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Movie totals for the offset-paged listings, kept in Redis per scope ({@code global} and
+ * {@code user:<id>}, as in {@link MoviePageKeys}) so that a listing does not run a COUNT on every
+ * request. A missing total is counted once and stored for {@code ttl}; in between,
+ * {@link MoviePageInvalidator} adds created movies to the stored totals after they commit.
+ * <p>
+ * A total counted while a create commits may miss or count that movie twice. The drift lasts
+ * until the total expires, which is acceptable for page numbers. When the catalog is larger than
+ * {@code estimate-above} rows (0, the default, turns this off), the global total is taken from
+ * the planner's row estimate instead of a full count.
+ */
+@Component
+public class MovieCounts {
+
+    static final String COUNT_PREFIX = "movieCount:";
+
+    // INCRBY would create a missing total starting from zero, so only existing ones are adjusted
+    private static final RedisScript<Long> INCREMENT_IF_PRESENT = RedisScript.of(
+            "if redis.call('exists', KEYS[1]) == 1 then return redis.call('incrby', KEYS[1], ARGV[1]) end "
+                    + "return nil", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final MovieRepository movieRepository;
+    private final Duration ttl;
+    private final long estimateAbove;
+
+    public MovieCounts(StringRedisTemplate redisTemplate,
+                       MovieRepository movieRepository,
+                       @Value("${movierama.listing.count.ttl:10m}") Duration ttl,
+                       @Value("${movierama.listing.count.estimate-above:0}") long estimateAbove) {
+        this.redisTemplate = redisTemplate;
+        this.movieRepository = movieRepository;
+        this.ttl = ttl;
+        this.estimateAbove = estimateAbove;
+    }
+
+    public long countAll() {
+        return cached("global", this::countCatalog);
+    }
+
+    public long countByUser(Long userId) {
+        return cached(MoviePageKeys.userScope(userId), () -> movieRepository.countByUserId(userId));
+    }
+
+    /**
+     * Adds {@code count} committed movies to the stored total of the scope, if there is one.
+     */
+    public void added(String scope, long count) {
+        redisTemplate.execute(INCREMENT_IF_PRESENT, List.of(COUNT_PREFIX + scope), Long.toString(count));
+    }
+
+    private long cached(String scope, LongSupplier counter) {
+        String key = COUNT_PREFIX + scope;
+        String stored = redisTemplate.opsForValue().get(key);
+        if (stored != null) {
+            return Long.parseLong(stored);
+        }
+        long count = counter.getAsLong();
+        // another request stored a total meanwhile; serve the same one
+        Boolean set = redisTemplate.opsForValue().setIfAbsent(key, Long.toString(count), ttl);
+        if (Boolean.FALSE.equals(set)) {
+            String current = redisTemplate.opsForValue().get(key);
+            return current != null ? Long.parseLong(current) : count;
+        }
+        return count;
+    }
+
+    private long countCatalog() {
+        if (estimateAbove > 0) {
+            // -1 until the table has been analyzed once
+            long estimate = movieRepository.estimateCount();
+            if (estimate > estimateAbove) {
+                return estimate;
+            }
+        }
+        return movieRepository.count();
+    }
+}
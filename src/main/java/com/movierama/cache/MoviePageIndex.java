@@ -0,0 +1,128 @@
+package com.movierama.cache;
+
+import com.movierama.dto.MovieDto;
+import com.movierama.paging.PagingResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reverse index from a movie to the {@code moviePage} keys of the cached pages that show it,
+ * one Redis set per movie. Lets a reaction evict exactly the pages displaying stale counts
+ * instead of clearing the whole cache.
+ * <p>
+ * A page whose load read the counts before a reaction committed can be stored after that
+ * reaction's evictions ran. Reactions therefore also stamp the movie with a change sequence
+ * ({@link #markChanged}), and a loaded page is checked against the sequence its load started at
+ * ({@link #changedSince}) once it is stored.
+ */
+@Component
+@RequiredArgsConstructor
+public class MoviePageIndex {
+
+    static final String INDEX_PREFIX = "moviePage:idx:";
+    static final String CHANGED_PREFIX = "moviePage:changed:";
+    static final String SEQUENCE_KEY = CHANGED_PREFIX + "seq";
+
+    // Longer than any page load, which is as long as a stamp has to outlive its reaction
+    static final Duration CHANGE_WINDOW = Duration.ofMinutes(1);
+
+    // Takes the next sequence and stamps the movie with it, in one round trip
+    private static final RedisScript<Long> MARK_CHANGED = RedisScript.of(
+            "local seq = redis.call('incr', KEYS[1]) "
+                    + "redis.call('set', KEYS[2], seq, 'EX', ARGV[1]) "
+                    + "return seq",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * Records the page under each of its movies. The sets expire with {@code ttl} so that
+     * entries for pages that already aged out of the cache do not pile up.
+     */
+    public void record(String cacheKey, PagingResponse<?> page, Duration ttl) {
+        List<?> content = page.getContent();
+        if (content == null || content.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                for (Object item : content) {
+                    if (item instanceof MovieDto movie && movie.getId() != null) {
+                        String indexKey = INDEX_PREFIX + movie.getId();
+                        operations.opsForSet().add(indexKey, cacheKey);
+                        operations.expire(indexKey, ttl);
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Returns the keys of the pages showing the movie and drops its index entry.
+     */
+    public Set<String> removePagesContaining(Long movieId) {
+        String indexKey = INDEX_PREFIX + movieId;
+        Set<String> keys = redisTemplate.opsForSet().members(indexKey);
+        redisTemplate.delete(indexKey);
+        return keys != null ? keys : Set.of();
+    }
+
+    /**
+     * Stamps the movie as changed; call before evicting the pages that show it.
+     */
+    public void markChanged(Long movieId) {
+        redisTemplate.execute(MARK_CHANGED, List.of(SEQUENCE_KEY, CHANGED_PREFIX + movieId),
+                Long.toString(CHANGE_WINDOW.toSeconds()));
+    }
+
+    /**
+     * The current change sequence; read before a page load.
+     */
+    public long changeSequence() {
+        String sequence = redisTemplate.opsForValue().get(SEQUENCE_KEY);
+        return sequence != null ? Long.parseLong(sequence) : 0L;
+    }
+
+    /**
+     * Whether a movie of the page changed after {@code sequence} was read, so that the page may
+     * show counts from before the change.
+     */
+    public boolean changedSince(PagingResponse<?> page, long sequence) {
+        List<?> content = page.getContent();
+        if (content == null || content.isEmpty()) {
+            return false;
+        }
+        List<String> stampKeys = new ArrayList<>(content.size());
+        for (Object item : content) {
+            if (item instanceof MovieDto movie && movie.getId() != null) {
+                stampKeys.add(CHANGED_PREFIX + movie.getId());
+            }
+        }
+        if (stampKeys.isEmpty()) {
+            return false;
+        }
+        List<String> stamps = redisTemplate.opsForValue().multiGet(stampKeys);
+        if (stamps == null) {
+            return false;
+        }
+        for (String stamp : stamps) {
+            if (stamp != null && Long.parseLong(stamp) > sequence) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,92 @@
+package com.movierama.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Invalidates only the {@code moviePage} entries a write can affect. Changes are applied after
+ * the surrounding transaction commits, so a rolled-back write never invalidates anything and a
+ * page rebuilt right after the invalidation already sees the new data.
+ */
+@Component
+@RequiredArgsConstructor
+public class MoviePageInvalidator {
+
+    static final String CACHE_NAME = "moviePage";
+
+    private final MoviePageKeys keys;
+    private final MoviePageIndex index;
+    private final CacheManager cacheManager;
+    private final MovieCounts counts;
+
+    /**
+     * A new movie can appear on any page of the catalog and of its author's listing.
+     */
+    public void movieCreated(Long ownerId) {
+        moviesCreated(ownerId, 1);
+    }
+
+    /**
+     * Same as {@link #movieCreated} for {@code count} movies of one author, e.g. an import.
+     */
+    public void moviesCreated(Long ownerId, long count) {
+        afterCommit(() -> {
+            keys.bumpScope("global");
+            keys.bumpScope(MoviePageKeys.userScope(ownerId));
+            counts.added("global", count);
+            counts.added(MoviePageKeys.userScope(ownerId), count);
+        });
+    }
+
+    /**
+     * A reaction changes the counts shown wherever the movie appears, and can move it within
+     * the orders sorted by the counts that changed and within the trending order, which every
+     * like or hate moves. The reaction generation moves for every change, since HTTP validators
+     * cannot tell which pages the evictions covered.
+     */
+    public void reactionChanged(Long movieId, long likeDelta, long hateDelta) {
+        if (likeDelta == 0 && hateDelta == 0) {
+            return;
+        }
+        afterCommit(() -> {
+            if (likeDelta != 0) {
+                keys.bumpOrder("likeCount");
+            }
+            if (hateDelta != 0) {
+                keys.bumpOrder("hateCount");
+            }
+            keys.bumpOrder("trending");
+            keys.bumpReactions();
+            // stamped first: a page stored after the evictions sees the stamp (see IndexingCache)
+            index.markChanged(movieId);
+            Cache cache = cacheManager.getCache(CACHE_NAME);
+            if (cache != null) {
+                index.removePagesContaining(movieId).forEach(cache::evict);
+            }
+        });
+    }
+
+    /**
+     * Renormalization keeps the trending order except for scores it rounds to zero.
+     */
+    public void trendingRenormalized() {
+        keys.bumpOrder("trending");
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
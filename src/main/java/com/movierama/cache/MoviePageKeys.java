@@ -0,0 +1,220 @@
+package com.movierama.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Builds {@code moviePage} cache keys that embed generation counters kept in Redis.
+ * Bumping a generation makes every key built from it unreachable at once, without deleting
+ * anything: the orphaned entries simply age out with the cache TTL.
+ * <p>
+ * There are two kinds of generation:
+ * <ul>
+ *     <li>scope: {@code global} for the full catalog and {@code user:<id>} for one author's
+ *     movies. Bumped when a movie is added, since it can land on any page of any order.</li>
+ *     <li>order: one per reaction-count sort and one for the trending score. Bumped when that
+ *     value changes on any movie, because the change can move the movie across pages.</li>
+ * </ul>
+ * Pages ordered by id, createdAt or title carry no order generation; reactions only change
+ * the counts shown on them, which {@link MoviePageInvalidator} handles by evicting the pages
+ * that contain the movie. Those evictions leave no trace in the keys, so a third counter,
+ * bumped by every reaction change, versions listings for HTTP validation
+ * ({@link #listingVersion}).
+ * <p>
+ * Keys are built on every {@code moviePage} lookup, L1 hits included, so the counters are kept in
+ * a local {@link NearCache}: a bump stores the new value on its node and drops the copies of the
+ * others through the {@link NearCacheInvalidationBus}, and a copy lives {@link #LOCAL_TTL} at most
+ * in case that message is lost.
+ */
+@Component("moviePageKeys")
+public class MoviePageKeys implements NearCache {
+
+    static final String GENERATION_PREFIX = "moviePage:gen:";
+
+    static final Set<String> COUNT_ORDERS = Set.of("likeCount", "hateCount", "trending");
+
+    static final String REACTIONS_KEY = GENERATION_PREFIX + "reactions";
+    static final String EPOCH_KEY = GENERATION_PREFIX + "epoch";
+
+    static final String NEAR_CACHE_NAME = "moviePage:gen";
+    static final Duration LOCAL_TTL = Duration.ofSeconds(10);
+
+    // Caffeine holds no nulls; a counter Redis does not have is cached as ABSENT
+    private static final String ABSENT = "";
+
+    private final StringRedisTemplate redisTemplate;
+    private final NearCacheInvalidationBus invalidationBus;
+    private final Cache<String, String> local = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(LOCAL_TTL)
+            .build();
+
+    public MoviePageKeys(StringRedisTemplate redisTemplate, NearCacheInvalidationBus invalidationBus) {
+        this.redisTemplate = redisTemplate;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.register(this);
+    }
+
+    public String page(int page, int size, String sortBy, String sortDirection) {
+        return key("global", page, size, sortBy, sortDirection);
+    }
+
+    public String userPage(Long userId, int page, int size, String sortBy, String sortDirection) {
+        return key("user:" + userId, page, size, sortBy, sortDirection);
+    }
+
+    public void bumpScope(String scope) {
+        bump(GENERATION_PREFIX + scope);
+    }
+
+    public void bumpOrder(String sortBy) {
+        bump(GENERATION_PREFIX + "order:" + sortBy);
+    }
+
+    public void bumpReactions() {
+        bump(REACTIONS_KEY);
+    }
+
+    /**
+     * Version of everything a listing of {@code scope} ordered by {@code sortBy} shows: the
+     * generations of its page keys and the reaction generation, prefixed with an epoch. The epoch
+     * is a random value created with the first version, so counters that Redis lost and restarted
+     * from 0 never repeat a version handed out before.
+     */
+    public String listingVersion(String scope, String sortBy) {
+        List<String> versionKeys = new ArrayList<>(4);
+        versionKeys.add(EPOCH_KEY);
+        versionKeys.addAll(generationKeys(scope, sortBy));
+        versionKeys.add(REACTIONS_KEY);
+
+        List<String> values = generations(versionKeys);
+        String epoch = values.get(0);
+        if (epoch == null) {
+            // nodes that start together agree on whichever epoch was stored first
+            redisTemplate.opsForValue().setIfAbsent(EPOCH_KEY, UUID.randomUUID().toString());
+            epoch = redisTemplate.opsForValue().get(EPOCH_KEY);
+            if (epoch != null) {
+                local.put(EPOCH_KEY, epoch);
+            }
+        }
+
+        StringBuilder version = new StringBuilder(String.valueOf(epoch));
+        for (int i = 1; i < versionKeys.size(); i++) {
+            String generation = values.get(i);
+            version.append(':').append(generation != null ? generation : "0");
+        }
+        return version.toString();
+    }
+
+    @Override
+    public String getName() {
+        return NEAR_CACHE_NAME;
+    }
+
+    @Override
+    public void evictLocal(String key) {
+        local.invalidate(key);
+    }
+
+    @Override
+    public void clearLocal() {
+        local.invalidateAll();
+    }
+
+    public static String userScope(Long userId) {
+        return "user:" + userId;
+    }
+
+    private String key(String scope, int page, int size, String sortBy, String sortDirection) {
+        List<String> generationKeys = generationKeys(scope, sortBy);
+
+        // a missing counter is generation 0
+        List<String> generations = generations(generationKeys);
+
+        StringBuilder key = new StringBuilder(scope);
+        for (int i = 0; i < generationKeys.size(); i++) {
+            String generation = generations.get(i);
+            key.append(i == 0 ? ":g" : ":o").append(generation != null ? generation : "0");
+        }
+        return key.append('_').append(page)
+                .append('_').append(size)
+                .append('_').append(sortBy)
+                .append('_').append(sortDirection)
+                .toString();
+    }
+
+    /**
+     * Current values of {@code keys}, null for the ones Redis does not have: from the local copies
+     * when all of them are there, otherwise from Redis in one round trip.
+     */
+    private List<String> generations(List<String> keys) {
+        Map<String, String> cached = local.getAllPresent(keys);
+        if (cached.size() < keys.size()) {
+            List<String> values = redisTemplate.opsForValue().multiGet(keys);
+            List<String> generations = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                String value = values != null ? values.get(i) : null;
+                if (values != null) {
+                    // merge() keeps a newer value that a bump stored while Redis was read
+                    local.asMap().merge(keys.get(i), value != null ? value : ABSENT, MoviePageKeys::newer);
+                }
+                generations.add(value);
+            }
+            return generations;
+        }
+
+        List<String> generations = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            String value = cached.get(key);
+            generations.add(ABSENT.equals(value) ? null : value);
+        }
+        return generations;
+    }
+
+    private void bump(String key) {
+        Long generation = redisTemplate.opsForValue().increment(key);
+        if (generation != null) {
+            // Redis's answer wins even over a higher copy, e.g. after the counter was lost
+            local.put(key, String.valueOf(generation));
+        } else {
+            local.invalidate(key);
+        }
+        invalidationBus.publishEvict(NEAR_CACHE_NAME, key);
+    }
+
+    /**
+     * The higher of two values of a counter; counters only grow. The epoch is not a counter and
+     * takes the later value.
+     */
+    private static String newer(String current, String candidate) {
+        if (ABSENT.equals(current)) {
+            return candidate;
+        }
+        if (ABSENT.equals(candidate)) {
+            return current;
+        }
+        try {
+            return Long.parseLong(candidate) >= Long.parseLong(current) ? candidate : current;
+        } catch (NumberFormatException e) {
+            return candidate;
+        }
+    }
+
+    private static List<String> generationKeys(String scope, String sortBy) {
+        List<String> generationKeys = new ArrayList<>(2);
+        generationKeys.add(GENERATION_PREFIX + scope);
+        if (COUNT_ORDERS.contains(sortBy)) {
+            generationKeys.add(GENERATION_PREFIX + "order:" + sortBy);
+        }
+        return generationKeys;
+    }
+}
@@ -0,0 +1,17 @@
+package com.movierama.cache;
+
+/**
+ * In-process copy of shared Redis state whose entries {@link NearCacheInvalidationBus} drops when
+ * another node changes them.
+ */
+public interface NearCache {
+
+    String getName();
+
+    /**
+     * Drops one local entry without touching Redis; used for invalidations from other nodes.
+     */
+    void evictLocal(String key);
+
+    void clearLocal();
+}
@@ -0,0 +1,66 @@
+package com.movierama.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Broadcasts invalidations of {@link NearCache}s (the L1 of {@link TwoLevelCache}s and the
+ * {@link MoviePageKeys} generations) over Redis pub/sub and applies the ones published by other
+ * nodes. A message is {@code nodeId \n cacheName [\n key]}; without a key it clears the whole
+ * cache. Pub/sub delivery is at most once, which is why the local entries also expire on their
+ * own well before the Redis ones.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NearCacheInvalidationBus implements MessageListener {
+
+    public static final String CHANNEL = "cache:invalidate";
+
+    private static final String SEPARATOR = "\n";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, NearCache> caches = new ConcurrentHashMap<>();
+
+    private final StringRedisTemplate redisTemplate;
+
+    public void register(NearCache cache) {
+        caches.put(cache.getName(), cache);
+    }
+
+    public void publishEvict(String cacheName, String key) {
+        redisTemplate.convertAndSend(CHANNEL, nodeId + SEPARATOR + cacheName + SEPARATOR + key);
+    }
+
+    public void publishClear(String cacheName) {
+        redisTemplate.convertAndSend(CHANNEL, nodeId + SEPARATOR + cacheName);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, 3);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            // this node already applied its own invalidation
+            return;
+        }
+        NearCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            log.debug("Ignoring invalidation for unknown cache {}", parts[1]);
+            return;
+        }
+        if (parts.length == 3) {
+            cache.evictLocal(parts[2]);
+        } else {
+            cache.clearLocal();
+        }
+    }
+}
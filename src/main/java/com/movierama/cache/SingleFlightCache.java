@@ -0,0 +1,171 @@
+package com.movierama.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * Cache decorator that lets one caller at a time load a missing key ({@code @Cacheable(sync = true)}).
+ * On a node, the {@link TwoLevelCache} below already runs the loader once per key while the other
+ * callers wait for it (counted there as coalesced, {@code source=local}); this decorator counts the loads.
+ * <p>
+ * With a {@code redisTemplate}, loads are also coalesced across nodes. Before loading, a caller
+ * takes a short Redis lock on the key for at most {@code lockTtl}; a caller that finds the lock
+ * taken polls the cache for the value instead of loading it, and loads anyway once the lock is gone
+ * without a value or {@code lockTtl} has passed. Callers served by the other node's value are
+ * counted as coalesced with {@code source=remote}. The lock is taken and awaited outside the delegate,
+ * so no in-process lock is held while another node loads.
+ */
+public class SingleFlightCache implements Cache {
+
+    static final String LOCK_PREFIX = "cacheLoad:";
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(20);
+
+    // Deletes the lock only while it still holds this caller's token
+    private static final RedisScript<Long> RELEASE = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end return 0",
+            Long.class);
+
+    private final Cache delegate;
+    private final StringRedisTemplate redisTemplate;
+    private final Duration lockTtl;
+
+    private final Counter loads;
+    private final Counter coalesced;
+
+    /**
+     * @param redisTemplate null to only count loads, without coalescing them across nodes
+     */
+    public SingleFlightCache(Cache delegate, StringRedisTemplate redisTemplate, Duration lockTtl,
+                             MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.redisTemplate = redisTemplate;
+        this.lockTtl = lockTtl;
+        this.loads = Counter.builder("cache.loads")
+                .description("Values loaded by a caller of the cache")
+                .tag("cache", delegate.getName())
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("cache.loads.coalesced")
+                .description("Callers served by the load of another caller instead of loading themselves")
+                .tag("cache", delegate.getName())
+                .tag("source", "remote")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Callable<T> counted = () -> {
+            loads.increment();
+            return valueLoader.call();
+        };
+        if (redisTemplate == null) {
+            return delegate.get(key, counted);
+        }
+
+        ValueWrapper cached = delegate.get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+
+        String lockKey = LOCK_PREFIX + getName() + "::" + key;
+        String token = UUID.randomUUID().toString();
+        if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey, token, lockTtl))) {
+            try {
+                return delegate.get(key, counted);
+            } finally {
+                redisTemplate.execute(RELEASE, List.of(lockKey), token);
+            }
+        }
+
+        ValueWrapper loadedElsewhere = awaitLoad(key, lockKey);
+        if (loadedElsewhere != null) {
+            coalesced.increment();
+            return (T) loadedElsewhere.get();
+        }
+        return delegate.get(key, counted);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    /**
+     * Polls for the value the lock holder is loading until it shows up, the lock is released or
+     * {@code lockTtl} has passed; null unless it showed up.
+     */
+    private ValueWrapper awaitLoad(Object key, String lockKey) {
+        long deadline = System.nanoTime() + lockTtl.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(POLL_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            ValueWrapper wrapper = delegate.get(key);
+            if (wrapper != null) {
+                return wrapper;
+            }
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(lockKey))) {
+                // the value may have been stored right before the release
+                return delegate.get(key);
+            }
+        }
+        return null;
+    }
+}
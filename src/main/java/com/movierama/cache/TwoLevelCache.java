@@ -0,0 +1,270 @@
+package com.movierama.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded in-process cache (L1) in front of the shared Redis cache (L2). Reads try L1, then L2,
+ * and copy L2 hits into L1 so repeat reads skip the network round trip and the deserialization.
+ * Evictions and clears are applied to both levels and broadcast through the
+ * {@link NearCacheInvalidationBus} so every other node drops the same L1 entries.
+ * <p>
+ * L1 holds futures. A miss through {@link #get(Object, Callable)} installs one and loads on the
+ * caller's thread, outside any Caffeine compute; concurrent callers for the key wait on that
+ * future, so a value is loaded once per node while evictions and other keys never wait for the
+ * load. Those waiting callers are counted as {@code cache.loads.coalesced} with {@code source=local}. An eviction during the load only detaches the future from L1.
+ * <p>
+ * Values this node stores (puts and loads) enter L1 as {@code localCopy} returns them, e.g. as a
+ * detached copy of an entity, the way a read from Redis would. Puts are not broadcast: a key is
+ * only ever rewritten after it was evicted, and the eviction already reached the other nodes.
+ */
+public class TwoLevelCache implements Cache, NearCache {
+
+    private final Cache remote;
+    private final AsyncCache<String, Object> local;
+    private final UnaryOperator<Object> localCopy;
+    private final NearCacheInvalidationBus invalidationBus;
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Counter coalesced;
+
+    public TwoLevelCache(Cache remote,
+                         AsyncCache<String, Object> local,
+                         UnaryOperator<Object> localCopy,
+                         NearCacheInvalidationBus invalidationBus,
+                         MeterRegistry meterRegistry) {
+        this.remote = remote;
+        this.local = local;
+        this.localCopy = localCopy;
+        this.invalidationBus = invalidationBus;
+        this.l1Hits = counter(meterRegistry, "l1", "hit");
+        this.l1Misses = counter(meterRegistry, "l1", "miss");
+        this.l2Hits = counter(meterRegistry, "l2", "hit");
+        this.l2Misses = counter(meterRegistry, "l2", "miss");
+        this.coalesced = Counter.builder("cache.loads.coalesced")
+                .description("Callers served by the load of another caller instead of loading themselves")
+                .tag("cache", remote.getName())
+                .tag("source", "local")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = localValue(localKey(key));
+        if (value != null) {
+            l1Hits.increment();
+            return new SimpleValueWrapper(value);
+        }
+        l1Misses.increment();
+
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null) {
+            l2Misses.increment();
+            return null;
+        }
+        l2Hits.increment();
+        if (wrapper.get() != null) {
+            local.put(localKey(key), CompletableFuture.completedFuture(wrapper.get()));
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        while (true) {
+            CompletableFuture<Object> loading = new CompletableFuture<>();
+            CompletableFuture<Object> existing = local.asMap().putIfAbsent(localKey, loading);
+            if (existing == null) {
+                l1Misses.increment();
+                return (T) load(key, valueLoader, loading);
+            }
+            if (existing.isCompletedExceptionally()) {
+                // a failed load Caffeine has not dropped yet; this caller loads again
+                local.asMap().remove(localKey, existing);
+                continue;
+            }
+            if (existing.isDone()) {
+                l1Hits.increment();
+            } else {
+                // a caller on this node is loading the key; its loader is not invoked for this one
+                l1Misses.increment();
+                coalesced.increment();
+            }
+            return (T) await(existing);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        if (value != null) {
+            local.put(localKey(key), CompletableFuture.completedFuture(localCopy.apply(value)));
+        } else {
+            evictLocal(localKey(key));
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        Object stored = existing != null ? existing.get() : value != null ? localCopy.apply(value) : null;
+        if (stored != null) {
+            local.put(localKey(key), CompletableFuture.completedFuture(stored));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        evictLocal(localKey(key));
+        invalidationBus.publishEvict(getName(), localKey(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = remote.evictIfPresent(key);
+        evictLocal(localKey(key));
+        invalidationBus.publishEvict(getName(), localKey(key));
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        clearLocal();
+        invalidationBus.publishClear(getName());
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = remote.invalidate();
+        clearLocal();
+        invalidationBus.publishClear(getName());
+        return invalidated;
+    }
+
+    @Override
+    public void evictLocal(String key) {
+        local.synchronous().invalidate(key);
+    }
+
+    @Override
+    public void clearLocal() {
+        local.synchronous().invalidateAll();
+    }
+
+    /**
+     * The value of a completed L1 entry; null when there is none or it is still loading.
+     */
+    private Object localValue(String localKey) {
+        CompletableFuture<Object> future = local.getIfPresent(localKey);
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+        return future.join();
+    }
+
+    /**
+     * Loads the value and completes {@code loading}, the L1 entry of the key, with it. A null
+     * value or a failure completes it too, and Caffeine drops such entries.
+     */
+    private Object load(Object key, Callable<?> valueLoader, CompletableFuture<Object> loading) {
+        try {
+            Object value = loadRemote(key, valueLoader);
+            loading.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Object loadRemote(Object key, Callable<?> valueLoader) {
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper != null) {
+            l2Hits.increment();
+            return wrapper.get();
+        }
+        l2Misses.increment();
+
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (value == null) {
+            return null;
+        }
+        remote.put(key, value);
+        return localCopy.apply(value);
+    }
+
+    private static Object await(CompletableFuture<Object> loading) {
+        try {
+            return loading.join();
+        } catch (CompletionException e) {
+            // the loading caller's own failure, e.g. a ValueRetrievalException wrapping the loader's
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * L1 keys use the same string form Redis stores, so a key received over pub/sub matches the
+     * local entry whatever type the caller used (e.g. the Long ids of the users cache).
+     */
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String level, String result) {
+        return Counter.builder("cache.level.gets")
+                .description("Cache lookups per level of the two-level cache")
+                .tag("cache", remote.getName())
+                .tag("level", level)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -1,28 +1,75 @@
 package com.movierama.config;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.movierama.cache.IndexingCache;
+import com.movierama.cache.Lz4CompressingSerializer;
+import com.movierama.cache.MeteredCache;
+import com.movierama.cache.MoviePageIndex;
+import com.movierama.cache.NearCacheInvalidationBus;
+import com.movierama.cache.SingleFlightCache;
+import com.movierama.cache.SmileCacheSerializer;
+import com.movierama.cache.TwoLevelCache;
+import com.movierama.dto.MovieDto;
+import com.movierama.entity.User;
+import com.movierama.paging.PagingResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.Map;
+import java.util.function.UnaryOperator;
 
 @Configuration
 public class CacheConfig {
 
+    /**
+     * In-process (L1) capacity per cache; caches not listed here are Redis only.
+     * moviePage entries are whole pages, so far fewer of them fit.
+     */
+    private static final Map<String, Long> NEAR_CACHE_SIZES = Map.of(
+            "users", 10_000L,
+            "moviePage", 2_000L
+    );
+
+    // Short L1 lifetime bounds staleness if a pub/sub invalidation is lost
+    private static final Duration NEAR_CACHE_TTL = Duration.ofMinutes(1);
+
+    // Search pages are not invalidated on writes; they just expire quickly
+    private static final Duration SEARCH_CACHE_TTL = Duration.ofSeconds(30);
+
+    // Binary values smaller than this are stored uncompressed; LZ4 does not pay off on them
+    private static final int COMPRESSION_THRESHOLD_BYTES = 1024;
+
+    private static final String BINARY_KEY_PREFIX = "bin:";
+
     /**
      * Create ObjectMapper for REST endpoints (without type information)
      */
-    private ObjectMapper createRestObjectMapper() {
+    static ObjectMapper createRestObjectMapper() {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
@@ -32,7 +79,7 @@ public class CacheConfig {
     /**
      * Create ObjectMapper for Redis cache (with type information for proper deserialization)
      */
-    private ObjectMapper createCacheObjectMapper() {
+    static ObjectMapper createCacheObjectMapper() {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
@@ -44,6 +91,22 @@ public class CacheConfig {
         return objectMapper;
     }
 
+    /**
+     * Create ObjectMapper for binary (Smile) cache values. No type information: each cache is
+     * bound to its value type instead. Unknown properties are ignored so entries written by an
+     * older or newer node still read during a rolling deploy.
+     */
+    static ObjectMapper createBinaryCacheObjectMapper() {
+        SmileFactory smileFactory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        ObjectMapper objectMapper = new ObjectMapper(smileFactory);
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        return objectMapper;
+    }
+
     /**
      * Configure the primary ObjectMapper for REST endpoints
      * Spring Boot will use this for HTTP request/response serialization
@@ -55,7 +118,13 @@ public class CacheConfig {
     }
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                     MoviePageIndex moviePageIndex,
+                                     NearCacheInvalidationBus invalidationBus,
+                                     MeterRegistry meterRegistry,
+                                     StringRedisTemplate redisTemplate,
+                                     @Value("${movierama.cache.single-flight.distributed:false}") boolean distributedLoads,
+                                     @Value("${movierama.cache.single-flight.lock-ttl:5s}") Duration loadLockTtl) {
         // Create ObjectMapper specifically for Redis cache with type information
         ObjectMapper cacheObjectMapper = createCacheObjectMapper();
         
@@ -75,12 +144,89 @@ public class CacheConfig {
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(jsonSerializer))
                 .disableCachingNullValues();
 
-        return RedisCacheManager.builder(redisConnectionFactory)
-                .cacheDefaults(defaultConfig)
-                .withCacheConfiguration("users", userCacheConfig)
-                .withCacheConfiguration("movies", defaultConfig)
-                .withCacheConfiguration("moviePage", defaultConfig)
-                .build();
+        // Value codec per cache: these store typed Smile, LZ4-compressed above a size threshold,
+        // instead of the default-typed JSON; any other cache keeps jsonSerializer
+        ObjectMapper binaryMapper = createBinaryCacheObjectMapper();
+        JavaType moviePageType = binaryMapper.getTypeFactory().constructParametricType(PagingResponse.class, MovieDto.class);
+        Map<String, RedisCacheConfiguration> cacheConfigs = Map.of(
+                "users", withBinaryValues(userCacheConfig,
+                        binaryMapper, binaryMapper.constructType(User.class)),
+                "moviePage", withBinaryValues(defaultConfig, binaryMapper, moviePageType),
+                "movieSearch", withBinaryValues(defaultConfig.entryTtl(SEARCH_CACHE_TTL), binaryMapper, moviePageType)
+        );
+
+        // L1 copies of values stored on this node. A cached User is the entity a repository
+        // returned; L1 keeps what a Redis read would return instead: a detached copy without the
+        // lazy collections, so requests never share a managed instance
+        RedisSerializer<Object> userSerializer = binarySerializer(binaryMapper, binaryMapper.constructType(User.class));
+        Map<String, UnaryOperator<Object>> localCopies = Map.of(
+                "users", user -> userSerializer.deserialize(userSerializer.serialize(user)));
+
+        // Redis (L2) caches get an in-process L1 in front of them. moviePage entries are invalidated
+        // through generation keys and the per-movie page index (see MoviePageInvalidator), so every
+        // stored page is recorded in the index, and page loads are counted (and coalesced across
+        // nodes when enabled). Each cache is metered outermost, covering both levels
+        return new RedisCacheManager(RedisCacheWriter.nonLockingRedisCacheWriter(redisConnectionFactory), defaultConfig, cacheConfigs) {
+            @Override
+            protected Cache decorateCache(Cache cache) {
+                Cache decorated = super.decorateCache(cache);
+                Long nearCacheSize = NEAR_CACHE_SIZES.get(cache.getName());
+                if (nearCacheSize != null) {
+                    decorated = twoLevelCache(decorated, nearCacheSize,
+                            localCopies.getOrDefault(cache.getName(), UnaryOperator.identity()),
+                            invalidationBus, meterRegistry);
+                }
+                if ("moviePage".equals(cache.getName())) {
+                    decorated = new IndexingCache(decorated, moviePageIndex, defaultConfig.getTtl());
+                    decorated = new SingleFlightCache(decorated, distributedLoads ? redisTemplate : null,
+                            loadLockTtl, meterRegistry);
+                }
+                return new MeteredCache(decorated, meterRegistry);
+            }
+        };
+    }
+
+    /**
+     * Delivers L1 invalidations published by the other nodes.
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                            NearCacheInvalidationBus invalidationBus) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(invalidationBus, new ChannelTopic(NearCacheInvalidationBus.CHANNEL));
+        return container;
     }
-}
 
+    /**
+     * Switches a cache to the compact codec. The binary entries live under their own key prefix so
+     * they never collide with JSON entries written before the switch.
+     */
+    private static RedisCacheConfiguration withBinaryValues(RedisCacheConfiguration config,
+                                                            ObjectMapper binaryMapper, JavaType valueType) {
+        return config
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        binarySerializer(binaryMapper, valueType)))
+                .prefixCacheNameWith(BINARY_KEY_PREFIX);
+    }
+
+    static RedisSerializer<Object> binarySerializer(ObjectMapper binaryMapper, JavaType valueType) {
+        return new Lz4CompressingSerializer(new SmileCacheSerializer(binaryMapper, valueType), COMPRESSION_THRESHOLD_BYTES);
+    }
+
+    private static TwoLevelCache twoLevelCache(Cache remote, long maximumSize, UnaryOperator<Object> localCopy,
+                                               NearCacheInvalidationBus invalidationBus, MeterRegistry meterRegistry) {
+        // Caffeine evicts with W-TinyLFU once the size bound is reached
+        TwoLevelCache cache = new TwoLevelCache(
+                remote,
+                Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterWrite(NEAR_CACHE_TTL)
+                        .buildAsync(),
+                localCopy,
+                invalidationBus,
+                meterRegistry);
+        invalidationBus.register(cache);
+        return cache;
+    }
+}
@@ -45,7 +45,7 @@ public class SecurityConfig {
         ));
         cfg.setAllowedMethods(java.util.List.of("GET","POST","PUT","PATCH","DELETE","OPTIONS"));
         cfg.setAllowedHeaders(java.util.List.of("*"));
-        cfg.setExposedHeaders(java.util.List.of("Location"));
+        cfg.setExposedHeaders(java.util.List.of("Location", "ETag"));
         cfg.setAllowCredentials(true);
         cfg.setMaxAge(3600L);
 
@@ -1,15 +1,24 @@
 package com.movierama.controller;
 
+import com.movierama.cache.ListingETags;
 import com.movierama.dto.MovieDto;
+import com.movierama.dto.MovieImportSummary;
 import com.movierama.dto.MovieRegistrationDto;
+import com.movierama.dto.MovieSuggestionDto;
 import com.movierama.mapper.MovieMapper;
+import com.movierama.paging.PagingMode;
 import com.movierama.paging.PagingRequest;
 import com.movierama.paging.PagingResponse;
 import com.movierama.entity.Movie;
 import com.movierama.entity.MovieReaction;
 import com.movierama.entity.User;
 import com.movierama.repository.MovieRepository;
+import com.movierama.service.MovieExportService;
+import com.movierama.service.MovieFileFormat;
+import com.movierama.service.MovieImportService;
 import com.movierama.service.MovieService;
+import com.movierama.service.ReactionWriteBehind;
+import com.movierama.service.TitleAutocomplete;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -19,17 +28,28 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 
 @Tag(name = "Movies", description = "Movie management endpoints")
@@ -41,8 +61,14 @@ public class MovieController {
     private final MovieService movieService;
     private final MovieMapper movieMapper;
     private final MovieRepository movieRepository;
+    private final ReactionWriteBehind reactionWriteBehind;
+    private final MovieImportService movieImportService;
+    private final MovieExportService movieExportService;
+    private final TitleAutocomplete titleAutocomplete;
+    private final ListingETags listingETags;
 
-    @Operation(summary = "List all movies", description = "Returns a paginated list of all movies with optional sorting")
+    @Operation(summary = "List all movies", description = "Returns a paginated list of all movies with optional sorting. " +
+            "Set mode to CURSOR and pass back nextCursor/prevCursor for keyset paging, or to SLICE to skip the totals.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Movies retrieved successfully",
                     content = @Content(schema = @Schema(implementation = PagingResponse.class)))
@@ -52,6 +78,27 @@ public class MovieController {
             @RequestBody PagingRequest pagingRequest,
             @Parameter(hidden = true) @AuthenticationPrincipal User user
     ) {
+        if (pagingRequest.getMode() == PagingMode.CURSOR) {
+            return ResponseEntity.ok(movieService.getMoviesPageByCursor(
+                    null,
+                    pagingRequest.getCursor(),
+                    pagingRequest.getSize(),
+                    pagingRequest.getSortBy(),
+                    pagingRequest.getSortDirection(),
+                    user
+            ));
+        }
+
+        if (pagingRequest.getMode() == PagingMode.SLICE) {
+            return ResponseEntity.ok(movieService.getMoviesSlice(
+                    pagingRequest.getPage(),
+                    pagingRequest.getSize(),
+                    pagingRequest.getSortBy(),
+                    pagingRequest.getSortDirection(),
+                    user
+            ));
+        }
+
         PagingResponse<MovieDto> response = movieService.getMoviesPageSorted(
                 pagingRequest.getPage(),
                 pagingRequest.getSize(),
@@ -77,6 +124,28 @@ public class MovieController {
             pagingRequest = new PagingRequest();
         }
 
+        if (pagingRequest.getMode() == PagingMode.CURSOR) {
+            return ResponseEntity.ok(movieService.getMoviesPageByCursor(
+                    userId,
+                    pagingRequest.getCursor(),
+                    pagingRequest.getSize(),
+                    pagingRequest.getSortBy(),
+                    pagingRequest.getSortDirection(),
+                    user
+            ));
+        }
+
+        if (pagingRequest.getMode() == PagingMode.SLICE) {
+            return ResponseEntity.ok(movieService.getMoviesByUserSlice(
+                    userId,
+                    pagingRequest.getPage(),
+                    pagingRequest.getSize(),
+                    pagingRequest.getSortBy(),
+                    pagingRequest.getSortDirection(),
+                    user
+            ));
+        }
+
         PagingResponse<MovieDto> response = movieService.getMoviesByUserPaged(
                 userId,
                 pagingRequest.getPage(),
@@ -89,6 +158,108 @@ public class MovieController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "List all movies (cacheable)", description = "GET form of POST /movies, with the paging " +
+            "request as query parameters. Responses carry a strong ETag: send it back in If-None-Match to get a 304 " +
+            "without the listing being loaded. Anonymous responses may be kept by shared caches.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Movies retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = PagingResponse.class))),
+            @ApiResponse(responseCode = "304", description = "The listing has not changed since the ETag was issued")
+    })
+    @GetMapping("/movies")
+    public ResponseEntity<PagingResponse<MovieDto>> getMovies(
+            @ParameterObject PagingRequest pagingRequest,
+            @Parameter(hidden = true) @AuthenticationPrincipal User user,
+            WebRequest webRequest
+    ) {
+        return conditionalListing(null, pagingRequest, user, webRequest,
+                () -> listMovies(pagingRequest, user).getBody());
+    }
+
+    @Operation(summary = "List movies by user (cacheable)", description = "GET form of POST /movies/user/{userId}, " +
+            "with the same ETag and caching behaviour as GET /movies.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Movies retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = PagingResponse.class))),
+            @ApiResponse(responseCode = "304", description = "The listing has not changed since the ETag was issued")
+    })
+    @GetMapping("/movies/user/{userId}")
+    public ResponseEntity<PagingResponse<MovieDto>> getMoviesByUser(
+            @Parameter(description = "User ID", required = true) @PathVariable Long userId,
+            @ParameterObject PagingRequest pagingRequest,
+            @Parameter(hidden = true) @AuthenticationPrincipal User user,
+            WebRequest webRequest
+    ) {
+        return conditionalListing(userId, pagingRequest, user, webRequest,
+                () -> listMoviesByUser(userId, pagingRequest, user).getBody());
+    }
+
+    @Operation(summary = "Search movies", description = "Full-text search over titles and descriptions, in web " +
+            "search syntax (words, \"quoted phrases\", -excluded, or). Ordered by relevance (default) or likeCount, " +
+            "with keyset paging: pass back nextCursor for the following page.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching movies",
+                    content = @Content(schema = @Schema(implementation = PagingResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Empty or too long query, bad size, sort or cursor",
+                    content = @Content(schema = @Schema(implementation = com.movierama.exception.ErrorResponse.class)))
+    })
+    @GetMapping("/movies/search")
+    public ResponseEntity<PagingResponse<MovieDto>> searchMovies(
+            @Parameter(description = "Search query", required = true) @RequestParam("q") String query,
+            @Parameter(description = "relevance or likeCount") @RequestParam(defaultValue = "relevance") String sortBy,
+            @Parameter(description = "nextCursor of the previous page") @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(hidden = true) @AuthenticationPrincipal User user
+    ) {
+        return ResponseEntity.ok(movieService.searchMovies(query, sortBy, cursor, size, user));
+    }
+
+    @Operation(summary = "Suggest titles", description = "Search-as-you-type title suggestions from an in-memory " +
+            "index: titles starting with the query, most liked first, topped up with close matches when the query " +
+            "has a typo. Titles from other nodes or bulk imports may take a few minutes to appear.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Suggestions, possibly empty"),
+            @ApiResponse(responseCode = "400", description = "Limit out of range",
+                    content = @Content(schema = @Schema(implementation = com.movierama.exception.ErrorResponse.class)))
+    })
+    @GetMapping("/movies/suggest")
+    public ResponseEntity<List<MovieSuggestionDto>> suggestTitles(
+            @Parameter(description = "What the user typed so far", required = true) @RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(titleAutocomplete.suggest(query, limit));
+    }
+
+    @Operation(summary = "Export the catalog", description = "Streams every movie with its author name and like/hate " +
+            "counts as NDJSON (default) or CSV, in id order, without paging. Requires authentication; only a few " +
+            "exports run at a time.")
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Catalog streamed"),
+            @ApiResponse(responseCode = "400", description = "Unknown format",
+                    content = @Content(schema = @Schema(implementation = com.movierama.exception.ErrorResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Authentication required",
+                    content = @Content(schema = @Schema(implementation = com.movierama.exception.ErrorResponse.class))),
+            @ApiResponse(responseCode = "429", description = "Too many exports are running",
+                    content = @Content(schema = @Schema(implementation = com.movierama.exception.ErrorResponse.class)))
+    })
+    @GetMapping("/secured/movies/export")
+    public ResponseEntity<StreamingResponseBody> exportMovies(
+            @Parameter(description = "ndjson or csv") @RequestParam(defaultValue = "ndjson") String format
+    ) {
+        MovieFileFormat fileFormat = MovieFileFormat.valueOf(format.toUpperCase());
+        // reserved before the response starts, so a full house is still a 429; the stream releases it
+        MovieExportService.ExportSlot slot = movieExportService.reserveSlot();
+        return ResponseEntity.ok()
+                .contentType(fileFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=movies." + fileFormat.getExtension())
+                .body(out -> {
+                    try (slot) {
+                        movieExportService.export(fileFormat, out);
+                    }
+                });
+    }
+
     @Operation(summary = "Create a new movie", description = "Creates a new movie post. Requires authentication.")
     @SecurityRequirement(name = "bearerAuth")
     @ApiResponses(value = {
@@ -116,6 +287,25 @@ public class MovieController {
         return ResponseEntity.ok(movieDto);
     }
 
+    @Operation(summary = "Bulk import movies", description = "Imports movies posted by the caller from an NDJSON body " +
+            "(one {\"title\", \"description\"} object per line) or a CSV body with a title,description header. " +
+            "The body is streamed, so it may be arbitrarily large. Rows whose title already exists are skipped.")
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import finished; rows that were not imported are listed",
+                    content = @Content(schema = @Schema(implementation = MovieImportSummary.class))),
+            @ApiResponse(responseCode = "401", description = "Authentication required",
+                    content = @Content(schema = @Schema(implementation = com.movierama.exception.ErrorResponse.class)))
+    })
+    @PostMapping(value = "/secured/movies/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<MovieImportSummary> importMovies(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body,
+            @Parameter(hidden = true) @AuthenticationPrincipal User userProfile
+    ) throws IOException {
+        return ResponseEntity.ok(movieImportService.importMovies(body, MovieFileFormat.ofContentType(contentType), userProfile));
+    }
+
 
 
 
@@ -126,6 +316,8 @@ public class MovieController {
             @ApiResponse(responseCode = "400", description = "Invalid reaction type, movie not found, or cannot react to own movie",
                     content = @Content(schema = @Schema(implementation = com.movierama.exception.ErrorResponse.class))),
             @ApiResponse(responseCode = "401", description = "Authentication required",
+                    content = @Content(schema = @Schema(implementation = com.movierama.exception.ErrorResponse.class))),
+            @ApiResponse(responseCode = "503", description = "Too many reactions are pending (write-behind mode only)",
                     content = @Content(schema = @Schema(implementation = com.movierama.exception.ErrorResponse.class)))
     })
     @PostMapping("/secured/movies/{movieId}/react")
@@ -141,8 +333,31 @@ public class MovieController {
 
         MovieReaction.ReactionType reactionType =
                 MovieReaction.ReactionType.valueOf(reaction.toUpperCase());
-        movieService.reactToMovie(movieId, userProfile, reactionType);
+        if (reactionWriteBehind.isEnabled()) {
+            reactionWriteBehind.submit(movieId, userProfile, reactionType);
+        } else {
+            movieService.reactToMovie(movieId, userProfile, reactionType);
+        }
         return ResponseEntity.ok(Map.of("message", "Reaction updated successfully"));
     }
 
+    private ResponseEntity<PagingResponse<MovieDto>> conditionalListing(
+            Long userId, PagingRequest pagingRequest, User user, WebRequest webRequest,
+            Supplier<PagingResponse<MovieDto>> listing) {
+        // a viewer's reactions waiting in the write-behind buffer show before any version moves
+        String eTag = user != null && reactionWriteBehind.isEnabled()
+                ? null
+                : listingETags.eTag(userId, pagingRequest, user);
+        boolean notModified = eTag != null
+                && ListingETags.matches(eTag, webRequest.getHeaderValues(HttpHeaders.IF_NONE_MATCH));
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .cacheControl(listingETags.cacheControl(user))
+                .varyBy(HttpHeaders.AUTHORIZATION);
+        if (eTag != null) {
+            response.eTag(eTag);
+        }
+        return notModified ? response.build() : response.body(listing.get());
+    }
+
 }
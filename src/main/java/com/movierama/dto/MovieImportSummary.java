@@ -0,0 +1,50 @@
+package com.movierama.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. Imported rows are only counted; every row that was not imported is
+ * listed with its 1-based record number, up to {@code MovieImportService.MAX_REPORTED_ROWS}.
+ */
+@Data
+@NoArgsConstructor
+public class MovieImportSummary {
+
+    private long received;
+
+    private long imported;
+
+    private long duplicates;
+
+    private long invalid;
+
+    private long failed;
+
+    private List<RowResult> rejectedRows = new ArrayList<>();
+
+    // true when more rows were rejected than are listed in rejectedRows
+    private boolean truncated;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowResult {
+
+        private long row;
+
+        private String title;
+
+        private Outcome outcome;
+
+        private String message;
+    }
+
+    public enum Outcome {
+        DUPLICATE, INVALID, FAILED
+    }
+}
@@ -0,0 +1,17 @@
+package com.movierama.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieSuggestionDto {
+
+    private Long id;
+
+    private String title;
+
+    private long likeCount;
+}
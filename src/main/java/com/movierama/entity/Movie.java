@@ -12,6 +12,7 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import lombok.Data;
 
 import java.io.Serializable;
@@ -23,7 +24,8 @@ import java.util.List;
 public class Movie implements Serializable {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movie_id_seq")
+    @SequenceGenerator(name = "movie_id_seq", sequenceName = "movie_id_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, length = 255)
@@ -44,6 +46,18 @@ public class Movie implements Serializable {
     
     @OneToMany(mappedBy = "movie", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<MovieReaction> reactions;
+
+    // Denormalized reaction counters, maintained by the react_to_movie function and the
+    // write-behind flush in the same transaction as the reaction change; never written through the entity.
+    @Column(name = "like_count", nullable = false, updatable = false)
+    private long likeCount;
+
+    @Column(name = "hate_count", nullable = false, updatable = false)
+    private long hateCount;
+
+    // Time-decayed reaction score behind the trending sort (see V10), maintained with the counters
+    @Column(name = "trending_score", nullable = false, updatable = false)
+    private double trendingScore;
     
     @PrePersist
     protected void onCreate() {
@@ -56,16 +70,6 @@ public class Movie implements Serializable {
         updatedAt = LocalDateTime.now();
     }
 
-    public long getLikeCount() {
-        return reactions != null ? 
-            reactions.stream().filter(r -> r.getReactionType() == MovieReaction.ReactionType.LIKE).count() : 0;
-    }
-    
-    public long getHateCount() {
-        return reactions != null ? 
-            reactions.stream().filter(r -> r.getReactionType() == MovieReaction.ReactionType.HATE).count() : 0;
-    }
-    
     public String getUserName() {
         return user != null ? user.getFullName() : "Unknown User";
     }
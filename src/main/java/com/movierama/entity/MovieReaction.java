@@ -11,6 +11,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -23,7 +24,8 @@ import java.time.LocalDateTime;
 public class MovieReaction implements Serializable {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movie_reaction_id_seq")
+    @SequenceGenerator(name = "movie_reaction_id_seq", sequenceName = "movie_reaction_id_seq", allocationSize = 50)
     private Long id;
     
     @Enumerated(EnumType.STRING)
@@ -0,0 +1,11 @@
+package com.movierama.exception;
+
+/**
+ * The write-behind reaction buffer stayed full for the whole enqueue timeout.
+ */
+public class ReactionBacklogFullException extends RuntimeException {
+
+    public ReactionBacklogFullException() {
+        super("Too many reactions are pending, please retry shortly");
+    }
+}
@@ -0,0 +1,11 @@
+package com.movierama.exception;
+
+/**
+ * Every catalog export slot is taken by a running export.
+ */
+public class TooManyExportsException extends RuntimeException {
+
+    public TooManyExportsException() {
+        super("Too many catalog exports are running, please retry later");
+    }
+}
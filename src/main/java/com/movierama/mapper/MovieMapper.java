@@ -4,10 +4,13 @@ import com.movierama.dto.MovieDto;
 import com.movierama.dto.MovieRegistrationDto;
 import com.movierama.entity.Movie;
 import com.movierama.entity.MovieReaction;
+import com.movierama.repository.MovieRepository;
 import org.mapstruct.InjectionStrategy;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
+import java.util.Map;
+
 @Mapper(
         componentModel = "spring",
         injectionStrategy = InjectionStrategy.CONSTRUCTOR,
@@ -21,46 +24,37 @@ public interface MovieMapper {
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "user", ignore = true)
     @Mapping(target = "reactions", ignore = true)
+    @Mapping(target = "likeCount", ignore = true)
+    @Mapping(target = "hateCount", ignore = true)
+    @Mapping(target = "trendingScore", ignore = true)
     Movie toEntity(MovieRegistrationDto dto);
 
     // Base mapping without user context
     @Mapping(target = "userId", source = "user.id")
     @Mapping(target = "userName", expression = "java(movie.getUserName())")
-    @Mapping(target = "likeCount", expression = "java(movie.getLikeCount())")
-    @Mapping(target = "hateCount", expression = "java(movie.getHateCount())")
     @Mapping(target = "userLiked", ignore = true)
     @Mapping(target = "userHated", ignore = true)
     MovieDto toDto(Movie movie);
 
-    // Overload with User context
-    default MovieDto toDto(Movie movie, Long currentUserId) {
-        if (movie == null) {
-            return null;
-        }
+    // Listing row projected by MovieRepository, same fields as the entity mapping above
+    @Mapping(target = "userLiked", ignore = true)
+    @Mapping(target = "userHated", ignore = true)
+    MovieDto toDto(MovieRepository.MovieRow row);
 
-        MovieDto dto = toDto(movie);
+    MovieDto copy(MovieDto dto);
 
-        if (currentUserId == null) {
-            dto.setUserLiked(false);
-            dto.setUserHated(false);
-            return dto;
+    // Copy of a shared (cached) DTO with the viewer's own reaction applied, looked up by movie id
+    default MovieDto toDto(MovieDto dto, Map<Long, MovieReaction.ReactionType> viewerReactions) {
+        if (dto == null) {
+            return null;
         }
 
-        boolean liked = movie.getReactions() != null &&
-                movie.getReactions().stream()
-                        .anyMatch(r -> r.getUser() != null &&
-                                r.getUser().getId().equals(currentUserId) &&
-                                r.getReactionType() == MovieReaction.ReactionType.LIKE);
-
-        boolean hated = movie.getReactions() != null &&
-                movie.getReactions().stream()
-                        .anyMatch(r -> r.getUser() != null &&
-                                r.getUser().getId().equals(currentUserId) &&
-                                r.getReactionType() == MovieReaction.ReactionType.HATE);
+        MovieDto copy = copy(dto);
 
-        dto.setUserLiked(liked);
-        dto.setUserHated(hated);
+        MovieReaction.ReactionType reaction = viewerReactions.get(dto.getId());
+        copy.setUserLiked(reaction == MovieReaction.ReactionType.LIKE);
+        copy.setUserHated(reaction == MovieReaction.ReactionType.HATE);
 
-        return dto;
+        return copy;
     }
 }
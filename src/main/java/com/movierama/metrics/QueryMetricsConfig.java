@@ -0,0 +1,48 @@
+package com.movierama.metrics;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Feeds the per-request {@link QueryTally} from Hibernate. A statement inspector counts every
+ * statement Hibernate prepares; queries run through JdbcTemplate (search, write-behind flush,
+ * export) are not seen. Listeners count entity loads and lazy collection initializations.
+ * <p>
+ * This stands in for {@code hibernate.generate_statistics}, which stays off: it only gives
+ * process-wide totals and logs a summary of every session.
+ */
+@Configuration
+public class QueryMetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer queryTallyStatementInspector() {
+        StatementInspector inspector = sql -> {
+            QueryTally.statementPrepared();
+            return sql;
+        };
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+
+    @Bean
+    public SmartInitializingSingleton queryTallyListeners(EntityManagerFactory entityManagerFactory) {
+        return () -> {
+            EventListenerRegistry listeners = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                    .getServiceRegistry()
+                    .getService(EventListenerRegistry.class);
+            listeners.appendListeners(EventType.POST_LOAD,
+                    (PostLoadEventListener) event -> QueryTally.entityLoaded());
+            listeners.appendListeners(EventType.INIT_COLLECTION,
+                    (InitializeCollectionEventListener) event -> QueryTally.collectionFetched());
+        };
+    }
+}
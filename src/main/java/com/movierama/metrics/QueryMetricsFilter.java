@@ -0,0 +1,60 @@
+package com.movierama.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records the {@link QueryTally} of every request per method and route template, the same
+ * {@code uri} tags {@code http.server.requests} uses: {@code movierama.request.statements},
+ * {@code movierama.request.entity.loads} and {@code movierama.request.collection.fetches}.
+ * Runs ahead of security so that loading the principal counts too. A streamed response body
+ * written after the handler returns is not included.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class QueryMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryTally tally = QueryTally.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryTally.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            summary("movierama.request.statements", "SQL statements Hibernate prepared per request",
+                    request, uri).record(tally.statements());
+            summary("movierama.request.entity.loads", "Entities Hibernate loaded per request",
+                    request, uri).record(tally.entityLoads());
+            summary("movierama.request.collection.fetches", "Lazy collections initialized per request",
+                    request, uri).record(tally.collectionFetches());
+        }
+    }
+
+    private DistributionSummary summary(String name, String description, HttpServletRequest request, String uri) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(1_000.0)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,88 @@
+package com.movierama.metrics;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * What one request asked of Hibernate: statements prepared, entities loaded and lazy collections
+ * initialized. Bound to the request thread by {@link QueryMetricsFilter} and fed by the
+ * statement inspector and event listeners of {@link QueryMetricsConfig}; work outside a request
+ * is not tallied. Helper threads working for the request (the page loader) join it with
+ * {@link #callWith}.
+ */
+public final class QueryTally {
+
+    private static final ThreadLocal<QueryTally> CURRENT = new ThreadLocal<>();
+
+    // Atomic because a request's content and count queries may run on two threads at once
+    private final AtomicInteger statements = new AtomicInteger();
+    private final AtomicInteger entityLoads = new AtomicInteger();
+    private final AtomicInteger collectionFetches = new AtomicInteger();
+
+    static QueryTally start() {
+        QueryTally tally = new QueryTally();
+        CURRENT.set(tally);
+        return tally;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * The tally of the request running on this thread, or null.
+     */
+    public static QueryTally current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs {@code call} on this thread counting into {@code tally} (which may be null).
+     */
+    public static <V> V callWith(QueryTally tally, Callable<V> call) throws Exception {
+        QueryTally previous = CURRENT.get();
+        CURRENT.set(tally);
+        try {
+            return call.call();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    static void statementPrepared() {
+        QueryTally tally = CURRENT.get();
+        if (tally != null) {
+            tally.statements.incrementAndGet();
+        }
+    }
+
+    static void entityLoaded() {
+        QueryTally tally = CURRENT.get();
+        if (tally != null) {
+            tally.entityLoads.incrementAndGet();
+        }
+    }
+
+    static void collectionFetched() {
+        QueryTally tally = CURRENT.get();
+        if (tally != null) {
+            tally.collectionFetches.incrementAndGet();
+        }
+    }
+
+    int statements() {
+        return statements.get();
+    }
+
+    int entityLoads() {
+        return entityLoads.get();
+    }
+
+    int collectionFetches() {
+        return collectionFetches.get();
+    }
+}
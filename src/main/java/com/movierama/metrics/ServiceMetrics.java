@@ -0,0 +1,79 @@
+package com.movierama.metrics;
+
+import com.movierama.entity.User;
+import com.movierama.repository.MovieSearchSort;
+import com.movierama.repository.MovieSortField;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Latency of the service operations behind the API: one {@code movierama.service} timer per
+ * operation, sort order, viewer (authenticated or anonymous) and outcome, published with
+ * percentile histograms. The operations are timed at the call site, so cached calls count with
+ * their cache lookup. Sort orders outside the known ones are tagged {@code other}, so clients
+ * cannot create new series.
+ */
+@Component
+public class ServiceMetrics {
+
+    static final String TIMER = "movierama.service";
+
+    private static final Set<String> SORTS = Stream.concat(
+                    Arrays.stream(MovieSortField.values()).map(MovieSortField::getSortBy),
+                    Arrays.stream(MovieSearchSort.values()).map(MovieSearchSort::getProperty))
+            .collect(Collectors.toUnmodifiableSet());
+
+    private final MeterRegistry meterRegistry;
+
+    public ServiceMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T time(String operation, String sortBy, User viewer, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(timer(operation, sortBy, viewer, outcome));
+        }
+    }
+
+    public void time(String operation, User viewer, Runnable call) {
+        time(operation, null, viewer, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private Timer timer(String operation, String sortBy, User viewer, String outcome) {
+        // registered once per tag combination; later calls are a lookup
+        return Timer.builder(TIMER)
+                .description("Latency of service operations")
+                .tag("operation", operation)
+                .tag("sort", sortTag(sortBy))
+                .tag("viewer", viewer != null ? "authenticated" : "anonymous")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+    }
+
+    static String sortTag(String sortBy) {
+        if (sortBy == null || sortBy.isEmpty()) {
+            return "none";
+        }
+        return SORTS.contains(sortBy) ? sortBy : "other";
+    }
+}
@@ -0,0 +1,44 @@
+package com.movierama.paging;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paged listing: the sort key and id of the row the next page starts after
+ * (or, when {@code backward}, the row the previous page ends before). Encoded as an opaque
+ * URL-safe string so clients cannot depend on its layout.
+ */
+@Getter
+@AllArgsConstructor
+public final class PageCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String sortBy;
+    private final String sortDirection;
+    private final boolean backward;
+    private final long id;
+    private final String value;
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, sortBy, sortDirection, backward ? "b" : "f", Long.toString(id), value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // the value goes last so it may itself contain the separator (titles)
+            String[] parts = raw.split("\\|", 5);
+            if (parts.length != 5) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new PageCursor(parts[0], parts[1], "b".equals(parts[2]), Long.parseLong(parts[3]), parts[4]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
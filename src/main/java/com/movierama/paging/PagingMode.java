@@ -0,0 +1,10 @@
+package com.movierama.paging;
+
+public enum PagingMode {
+    /** Page number + size, backed by OFFSET; returns totals. */
+    OFFSET,
+    /** Page number + size like OFFSET, without totals: only {@code last} tells whether more follow. Never counts. */
+    SLICE,
+    /** Opaque next/prev cursors, backed by keyset (seek) queries; cost does not grow with depth. */
+    CURSOR
+}
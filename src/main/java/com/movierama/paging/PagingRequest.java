@@ -6,6 +6,10 @@ import lombok.Data;
 public class PagingRequest {
     private int page = 0;
     private int size = 10;
+    // id, createdAt, title, likeCount, hateCount or trending (likes minus hates, decayed by age)
     private String sortBy = "id";
     private String sortDirection = "DESC";
+    private PagingMode mode = PagingMode.OFFSET;
+    // Only used in CURSOR mode: nextCursor/prevCursor of a previous response, empty for the first page
+    private String cursor;
 }
@@ -9,7 +9,11 @@ public class PagingResponse<T> {
     private List<T> content;
     private int page;
     private int size;
+    // OFFSET mode only; 0 otherwise
     private long totalElements;
     private int totalPages;
     private boolean last;
+    // CURSOR mode only; null when there is no page in that direction
+    private String nextCursor;
+    private String prevCursor;
 }
@@ -0,0 +1,87 @@
+package com.movierama.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based movie inserts for the bulk import: one statement per chunk, without entities, so a
+ * long import never grows a persistence context.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MovieBatchRepository {
+
+    // INCREMENT BY of movie_id_seq and allocationSize of Movie.id (see V8)
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record NewMovie(String title, String description) {
+    }
+
+    /**
+     * Inserts the movies for the user in list order and skips each one whose {@code lower(title)}
+     * is already taken, by a stored movie, a concurrent insert or an earlier movie of the list; the
+     * uniq_movie_title index decides, so the comparison is Postgres' own {@code lower}. Returns
+     * whether each movie was inserted.
+     */
+    public boolean[] insertSkippingTakenTitles(List<NewMovie> movies, long userId) {
+        boolean[] inserted = new boolean[movies.size()];
+        if (movies.isEmpty()) {
+            return inserted;
+        }
+        // Ids are reserved the way the pooled generator of the entity does, so they follow the list
+        // order and never fall into a range Hibernate has reserved
+        List<Long> ids = reserveIds(movies.size());
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            positions.put(ids.get(i), i);
+        }
+        String[] titles = movies.stream().map(NewMovie::title).toArray(String[]::new);
+        String[] descriptions = movies.stream().map(NewMovie::description).toArray(String[]::new);
+
+        jdbcTemplate.query(connection -> {
+                    var statement = connection.prepareStatement(
+                            "INSERT INTO movie (id, title, description, created_at, updated_at, user_id) " +
+                                    "SELECT m.id, m.title, m.description, LOCALTIMESTAMP, LOCALTIMESTAMP, ? " +
+                                    "FROM unnest(?, ?, ?) AS m(id, title, description) ORDER BY m.id " +
+                                    "ON CONFLICT (lower(title)) DO NOTHING RETURNING id");
+                    Array idArray = connection.createArrayOf("bigint", ids.toArray());
+                    Array titleArray = connection.createArrayOf("text", titles);
+                    Array descriptionArray = connection.createArrayOf("text", descriptions);
+                    statement.setLong(1, userId);
+                    statement.setArray(2, idArray);
+                    statement.setArray(3, titleArray);
+                    statement.setArray(4, descriptionArray);
+                    return statement;
+                },
+                rs -> {
+                    inserted[positions.get(rs.getLong(1))] = true;
+                });
+        return inserted;
+    }
+
+    /**
+     * {@code count} ascending movie ids; each nextval reserves the block of ids up to and
+     * including the value returned.
+     */
+    private List<Long> reserveIds(int count) {
+        int blocks = (count + ID_ALLOCATION_SIZE - 1) / ID_ALLOCATION_SIZE;
+        List<Long> blockEnds = jdbcTemplate.queryForList(
+                "SELECT nextval('movie_id_seq') FROM generate_series(1, ?)", Long.class, blocks);
+        List<Long> ids = new ArrayList<>(count);
+        for (long blockEnd : blockEnds.stream().sorted().toList()) {
+            for (long id = blockEnd - ID_ALLOCATION_SIZE + 1; id <= blockEnd && ids.size() < count; id++) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+}
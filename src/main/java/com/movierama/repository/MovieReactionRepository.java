@@ -2,19 +2,45 @@ package com.movierama.repository;
 
 import com.movierama.entity.MovieReaction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface MovieReactionRepository extends JpaRepository<MovieReaction, Long> {
     
     Optional<MovieReaction> findByUserIdAndMovieId(Long userId, Long movieId);
-}
 
+    // Served by the unique_reaction(user_id, movie_id) index; no entity or user proxy is loaded.
+    @Query("select r.movie.id as movieId, r.reactionType as reactionType from MovieReaction r " +
+            "where r.user.id = :userId and r.movie.id in :movieIds")
+    List<UserReaction> findUserReactions(@Param("userId") Long userId, @Param("movieIds") Collection<Long> movieIds);
 
+    /**
+     * Applies a like/hate request with toggle semantics and adjusts the movie's counters in one
+     * round trip and one atomic call; see V7__add_react_to_movie_function.sql.
+     */
+    @Query(value = "SELECT status, previous_type AS \"previousType\", current_type AS \"currentType\" " +
+            "FROM react_to_movie(:userId, :movieId, :reactionType)", nativeQuery = true)
+    ReactionOutcome react(@Param("userId") Long userId,
+                          @Param("movieId") Long movieId,
+                          @Param("reactionType") String reactionType);
 
+    interface UserReaction {
+        Long getMovieId();
 
+        MovieReaction.ReactionType getReactionType();
+    }
 
+    interface ReactionOutcome {
+        String getStatus();
 
+        String getPreviousType();
 
+        String getCurrentType();
+    }
+}
@@ -1,21 +1,93 @@
 package com.movierama.repository;
 
 import com.movierama.entity.Movie;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface MovieRepository extends JpaRepository<Movie, Long>, JpaSpecificationExecutor<Movie> {
+public interface MovieRepository extends JpaRepository<Movie, Long>, JpaSpecificationExecutor<Movie>, MovieRepositoryCustom {
 
-    Page<Movie> findByUserId(Long userId, Pageable pageable);
+    /**
+     * A listing row shaped like MovieDto, read straight from the joined movie and author columns
+     * without hydrating entities. The viewer's own flags are not part of it: listing pages are
+     * cached for every viewer and the flags are applied per request.
+     */
+    interface MovieRow {
+        Long getId();
+
+        String getTitle();
+
+        String getDescription();
+
+        String getUserName();
+
+        Long getUserId();
+
+        LocalDateTime getCreatedAt();
+
+        long getLikeCount();
+
+        long getHateCount();
+    }
+
+    // userName as User.getFullName builds it, which prints a missing name part as "null" where SQL
+    // concat would return null; sorts resolve against the movie alias m
+    String MOVIE_ROWS = "select m.id as id, m.title as title, m.description as description, " +
+            "concat(coalesce(u.firstName, 'null'), ' ', coalesce(u.lastName, 'null')) as userName, u.id as userId, m.createdAt as createdAt, " +
+            "m.likeCount as likeCount, m.hateCount as hateCount from Movie m join m.user u";
+
+    // Page content in one statement and without the count query; PageLoader runs the count separately
+    @Query(MOVIE_ROWS)
+    List<MovieRow> findPageRows(Pageable pageable);
+
+    @Query(MOVIE_ROWS + " where u.id = :userId")
+    List<MovieRow> findPageRowsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    // SLICE mode: one row more than the page is read to tell whether a next page exists
+    @Query(MOVIE_ROWS)
+    Slice<MovieRow> findSliceRows(Pageable pageable);
+
+    @Query(MOVIE_ROWS + " where u.id = :userId")
+    Slice<MovieRow> findSliceRowsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    long countByUserId(Long userId);
+
+    // The planner's row estimate for the table, kept current by autovacuum; -1 before the first ANALYZE
+    @Query(value = "SELECT reltuples::bigint FROM pg_class WHERE oid = 'movie'::regclass", nativeQuery = true)
+    long estimateCount();
 
     Optional<Movie> findByTitleIgnoreCase(String title);
 
     Page<Movie> findAll(Specification<Movie> movieSpecification, Pageable pageable);
+
+    @Query("select m.user.id from Movie m where m.id = :movieId")
+    Optional<Long> findOwnerIdById(@Param("movieId") Long movieId);
+
+    interface TitleRow {
+        Long getId();
+
+        String getTitle();
+
+        long getLikeCount();
+    }
+
+    // Every title for the autocomplete index, read in fetch-size chunks; must run in a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select m.id as id, m.title as title, m.likeCount as likeCount from Movie m")
+    Stream<TitleRow> streamTitles();
 }
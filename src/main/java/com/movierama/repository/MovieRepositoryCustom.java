@@ -0,0 +1,17 @@
+package com.movierama.repository;
+
+import com.movierama.entity.Movie;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+public interface MovieRepositoryCustom {
+
+    /**
+     * Keyset (seek) page: up to {@code limit} movies ordered by {@code sortField} then id, both in
+     * {@code direction}, strictly after the ({@code lastValue}, {@code lastId}) position. A null
+     * {@code lastId} starts from the beginning; a null {@code userId} lists the whole catalog.
+     */
+    List<Movie> findKeysetPage(Long userId, MovieSortField sortField, Sort.Direction direction,
+                               Object lastValue, Long lastId, int limit);
+}
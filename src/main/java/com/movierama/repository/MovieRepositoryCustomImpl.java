@@ -0,0 +1,58 @@
+package com.movierama.repository;
+
+import com.movierama.entity.Movie;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MovieRepositoryCustomImpl implements MovieRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Movie> findKeysetPage(Long userId, MovieSortField sortField, Sort.Direction direction,
+                                      Object lastValue, Long lastId, int limit) {
+        String property = "m." + sortField.getProperty();
+        String order = direction.isAscending() ? "asc" : "desc";
+        String comparison = direction.isAscending() ? ">" : "<";
+
+        List<String> conditions = new ArrayList<>();
+        if (userId != null) {
+            conditions.add("m.user.id = :userId");
+        }
+        if (lastId != null) {
+            // Row-value comparison, so Postgres can start the index scan at the cursor position
+            conditions.add(sortField == MovieSortField.ID
+                    ? "m.id " + comparison + " :lastId"
+                    : "(" + property + ", m.id) " + comparison + " (:lastValue, :lastId)");
+        }
+
+        StringBuilder jpql = new StringBuilder("select m from Movie m join fetch m.user");
+        if (!conditions.isEmpty()) {
+            jpql.append(" where ").append(String.join(" and ", conditions));
+        }
+        jpql.append(" order by ");
+        if (sortField != MovieSortField.ID) {
+            jpql.append(property).append(' ').append(order).append(", ");
+        }
+        jpql.append("m.id ").append(order);
+
+        TypedQuery<Movie> query = entityManager.createQuery(jpql.toString(), Movie.class)
+                .setMaxResults(limit);
+        if (userId != null) {
+            query.setParameter("userId", userId);
+        }
+        if (lastId != null) {
+            query.setParameter("lastId", lastId);
+            if (sortField != MovieSortField.ID) {
+                query.setParameter("lastValue", lastValue);
+            }
+        }
+        return query.getResultList();
+    }
+}
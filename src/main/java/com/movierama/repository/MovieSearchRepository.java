@@ -0,0 +1,68 @@
+package com.movierama.repository;
+
+import com.movierama.dto.MovieDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Full-text search over the generated movie.search_vector column (V9). Matches come from the GIN
+ * index; pages are keyset seeks on (rank or like_count, id), read straight into DTOs with the
+ * author joined in, so a page is one statement.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MovieSearchRepository {
+
+    private static final String RANK = "ts_rank(m.search_vector, q.query)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * A matching movie and its ts_rank score. The rank is a Postgres real, kept as a float so a
+     * cursor built from it compares exactly.
+     */
+    public record Hit(MovieDto movie, float rank) {
+    }
+
+    /**
+     * Up to {@code limit} movies matching {@code query} (web search syntax: words, "phrases",
+     * -exclusions, or), in {@code sort} order, strictly after the ({@code lastValue}, {@code lastId})
+     * position. A null {@code lastId} starts from the best match.
+     */
+    public List<Hit> search(String query, MovieSearchSort sort, String lastValue, Long lastId, int limit) {
+        String sortKey = sort == MovieSearchSort.RELEVANCE ? RANK : "m.like_count";
+
+        StringBuilder sql = new StringBuilder(
+                "SELECT m.id, m.title, m.description, m.created_at, m.user_id, u.first_name, u.last_name, " +
+                        "m.like_count, m.hate_count, " + RANK + " AS rank " +
+                        "FROM movie m JOIN user_profile u ON u.id = m.user_id, " +
+                        "websearch_to_tsquery('english', ?) AS q(query) " +
+                        "WHERE m.search_vector @@ q.query");
+        List<Object> args = new ArrayList<>();
+        args.add(query);
+        if (lastId != null) {
+            sql.append(" AND (").append(sortKey).append(", m.id) < (?, ?)");
+            args.add(sort == MovieSearchSort.RELEVANCE ? (Object) Float.parseFloat(lastValue) : Long.parseLong(lastValue));
+            args.add(lastId);
+        }
+        sql.append(" ORDER BY ").append(sortKey).append(" DESC, m.id DESC LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            MovieDto movie = new MovieDto();
+            movie.setId(rs.getLong("id"));
+            movie.setTitle(rs.getString("title"));
+            movie.setDescription(rs.getString("description"));
+            movie.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+            movie.setUserId(rs.getLong("user_id"));
+            movie.setUserName(rs.getString("first_name") + " " + rs.getString("last_name"));
+            movie.setLikeCount(rs.getLong("like_count"));
+            movie.setHateCount(rs.getLong("hate_count"));
+            return new Hit(movie, rs.getFloat("rank"));
+        }, args.toArray());
+    }
+}
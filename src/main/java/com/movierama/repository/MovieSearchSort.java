@@ -0,0 +1,33 @@
+package com.movierama.repository;
+
+import java.util.Arrays;
+
+/**
+ * Orders of a search result, always descending with id as the tiebreaker. RELEVANCE ranks the
+ * matches with ts_rank; LIKE_COUNT keeps the matches in listing order by likes.
+ */
+public enum MovieSearchSort {
+
+    RELEVANCE("relevance"),
+    LIKE_COUNT("likeCount");
+
+    private final String property;
+
+    MovieSearchSort(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public static MovieSearchSort fromSortBy(String sortBy) {
+        if (sortBy == null || sortBy.isEmpty()) {
+            return RELEVANCE;
+        }
+        return Arrays.stream(values())
+                .filter(sort -> sort.property.equals(sortBy))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported search sort: " + sortBy));
+    }
+}
@@ -0,0 +1,64 @@
+package com.movierama.repository;
+
+import com.movierama.entity.Movie;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Movie properties a listing can be ordered by, under their {@code sortBy} name. Each one is
+ * backed by a (column, id) index so both OFFSET and keyset pages are index scans; id is always
+ * the tiebreaker.
+ */
+public enum MovieSortField {
+
+    ID("id", "id", Movie::getId, Long::valueOf),
+    CREATED_AT("createdAt", "createdAt", Movie::getCreatedAt, LocalDateTime::parse),
+    TITLE("title", "title", Movie::getTitle, Function.identity()),
+    LIKE_COUNT("likeCount", "likeCount", Movie::getLikeCount, Long::valueOf),
+    HATE_COUNT("hateCount", "hateCount", Movie::getHateCount, Long::valueOf),
+    // Double.toString round-trips exactly, so trending cursors seek to the exact score
+    TRENDING("trending", "trendingScore", Movie::getTrendingScore, Double::valueOf);
+
+    private final String sortBy;
+    private final String property;
+    private final Function<Movie, Object> extractor;
+    private final Function<String, Object> parser;
+
+    MovieSortField(String sortBy, String property, Function<Movie, ?> extractor, Function<String, ?> parser) {
+        this.sortBy = sortBy;
+        this.property = property;
+        this.extractor = extractor::apply;
+        this.parser = parser::apply;
+    }
+
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    /**
+     * Entity property the order is applied to.
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    public String format(Movie movie) {
+        return String.valueOf(extractor.apply(movie));
+    }
+
+    public Object parse(String value) {
+        return parser.apply(value);
+    }
+
+    public static MovieSortField fromSortBy(String sortBy) {
+        if (sortBy == null || sortBy.isEmpty()) {
+            return ID;
+        }
+        return Arrays.stream(values())
+                .filter(field -> field.sortBy.equals(sortBy))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported sort property: " + sortBy));
+    }
+}
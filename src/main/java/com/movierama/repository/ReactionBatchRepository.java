@@ -0,0 +1,178 @@
+package com.movierama.repository;
+
+import com.movierama.entity.MovieReaction.ReactionType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based reaction writes for the write-behind flush: one query to read the current state of
+ * many (user, movie) pairs and one JDBC batch per kind of change.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactionBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Pair(long userId, long movieId) {
+    }
+
+    public record Change(long userId, long movieId, ReactionType reactionType) {
+    }
+
+    /**
+     * Net effect of a flush on one movie: the counter deltas, the summed trending sign (LIKE +1,
+     * HATE -1) of the reactions it writes, and the users whose stored reaction it replaces or
+     * deletes, whose trending weight has to be taken back.
+     */
+    public record MovieDelta(long likeDelta, long hateDelta, long addedTrendingSign, List<Long> replacedUserIds) {
+
+        public MovieDelta plus(MovieDelta other) {
+            List<Long> replaced = new ArrayList<>(replacedUserIds);
+            replaced.addAll(other.replacedUserIds);
+            return new MovieDelta(likeDelta + other.likeDelta, hateDelta + other.hateDelta,
+                    addedTrendingSign + other.addedTrendingSign, replaced);
+        }
+    }
+
+    /**
+     * Takes the shared trending epoch lock (see V10) and then the row locks of the movies, in id
+     * order, the way react_to_movie does for its one movie. Every writer of reactions holds the
+     * lock of the movie, so while it is held the stored reactions of the movie cannot change and
+     * the deltas computed from {@link #findReactions} stay exact until the commit.
+     */
+    public void lockMovies(Collection<Long> movieIds) {
+        if (movieIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute("SELECT lock_trending_epoch(false)");
+        Long[] ids = movieIds.toArray(Long[]::new);
+        jdbcTemplate.query(connection -> {
+                    var statement = connection.prepareStatement(
+                            "SELECT id FROM movie WHERE id = ANY (?) ORDER BY id FOR NO KEY UPDATE");
+                    statement.setArray(1, connection.createArrayOf("bigint", ids));
+                    return statement;
+                },
+                rs -> {
+                });
+    }
+
+    /**
+     * Current reaction of every pair that has one; served by the unique_reaction index. Read after
+     * {@link #lockMovies} so the result cannot go stale before the commit.
+     */
+    public Map<Pair, ReactionType> findReactions(Collection<Pair> pairs) {
+        Map<Pair, ReactionType> reactions = new HashMap<>();
+        if (pairs.isEmpty()) {
+            return reactions;
+        }
+        Long[] userIds = pairs.stream().map(Pair::userId).toArray(Long[]::new);
+        Long[] movieIds = pairs.stream().map(Pair::movieId).toArray(Long[]::new);
+
+        jdbcTemplate.query(connection -> {
+                    var statement = connection.prepareStatement(
+                            "SELECT r.user_id, r.movie_id, r.reaction_type FROM movie_reaction r " +
+                                    "JOIN unnest(?, ?) AS p(user_id, movie_id) " +
+                                    "ON r.user_id = p.user_id AND r.movie_id = p.movie_id");
+                    Array users = connection.createArrayOf("bigint", userIds);
+                    Array movies = connection.createArrayOf("bigint", movieIds);
+                    statement.setArray(1, users);
+                    statement.setArray(2, movies);
+                    return statement;
+                },
+                rs -> {
+                    reactions.put(new Pair(rs.getLong(1), rs.getLong(2)), ReactionType.valueOf(rs.getString(3)));
+                });
+        return reactions;
+    }
+
+    public void insert(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO movie_reaction (reaction_type, created_at, user_id, movie_id) VALUES (?, now(), ?, ?)",
+                changes, changes.size(), (ps, change) -> {
+                    ps.setString(1, change.reactionType().name());
+                    ps.setLong(2, change.userId());
+                    ps.setLong(3, change.movieId());
+                });
+    }
+
+    /**
+     * Fails if a row to update is gone, since the counter deltas were computed for it.
+     */
+    public void update(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        String sql = "UPDATE movie_reaction SET reaction_type = ?, created_at = now() WHERE user_id = ? AND movie_id = ?";
+        int[][] counts = jdbcTemplate.batchUpdate(sql, changes, changes.size(), (ps, change) -> {
+            ps.setString(1, change.reactionType().name());
+            ps.setLong(2, change.userId());
+            ps.setLong(3, change.movieId());
+        });
+        requireOneRowEach(sql, counts);
+    }
+
+    /**
+     * Fails if a row to delete is gone, since the counter deltas were computed for it.
+     */
+    public void delete(List<Pair> pairs) {
+        if (pairs.isEmpty()) {
+            return;
+        }
+        String sql = "DELETE FROM movie_reaction WHERE user_id = ? AND movie_id = ?";
+        int[][] counts = jdbcTemplate.batchUpdate(sql, pairs, pairs.size(), (ps, pair) -> {
+            ps.setLong(1, pair.userId());
+            ps.setLong(2, pair.movieId());
+        });
+        requireOneRowEach(sql, counts);
+    }
+
+    /**
+     * Applies the counter and trending deltas per movie id. Must run before the reaction rows
+     * change, since the weights taken back are computed from the stored rows' created_at, and
+     * after {@link #lockMovies} for the same movies.
+     */
+    public void adjustReactionCounts(Map<Long, MovieDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, MovieDelta>> entries = List.copyOf(deltas.entrySet());
+        jdbcTemplate.batchUpdate(
+                "UPDATE movie SET like_count = like_count + ?, hate_count = hate_count + ?, " +
+                        "trending_score = trending_score + ? * trending_weight('LIKE', LOCALTIMESTAMP) " +
+                        "- coalesce((SELECT sum(trending_weight(r.reaction_type, r.created_at)) FROM movie_reaction r " +
+                        "WHERE r.movie_id = ? AND r.user_id = ANY (?)), 0) " +
+                        "WHERE id = ?",
+                entries, entries.size(), (ps, entry) -> {
+                    MovieDelta delta = entry.getValue();
+                    ps.setLong(1, delta.likeDelta());
+                    ps.setLong(2, delta.hateDelta());
+                    ps.setLong(3, delta.addedTrendingSign());
+                    ps.setLong(4, entry.getKey());
+                    ps.setArray(5, ps.getConnection().createArrayOf("bigint", delta.replacedUserIds().toArray()));
+                    ps.setLong(6, entry.getKey());
+                });
+    }
+
+    private static void requireOneRowEach(String sql, int[][] counts) {
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count != 1) {
+                    throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(sql, 1, count);
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.movierama.security.jwt;
 
+import com.movierama.metrics.ServiceMetrics;
 import com.movierama.service.ProfileService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -21,24 +22,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final ProfileService profileService;
+    private final ServiceMetrics serviceMetrics;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         String authHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
+        // Parsed and verified once; everything below works from the verified claims
+        VerifiedToken token = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwt = authHeader.substring(7);
-            username = jwtTokenProvider.extractUsername(jwt);
+            token = jwtTokenProvider.verify(authHeader.substring(7));
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = profileService.loadUserByUsername(username);
+        if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String username = token.getUsername();
+            // timed here rather than inside the cached method, so cache hits are measured too
+            UserDetails userDetails = serviceMetrics.time("users.loadPrincipal", null, null,
+                    () -> profileService.loadUserByUsername(username));
 
-            if (jwtTokenProvider.validateToken(jwt, userDetails)) {
+            if (jwtTokenProvider.validateToken(token, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -1,17 +1,29 @@
 package com.movierama.security.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenProvider {
@@ -19,6 +31,29 @@ public class JwtTokenProvider {
     private final Key key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
     private final long jwtExpirationMs = 86400000; // 24h
 
+    // Immutable and thread-safe, so one parser serves every request
+    private final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(key)
+            .build();
+
+    // Recently verified tokens by SHA-256 of the token, so a client reusing its bearer token
+    // skips the signature check; the raw token is never kept in memory
+    private final Cache<String, VerifiedToken> verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(5))
+            .build();
+
+    // Verification latency by result: answered from memory, signature checked, or rejected
+    private final Timer verifyCached;
+    private final Timer verifyChecked;
+    private final Timer verifyRejected;
+
+    public JwtTokenProvider(MeterRegistry meterRegistry) {
+        this.verifyCached = verifyTimer(meterRegistry, "cached");
+        this.verifyChecked = verifyTimer(meterRegistry, "checked");
+        this.verifyRejected = verifyTimer(meterRegistry, "rejected");
+    }
+
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("role", userDetails.getAuthorities());
@@ -38,33 +73,62 @@ public class JwtTokenProvider {
                 .compact();
     }
 
-    public boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
-    }
+    /**
+     * Verifies the signature and expiry of the token and returns its claims. Throws the
+     * {@link io.jsonwebtoken.JwtException} of the parser when the token is malformed, forged or
+     * expired. A token verified recently is answered from memory.
+     */
+    public VerifiedToken verify(String token) {
+        long start = System.nanoTime();
+        String tokenHash = hash(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(tokenHash);
+        if (cached != null) {
+            if (!cached.isExpired(Instant.now())) {
+                verifyCached.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return cached;
+            }
+            // Let the parser report the expiry exactly as it does for an uncached token
+            verifiedTokens.invalidate(tokenHash);
+        }
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            verifyRejected.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(), claims.getExpiration().toInstant());
+        verifiedTokens.put(tokenHash, verified);
+        verifyChecked.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return verified;
     }
 
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public boolean validateToken(VerifiedToken token, UserDetails userDetails) {
+        return token.getUsername().equals(userDetails.getUsername()) && !token.isExpired(Instant.now());
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    public String extractUsername(String token) {
+        return verify(token).getUsername();
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private static Timer verifyTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("movierama.jwt.verify")
+                .description("Bearer token verification latency")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1_000))
+                .maximumExpectedValue(Duration.ofMillis(100))
+                .register(meterRegistry);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM ships SHA-256
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -0,0 +1,22 @@
+package com.movierama.security.jwt;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * The claims of a bearer token whose signature has been checked. Built once per token by
+ * {@link JwtTokenProvider#verify(String)} and shared by everything that handles the request.
+ */
+@Getter
+@AllArgsConstructor
+public final class VerifiedToken {
+
+    private final String username;
+    private final Instant expiresAt;
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
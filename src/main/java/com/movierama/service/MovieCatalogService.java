@@ -0,0 +1,172 @@
+package com.movierama.service;
+
+import com.movierama.cache.MovieCounts;
+import com.movierama.dto.MovieDto;
+import com.movierama.entity.Movie;
+import com.movierama.mapper.MovieMapper;
+import com.movierama.paging.PageCursor;
+import com.movierama.paging.PagingResponse;
+import com.movierama.repository.MovieRepository;
+import com.movierama.repository.MovieSortField;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Builds movie listing pages that are the same for every viewer: userLiked/userHated are always
+ * false here and are overlaid per request by {@link MovieService}. This is what lets a single
+ * cached page serve anonymous and authenticated traffic alike.
+ */
+@Service
+@RequiredArgsConstructor
+public class MovieCatalogService {
+
+    private final MovieRepository movieRepository;
+    private final MovieMapper movieMapper;
+    private final PageLoader pageLoader;
+    private final MovieCounts movieCounts;
+
+    // Not transactional: the content and count queries may run on separate threads, each in the
+    // repository's own read-only transaction, and an outer one would only pin an idle connection.
+    // The totals come from MovieCounts, so a page usually costs the content query alone.
+    @Cacheable(value = "moviePage", sync = true, key = "@moviePageKeys.page(#page, #size, #sortBy, #sortDirection)")
+    public PagingResponse<MovieDto> getMoviesPage(int page, int size, String sortBy, String sortDirection) {
+        Pageable pageable = PageRequest.of(page, size, resolveSort(sortBy, sortDirection));
+        return toPagingResponse(pageLoader.load(pageable,
+                () -> movieRepository.findPageRows(pageable),
+                movieCounts::countAll));
+    }
+
+    @Cacheable(value = "moviePage", sync = true, key = "@moviePageKeys.userPage(#userId, #page, #size, #sortBy, #sortDirection)")
+    public PagingResponse<MovieDto> getMoviesByUserPage(Long userId, int page, int size, String sortBy, String sortDirection) {
+        Pageable pageable = PageRequest.of(page, size, resolveSort(sortBy, sortDirection));
+        return toPagingResponse(pageLoader.load(pageable,
+                () -> movieRepository.findPageRowsByUserId(userId, pageable),
+                () -> movieCounts.countByUser(userId)));
+    }
+
+    /**
+     * SLICE mode: the same page without totals, only whether another one follows. Never counts.
+     */
+    @Cacheable(value = "moviePage", sync = true, key = "@moviePageKeys.page(#page, #size, #sortBy, #sortDirection) + ':slice'")
+    public PagingResponse<MovieDto> getMoviesSlice(int page, int size, String sortBy, String sortDirection) {
+        return toSliceResponse(movieRepository.findSliceRows(
+                PageRequest.of(page, size, resolveSort(sortBy, sortDirection))));
+    }
+
+    @Cacheable(value = "moviePage", sync = true, key = "@moviePageKeys.userPage(#userId, #page, #size, #sortBy, #sortDirection) + ':slice'")
+    public PagingResponse<MovieDto> getMoviesByUserSlice(Long userId, int page, int size, String sortBy, String sortDirection) {
+        return toSliceResponse(movieRepository.findSliceRowsByUserId(userId,
+                PageRequest.of(page, size, resolveSort(sortBy, sortDirection))));
+    }
+
+    /**
+     * Keyset-paged listing (CURSOR mode) over the whole catalog, or over one user's movies when
+     * {@code userId} is set. Each page is a seek from the cursor position, so page 5,000 costs the
+     * same as page one. Not cached: deep cursor pages are rarely shared between clients.
+     */
+    @Transactional(readOnly = true)
+    public PagingResponse<MovieDto> getMoviesPageByCursor(
+            Long userId, String cursor, int size, String sortBy, String sortDirection) {
+
+        MovieSortField sortField = MovieSortField.fromSortBy(sortBy);
+        Sort.Direction direction = sortBy == null || sortBy.isEmpty()
+                ? Sort.Direction.ASC
+                : Sort.Direction.fromString(sortDirection);
+
+        PageCursor position = cursor == null || cursor.isEmpty() ? null : PageCursor.decode(cursor);
+        if (position != null && (!position.getSortBy().equals(sortField.getSortBy())
+                || Sort.Direction.fromString(position.getSortDirection()) != direction)) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort order");
+        }
+        boolean backward = position != null && position.isBackward();
+
+        // Backward pages are read in the reverse order from the cursor and flipped afterwards
+        List<Movie> rows = movieRepository.findKeysetPage(
+                userId,
+                sortField,
+                backward ? reverse(direction) : direction,
+                position != null ? sortField.parse(position.getValue()) : null,
+                position != null ? position.getId() : null,
+                size + 1);
+
+        boolean hasMore = rows.size() > size;
+        List<Movie> movies = new ArrayList<>(hasMore ? rows.subList(0, size) : rows);
+        if (backward) {
+            Collections.reverse(movies);
+        }
+
+        PagingResponse<MovieDto> response = new PagingResponse<>();
+        response.setContent(movies.stream().map(movieMapper::toDto).toList());
+        response.setSize(size);
+        if (!movies.isEmpty()) {
+            if (backward || hasMore) {
+                response.setNextCursor(cursorAt(movies.get(movies.size() - 1), sortField, direction, false));
+            }
+            if (backward ? hasMore : position != null) {
+                response.setPrevCursor(cursorAt(movies.get(0), sortField, direction, true));
+            }
+        }
+        response.setLast(response.getNextCursor() == null);
+        return response;
+    }
+
+    /**
+     * Sorts by the requested property (likeCount/hateCount map to the persisted counter
+     * columns, trending to the decayed score) with id as a tiebreaker in the same direction,
+     * so every order is backed by a (column, id) index and paging is stable.
+     */
+    private static Sort resolveSort(String sortBy, String sortDirection) {
+        if (sortBy == null || sortBy.isEmpty()) {
+            return Sort.by(Sort.Direction.ASC, "id");
+        }
+        Sort.Direction direction = Sort.Direction.fromString(sortDirection);
+        if ("id".equals(sortBy)) {
+            return Sort.by(direction, "id");
+        }
+        return Sort.by(direction, MovieSortField.fromSortBy(sortBy).getProperty(), "id");
+    }
+
+    private static Sort.Direction reverse(Sort.Direction direction) {
+        return direction.isAscending() ? Sort.Direction.DESC : Sort.Direction.ASC;
+    }
+
+    private static String cursorAt(Movie movie, MovieSortField sortField, Sort.Direction direction, boolean backward) {
+        return new PageCursor(sortField.getSortBy(), direction.name(), backward, movie.getId(), sortField.format(movie))
+                .encode();
+    }
+
+    private PagingResponse<MovieDto> toPagingResponse(Page<MovieRepository.MovieRow> moviePage) {
+        PagingResponse<MovieDto> response = new PagingResponse<>();
+        response.setContent(moviePage.getContent().stream()
+                .map(movieMapper::toDto)
+                .toList());
+        response.setPage(moviePage.getNumber());
+        response.setSize(moviePage.getSize());
+        response.setTotalElements(moviePage.getTotalElements());
+        response.setTotalPages(moviePage.getTotalPages());
+        response.setLast(moviePage.isLast());
+        return response;
+    }
+
+    private PagingResponse<MovieDto> toSliceResponse(Slice<MovieRepository.MovieRow> slice) {
+        PagingResponse<MovieDto> response = new PagingResponse<>();
+        response.setContent(slice.getContent().stream()
+                .map(movieMapper::toDto)
+                .toList());
+        response.setPage(slice.getNumber());
+        response.setSize(slice.getSize());
+        response.setLast(!slice.hasNext());
+        return response;
+    }
+}
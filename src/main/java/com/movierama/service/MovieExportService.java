@@ -0,0 +1,167 @@
+package com.movierama.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.movierama.exception.TooManyExportsException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Writes the whole catalog, with the author's name and the reaction counters, straight from a
+ * forward-only JDBC cursor to the response. Postgres only streams a result set inside a
+ * transaction and with a fetch size, so the query runs in a read-only transaction and holds at
+ * most {@link #FETCH_SIZE} rows; nothing is mapped to entities.
+ * <p>
+ * An export holds a pooled connection for as long as the client reads, so at most
+ * {@code max-concurrent} run at a time; callers reserve an {@link ExportSlot} before the response
+ * starts and release it when the stream ends.
+ */
+@Service
+public class MovieExportService {
+
+    static final int FETCH_SIZE = 1_000;
+
+    static final String EXPORT_QUERY = """
+            SELECT m.id, m.title, m.description, m.created_at, m.user_id, u.first_name, u.last_name,
+                   m.like_count, m.hate_count
+            FROM movie m
+            JOIN user_profile u ON u.id = m.user_id
+            ORDER BY m.id""";
+
+    // Same field names as MovieDto
+    private static final CsvSchema CSV_SCHEMA = CsvSchema.builder()
+            .addColumn("id")
+            .addColumn("title")
+            .addColumn("description")
+            .addColumn("createdAt")
+            .addColumn("userId")
+            .addColumn("userName")
+            .addColumn("likeCount")
+            .addColumn("hateCount")
+            .setUseHeader(true)
+            .build();
+
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final Semaphore slots;
+
+    @Autowired
+    public MovieExportService(DataSource dataSource,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              @Value("${movierama.export.max-concurrent:2}") int maxConcurrent) {
+        this(exportJdbcTemplate(dataSource), transactionManager, objectMapper, maxConcurrent);
+    }
+
+    MovieExportService(JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       ObjectMapper objectMapper,
+                       int maxConcurrent) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.slots = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Reserves one of the export slots without waiting.
+     *
+     * @throws TooManyExportsException when every slot is taken
+     */
+    public ExportSlot reserveSlot() {
+        if (!slots.tryAcquire()) {
+            throw new TooManyExportsException();
+        }
+        return new ExportSlot();
+    }
+
+    public void export(MovieFileFormat format, OutputStream out) throws IOException {
+        try (JsonGenerator generator = createGenerator(format, out)) {
+            readOnlyTransaction.executeWithoutResult(status ->
+                    jdbcTemplate.query(EXPORT_QUERY, rs -> {
+                        writeRow(generator, rs);
+                    }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * A reserved export slot; closing it releases the slot, once.
+     */
+    public final class ExportSlot implements AutoCloseable {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ExportSlot() {
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                slots.release();
+            }
+        }
+    }
+
+    private JsonGenerator createGenerator(MovieFileFormat format, OutputStream out) throws IOException {
+        JsonGenerator generator;
+        if (format == MovieFileFormat.CSV) {
+            generator = CSV_MAPPER.getFactory().createGenerator(out);
+            generator.setSchema(CSV_SCHEMA);
+        } else {
+            generator = objectMapper.getFactory().createGenerator(out);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+        }
+        // the servlet container owns the response stream
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    private static void writeRow(JsonGenerator generator, ResultSet rs) throws SQLException {
+        try {
+            generator.writeStartObject();
+            generator.writeNumberField("id", rs.getLong("id"));
+            generator.writeStringField("title", rs.getString("title"));
+            generator.writeStringField("description", rs.getString("description"));
+            generator.writeStringField("createdAt",
+                    DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(rs.getTimestamp("created_at").toLocalDateTime()));
+            generator.writeNumberField("userId", rs.getLong("user_id"));
+            // User.getFullName, as in MovieDto.userName
+            generator.writeStringField("userName", rs.getString("first_name") + " " + rs.getString("last_name"));
+            generator.writeNumberField("likeCount", rs.getLong("like_count"));
+            generator.writeNumberField("hateCount", rs.getLong("hate_count"));
+            generator.writeEndObject();
+        } catch (IOException e) {
+            // the client went away; stop reading the cursor
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static JdbcTemplate exportJdbcTemplate(DataSource dataSource) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(FETCH_SIZE);
+        return jdbcTemplate;
+    }
+}
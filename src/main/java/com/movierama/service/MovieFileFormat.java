@@ -0,0 +1,28 @@
+package com.movierama.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+
+/**
+ * Record formats of the bulk import and export endpoints.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum MovieFileFormat {
+
+    // one JSON object per line
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+    // with a header row naming the columns
+    CSV(MediaType.parseMediaType("text/csv"), "csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    /**
+     * The format of a request body; anything that is not CSV is read as NDJSON.
+     */
+    public static MovieFileFormat ofContentType(String contentType) {
+        return MediaType.parseMediaType(contentType).isCompatibleWith(CSV.mediaType) ? CSV : NDJSON;
+    }
+}
@@ -0,0 +1,189 @@
+package com.movierama.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.movierama.cache.MoviePageInvalidator;
+import com.movierama.dto.MovieImportSummary;
+import com.movierama.dto.MovieImportSummary.Outcome;
+import com.movierama.dto.MovieRegistrationDto;
+import com.movierama.entity.User;
+import com.movierama.repository.MovieBatchRepository;
+import com.movierama.repository.MovieBatchRepository.NewMovie;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk movie import from NDJSON or CSV (with a {@code title,description} header). The body is
+ * read record by record and never buffered: records are collected into chunks of
+ * {@link #CHUNK_SIZE}, and each chunk is inserted with one statement that skips the titles already
+ * taken (see {@link MovieBatchRepository#insertSkippingTakenTitles}). No entities are created, so
+ * the persistence context of the request stays empty however long the import is. The
+ * {@code moviePage} cache is invalidated once, after the last chunk or after the committed chunks
+ * of an import whose body could not be read to the end.
+ */
+@Slf4j
+@Service
+public class MovieImportService {
+
+    static final int CHUNK_SIZE = 2_000;
+    static final int MAX_REPORTED_ROWS = 1_000;
+
+    private static final ObjectReader CSV_READER = new CsvMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .readerFor(MovieRegistrationDto.class)
+            .with(CsvSchema.emptySchema().withHeader());
+
+    private final MovieBatchRepository movieBatchRepository;
+    private final MoviePageInvalidator pageInvalidator;
+    private final ObjectReader jsonReader;
+
+    public MovieImportService(MovieBatchRepository movieBatchRepository,
+                              MoviePageInvalidator pageInvalidator,
+                              ObjectMapper objectMapper) {
+        this.movieBatchRepository = movieBatchRepository;
+        this.pageInvalidator = pageInvalidator;
+        this.jsonReader = objectMapper.readerFor(MovieRegistrationDto.class);
+    }
+
+    public MovieImportSummary importMovies(InputStream body, MovieFileFormat format, User user) throws IOException {
+        Import run = new Import(user);
+        MovieImportSummary summary = run.summary;
+        try {
+            Reader reader = new InputStreamReader(body, StandardCharsets.UTF_8);
+            if (format == MovieFileFormat.CSV) {
+                readCsv(reader, run);
+            } else {
+                readNdjson(reader, run);
+            }
+            run.flush();
+        } finally {
+            // chunks commit on their own, so the ones written before a failed read are invalidated too
+            if (summary.getImported() > 0) {
+                pageInvalidator.moviesCreated(user.getId(), summary.getImported());
+            }
+        }
+        log.info("Imported {} of {} movies for user {}", summary.getImported(), summary.getReceived(), user.getId());
+        return summary;
+    }
+
+    private void readNdjson(Reader reader, Import run) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        long row = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            row++;
+            try {
+                run.accept(row, jsonReader.readValue(line));
+            } catch (JsonProcessingException e) {
+                run.malformed(row, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private void readCsv(Reader reader, Import run) throws IOException {
+        long row = 0;
+        try (MappingIterator<MovieRegistrationDto> records = CSV_READER.readValues(reader)) {
+            while (records.hasNextValue()) {
+                row++;
+                run.accept(row, records.nextValue());
+            }
+        } catch (JsonProcessingException e) {
+            // the parser cannot resynchronise within a broken CSV document, so reading stops here
+            run.malformed(row, "Malformed CSV, no further rows were read: " + e.getOriginalMessage());
+        }
+    }
+
+    private record Row(long number, String title, String description) {
+    }
+
+    /**
+     * State of one import; only the current chunk is held in memory.
+     */
+    private class Import {
+
+        private final User user;
+        private final MovieImportSummary summary = new MovieImportSummary();
+        private final List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        Import(User user) {
+            this.user = user;
+        }
+
+        void accept(long row, MovieRegistrationDto movie) {
+            summary.setReceived(summary.getReceived() + 1);
+            String title = movie.getTitle() != null ? movie.getTitle().trim() : "";
+            if (title.isEmpty()) {
+                reject(row, movie.getTitle(), Outcome.INVALID, "Title is required");
+                return;
+            }
+            chunk.add(new Row(row, title, movie.getDescription()));
+            if (chunk.size() >= CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<Row> rows = List.copyOf(chunk);
+            chunk.clear();
+
+            boolean[] inserted;
+            try {
+                // titles taken by stored movies, concurrent imports or earlier rows are skipped
+                // by the statement itself, so a duplicate never fails the chunk
+                inserted = movieBatchRepository.insertSkippingTakenTitles(
+                        rows.stream().map(row -> new NewMovie(row.title(), row.description())).toList(), user.getId());
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Importing {} movies failed", rows.size(), e);
+                rows.forEach(row -> reject(row.number(), row.title(), Outcome.FAILED, "Could not be stored"));
+                return;
+            }
+            for (int i = 0; i < rows.size(); i++) {
+                if (inserted[i]) {
+                    summary.setImported(summary.getImported() + 1);
+                } else {
+                    Row row = rows.get(i);
+                    reject(row.number(), row.title(), Outcome.DUPLICATE, "A movie with the same title already exists");
+                }
+            }
+        }
+
+        void malformed(long row, String message) {
+            summary.setReceived(summary.getReceived() + 1);
+            reject(row, null, Outcome.INVALID, message);
+        }
+
+        void reject(long row, String title, Outcome outcome, String message) {
+            switch (outcome) {
+                case DUPLICATE -> summary.setDuplicates(summary.getDuplicates() + 1);
+                case INVALID -> summary.setInvalid(summary.getInvalid() + 1);
+                case FAILED -> summary.setFailed(summary.getFailed() + 1);
+            }
+            if (summary.getRejectedRows().size() < MAX_REPORTED_ROWS) {
+                summary.getRejectedRows().add(new MovieImportSummary.RowResult(row, title, outcome, message));
+            } else {
+                summary.setTruncated(true);
+            }
+        }
+    }
+}
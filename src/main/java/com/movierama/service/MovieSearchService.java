@@ -0,0 +1,85 @@
+package com.movierama.service;
+
+import com.movierama.dto.MovieDto;
+import com.movierama.paging.PageCursor;
+import com.movierama.paging.PagingResponse;
+import com.movierama.repository.MovieSearchRepository;
+import com.movierama.repository.MovieSearchSort;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Keyset-paged full-text search over titles and descriptions. Pages are shared between viewers
+ * and cached briefly under the normalized query (see the movieSearch cache in CacheConfig):
+ * popular queries repeat within seconds, and a short TTL bounds staleness without having to
+ * invalidate search pages on every write.
+ */
+@Service
+@RequiredArgsConstructor
+public class MovieSearchService {
+
+    static final int MAX_QUERY_LENGTH = 200;
+    static final int MAX_PAGE_SIZE = 100;
+
+    private static final String DIRECTION = "DESC";
+
+    private final MovieSearchRepository searchRepository;
+
+    /**
+     * Collapses whitespace and case, so equivalent queries share a cache entry.
+     */
+    public static String normalize(String query) {
+        String normalized = query == null ? "" : query.trim().replaceAll("\\s+", " ").toLowerCase();
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("Search query must not be empty");
+        }
+        if (normalized.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Search query must be at most " + MAX_QUERY_LENGTH + " characters");
+        }
+        return normalized;
+    }
+
+    /**
+     * One page of matches for an already {@link #normalize normalized} query, after
+     * {@code cursor} (the nextCursor of the previous page, empty for the first one).
+     */
+    @Cacheable(value = "movieSearch", key = "#sortBy + '|' + #size + '|' + #cursor + '|' + #query")
+    public PagingResponse<MovieDto> search(String query, String sortBy, String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        MovieSearchSort sort = MovieSearchSort.fromSortBy(sortBy);
+
+        PageCursor position = cursor == null || cursor.isEmpty() ? null : PageCursor.decode(cursor);
+        if (position != null && (!position.getSortBy().equals(sort.getProperty()) || position.isBackward())) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort order");
+        }
+
+        List<MovieSearchRepository.Hit> hits = searchRepository.search(query, sort,
+                position != null ? position.getValue() : null,
+                position != null ? position.getId() : null,
+                size + 1);
+
+        boolean hasMore = hits.size() > size;
+        List<MovieSearchRepository.Hit> page = hasMore ? hits.subList(0, size) : hits;
+
+        PagingResponse<MovieDto> response = new PagingResponse<>();
+        response.setContent(page.stream().map(MovieSearchRepository.Hit::movie).toList());
+        response.setSize(size);
+        if (hasMore) {
+            response.setNextCursor(cursorAt(page.get(page.size() - 1), sort));
+        }
+        response.setLast(!hasMore);
+        return response;
+    }
+
+    private static String cursorAt(MovieSearchRepository.Hit hit, MovieSearchSort sort) {
+        String value = sort == MovieSearchSort.RELEVANCE
+                ? Float.toString(hit.rank())
+                : Long.toString(hit.movie().getLikeCount());
+        return new PageCursor(sort.getProperty(), DIRECTION, false, hit.movie().getId(), value).encode();
+    }
+}
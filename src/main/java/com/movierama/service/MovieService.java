@@ -1,26 +1,23 @@
 package com.movierama.service;
 
+import com.movierama.cache.MoviePageInvalidator;
 import com.movierama.dto.MovieDto;
 import com.movierama.dto.MovieRegistrationDto;
 import com.movierama.mapper.MovieMapper;
+import com.movierama.metrics.ServiceMetrics;
 import com.movierama.paging.PagingResponse;
 import com.movierama.entity.Movie;
 import com.movierama.entity.MovieReaction;
 import com.movierama.entity.User;
 import com.movierama.repository.MovieReactionRepository;
 import com.movierama.repository.MovieRepository;
-import com.movierama.specification.MovieSpecification;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -29,104 +26,143 @@ public class MovieService {
     private final MovieRepository movieRepository;
     private final MovieReactionRepository reactionRepository;
     private final MovieMapper movieMapper;
-
+    private final MovieCatalogService catalogService;
+    private final MoviePageInvalidator pageInvalidator;
+    private final ReactionWriteBehind reactionWriteBehind;
+    private final MovieSearchService searchService;
+    private final TitleAutocomplete titleAutocomplete;
+    private final ServiceMetrics serviceMetrics;
+
+    // The transactional operations are timed inside their transaction, without the commit.
     @Transactional
-    @CacheEvict(value = {"movies", "moviePage"}, allEntries = true)
     public Movie createMovie(MovieRegistrationDto movieDto, User user) {
-        Movie movie = movieMapper.toEntity(movieDto);
-        movie.setUser(user);
-        return movieRepository.save(movie);
+        return serviceMetrics.time("movies.create", null, user, () -> {
+            Movie movie = movieMapper.toEntity(movieDto);
+            movie.setUser(user);
+            Movie saved = movieRepository.save(movie);
+            pageInvalidator.movieCreated(user.getId());
+            titleAutocomplete.movieCreated(saved);
+            return saved;
+        });
     }
 
-    @Transactional(readOnly = true)
-    @Cacheable(value = "moviePage", key = "#page + '_' + #size + '_' + #sortBy + '_' + #sortDirection + '_' + (#user != null ? #user.id : 'null')")
     public PagingResponse<MovieDto> getMoviesPageSorted(
             int page, int size, String sortBy, String sortDirection, User user) {
-
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Movie> moviePage;
-
-        if (sortBy.isEmpty()){
-            pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.ASC, "id"));
-            moviePage = movieRepository.findAll(pageable);
-        } else if ("likeCount".equalsIgnoreCase(sortBy) || "hateCount".equalsIgnoreCase(sortBy)) {
-            moviePage = movieRepository.findAll(
-                    MovieSpecification.orderByReaction(sortBy, sortDirection), pageable);
-        } else {
-            pageable = PageRequest.of(page, size,
-                    Sort.by(Sort.Direction.fromString(sortDirection), sortBy));
-            moviePage = movieRepository.findAll(pageable);
-        }
-
-        return getMovieDtoPagingResponse(user, moviePage);
+        return serviceMetrics.time("movies.list", sortBy, user, () ->
+                withViewerReactions(catalogService.getMoviesPage(page, size, sortBy, sortDirection), user));
     }
 
-    @Transactional(readOnly = true)
-    @Cacheable(value = "moviePage", key = "'user_' + #userId + '_' + #page + '_' + #size + '_' + #sortBy + '_' + #sortDirection + '_' + (#user != null ? #user.id : 'null')")
     public PagingResponse<MovieDto> getMoviesByUserPaged(
             Long userId, int page, int size, String sortBy, String sortDirection, User user
     ) {
-        Pageable pageable;
-        if (sortBy.isEmpty()){
-            pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.ASC, "id"));
-        } else {
-            pageable = PageRequest.of(page, size,
-                    Sort.by(Sort.Direction.fromString(sortDirection), sortBy));
-        }
-        Page<Movie> moviePage = movieRepository.findByUserId(userId, pageable);
+        return serviceMetrics.time("movies.listByUser", sortBy, user, () ->
+                withViewerReactions(catalogService.getMoviesByUserPage(userId, page, size, sortBy, sortDirection), user));
+    }
+
+    public PagingResponse<MovieDto> getMoviesSlice(
+            int page, int size, String sortBy, String sortDirection, User user) {
+        return serviceMetrics.time("movies.slice", sortBy, user, () ->
+                withViewerReactions(catalogService.getMoviesSlice(page, size, sortBy, sortDirection), user));
+    }
+
+    public PagingResponse<MovieDto> getMoviesByUserSlice(
+            Long userId, int page, int size, String sortBy, String sortDirection, User user) {
+        return serviceMetrics.time("movies.sliceByUser", sortBy, user, () ->
+                withViewerReactions(catalogService.getMoviesByUserSlice(userId, page, size, sortBy, sortDirection), user));
+    }
+
+    public PagingResponse<MovieDto> getMoviesPageByCursor(
+            Long userId, String cursor, int size, String sortBy, String sortDirection, User user) {
+        return serviceMetrics.time(userId == null ? "movies.cursor" : "movies.cursorByUser", sortBy, user, () ->
+                withViewerReactions(catalogService.getMoviesPageByCursor(userId, cursor, size, sortBy, sortDirection), user));
+    }
 
-        return getMovieDtoPagingResponse(user, moviePage);
+    public PagingResponse<MovieDto> searchMovies(String query, String sortBy, String cursor, int size, User user) {
+        return serviceMetrics.time("movies.search", sortBy, user, () ->
+                withViewerReactions(searchService.search(MovieSearchService.normalize(query), sortBy,
+                        cursor != null ? cursor : "", size), user));
     }
 
     @Transactional
-    @CacheEvict(value = {"movies", "moviePage"}, allEntries = true)
     public void reactToMovie(Long movieId, User userProfile, MovieReaction.ReactionType reactionType) {
-        Movie movie = movieRepository.findById(movieId)
-                .orElseThrow(() -> new RuntimeException("Movie not found"));
-
-        if (movie.getUser().getId().equals(userProfile.getId())) {
-            throw new RuntimeException("You cannot react to your own movie");
-        }
+        serviceMetrics.time("movies.react", userProfile, () -> react(movieId, userProfile, reactionType));
+    }
 
-        MovieReaction existingReaction = reactionRepository.findByUserIdAndMovieId(userProfile.getId(), movieId)
-                .orElse(null);
+    private void react(Long movieId, User userProfile, MovieReaction.ReactionType reactionType) {
+        MovieReactionRepository.ReactionOutcome outcome =
+                reactionRepository.react(userProfile.getId(), movieId, reactionType.name());
 
-        if (existingReaction != null) {
-            if (existingReaction.getReactionType() == reactionType) {
-                reactionRepository.delete(existingReaction);
-            } else {
-                existingReaction.setReactionType(reactionType);
-                reactionRepository.save(existingReaction);
+        switch (outcome.getStatus()) {
+            case "MOVIE_NOT_FOUND" -> throw new RuntimeException("Movie not found");
+            case "OWN_MOVIE" -> throw new RuntimeException("You cannot react to your own movie");
+            default -> {
             }
-        } else {
-            MovieReaction reaction = new MovieReaction();
-            reaction.setMovie(movie);
-            reaction.setUser(userProfile);
-            reaction.setReactionType(reactionType);
-            reactionRepository.save(reaction);
         }
+
+        MovieReaction.ReactionType previousType = reactionType(outcome.getPreviousType());
+        MovieReaction.ReactionType currentType = reactionType(outcome.getCurrentType());
+        long likeDelta = countDelta(MovieReaction.ReactionType.LIKE, previousType, currentType);
+        long hateDelta = countDelta(MovieReaction.ReactionType.HATE, previousType, currentType);
+        pageInvalidator.reactionChanged(movieId, likeDelta, hateDelta);
     }
 
+    private static MovieReaction.ReactionType reactionType(String value) {
+        return value != null ? MovieReaction.ReactionType.valueOf(value) : null;
+    }
 
-    private PagingResponse<MovieDto> getMovieDtoPagingResponse(User user, Page<Movie> moviePage) {
-        List<MovieDto> dtos;
-        if (user != null) {
-            dtos = moviePage.getContent().stream()
-                    .map(movie -> movieMapper.toDto(movie, user.getId()))
-                    .toList();
+    static long countDelta(MovieReaction.ReactionType type,
+                                   MovieReaction.ReactionType previousType,
+                                   MovieReaction.ReactionType currentType) {
+        return (currentType == type ? 1 : 0) - (previousType == type ? 1 : 0);
+    }
 
-        }  else {
-            dtos = moviePage.getContent().stream()
-                    .map(movieMapper::toDto)
-                    .toList();
+    /**
+     * Applies the viewer's own reactions to a shared (possibly cached) page. The page itself is
+     * never modified; a copy is returned when the viewer has reacted to anything on it. Reactions
+     * still waiting in the write-behind buffer are applied on top, counts included, so users see
+     * their own clicks before the flush.
+     */
+    private PagingResponse<MovieDto> withViewerReactions(PagingResponse<MovieDto> page, User user) {
+        if (user == null || page.getContent().isEmpty()) {
+            return page;
+        }
+        List<Long> movieIds = page.getContent().stream().map(MovieDto::getId).toList();
+        Map<Long, MovieReaction.ReactionType> viewerReactions = reactionRepository.findUserReactions(user.getId(), movieIds)
+                .stream()
+                .collect(Collectors.toMap(
+                        MovieReactionRepository.UserReaction::getMovieId,
+                        MovieReactionRepository.UserReaction::getReactionType));
+        Map<Long, ReactionTransition> pending = reactionWriteBehind.pendingFor(user.getId(), movieIds);
+        if (viewerReactions.isEmpty() && pending.isEmpty()) {
+            return page;
         }
+
         PagingResponse<MovieDto> response = new PagingResponse<>();
-        response.setContent(dtos);
-        response.setPage(moviePage.getNumber());
-        response.setSize(moviePage.getSize());
-        response.setTotalElements(moviePage.getTotalElements());
-        response.setTotalPages(moviePage.getTotalPages());
-        response.setLast(moviePage.isLast());
+        response.setContent(page.getContent().stream()
+                .map(dto -> withPendingReaction(movieMapper.toDto(dto, viewerReactions),
+                        viewerReactions.get(dto.getId()), pending.get(dto.getId())))
+                .toList());
+        response.setPage(page.getPage());
+        response.setSize(page.getSize());
+        response.setTotalElements(page.getTotalElements());
+        response.setTotalPages(page.getTotalPages());
+        response.setLast(page.isLast());
+        response.setNextCursor(page.getNextCursor());
+        response.setPrevCursor(page.getPrevCursor());
         return response;
     }
+
+    private static MovieDto withPendingReaction(MovieDto copy,
+                                                MovieReaction.ReactionType stored,
+                                                ReactionTransition pending) {
+        if (pending == null) {
+            return copy;
+        }
+        MovieReaction.ReactionType current = pending.apply(stored);
+        copy.setUserLiked(current == MovieReaction.ReactionType.LIKE);
+        copy.setUserHated(current == MovieReaction.ReactionType.HATE);
+        copy.setLikeCount(copy.getLikeCount() + countDelta(MovieReaction.ReactionType.LIKE, stored, current));
+        copy.setHateCount(copy.getHateCount() + countDelta(MovieReaction.ReactionType.HATE, stored, current));
+        return copy;
+    }
 }
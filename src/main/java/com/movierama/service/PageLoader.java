@@ -0,0 +1,100 @@
+package com.movierama.service;
+
+import com.movierama.metrics.QueryTally;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Loads the content and the total count of an offset-paged listing. In virtual-thread mode
+ * ({@code spring.threads.virtual.enabled}) the two queries run at the same time, each on its own
+ * virtual thread and pooled connection, and neither outlives the call: a failure of one cancels
+ * the other. Otherwise they run one after the other on the caller's thread, and the count is
+ * skipped when the content alone determines it, as Spring Data does for {@code Page} queries.
+ */
+@Component
+public class PageLoader {
+
+    // null in platform-thread mode
+    private final ExecutorService executor;
+
+    public PageLoader(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.executor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("page-loader-", 0).factory())
+                : null;
+    }
+
+    public <T> Page<T> load(Pageable pageable, Supplier<List<T>> content, LongSupplier count) {
+        if (executor == null) {
+            return PageableExecutionUtils.getPage(content.get(), pageable, count);
+        }
+
+        // the queries are still the request's, for its statement metrics
+        QueryTally tally = QueryTally.current();
+        CompletionService<Object> completion = new ExecutorCompletionService<>(executor);
+        Future<Object> contentTask = completion.submit(() -> QueryTally.callWith(tally, content::get));
+        Future<Object> countTask = completion.submit(() -> QueryTally.callWith(tally, count::getAsLong));
+        try {
+            awaitBoth(completion);
+            @SuppressWarnings("unchecked")
+            List<T> rows = (List<T>) join(contentTask);
+            return new PageImpl<>(rows, pageable, (Long) join(countTask));
+        } finally {
+            // no-ops once both are done; otherwise the load failed and the sibling is not needed
+            contentTask.cancel(true);
+            countTask.cancel(true);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for both tasks in the order they finish, so a failure of either one ends the load
+     * without waiting for the other.
+     */
+    private static void awaitBoth(CompletionService<Object> completion) {
+        try {
+            join(completion.take());
+            join(completion.take());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading a page", e);
+        }
+    }
+
+    private static <V> V join(Future<V> task) {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading a page", e);
+        }
+    }
+}
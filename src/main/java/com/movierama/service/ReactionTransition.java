@@ -0,0 +1,64 @@
+package com.movierama.service;
+
+import com.movierama.entity.MovieReaction.ReactionType;
+
+import java.util.Arrays;
+
+/**
+ * What a run of reaction requests does to one (user, movie) pair, as a function of the reaction
+ * the pair had before them. A request toggles: asking for the current reaction removes it,
+ * asking for another one replaces it. Any number of requests collapse into one of these, so the
+ * write-behind buffer keeps a single entry per pair however often the user clicks.
+ */
+public final class ReactionTransition {
+
+    private static final ReactionType[] STATES = {null, ReactionType.LIKE, ReactionType.HATE};
+
+    public static final ReactionTransition IDENTITY = new ReactionTransition(STATES.clone());
+
+    // outcome[i] is the reaction after the transition when it was STATES[i] before
+    private final ReactionType[] outcome;
+
+    private ReactionTransition(ReactionType[] outcome) {
+        this.outcome = outcome;
+    }
+
+    /**
+     * A transition that ends in {@code state} whatever came before.
+     */
+    public static ReactionTransition constant(ReactionType state) {
+        ReactionType[] outcome = new ReactionType[STATES.length];
+        Arrays.fill(outcome, state);
+        return new ReactionTransition(outcome);
+    }
+
+    public ReactionType apply(ReactionType before) {
+        return outcome[index(before)];
+    }
+
+    /**
+     * This transition followed by one more request for {@code requested}.
+     */
+    public ReactionTransition then(ReactionType requested) {
+        ReactionType[] next = new ReactionType[STATES.length];
+        for (int i = 0; i < STATES.length; i++) {
+            next[i] = outcome[i] == requested ? null : requested;
+        }
+        return new ReactionTransition(next);
+    }
+
+    /**
+     * This transition followed by {@code next}.
+     */
+    public ReactionTransition andThen(ReactionTransition next) {
+        ReactionType[] composed = new ReactionType[STATES.length];
+        for (int i = 0; i < STATES.length; i++) {
+            composed[i] = next.apply(outcome[i]);
+        }
+        return new ReactionTransition(composed);
+    }
+
+    private static int index(ReactionType state) {
+        return state == null ? 0 : state.ordinal() + 1;
+    }
+}
@@ -0,0 +1,272 @@
+package com.movierama.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.movierama.cache.MoviePageInvalidator;
+import com.movierama.entity.MovieReaction.ReactionType;
+import com.movierama.entity.User;
+import com.movierama.exception.ReactionBacklogFullException;
+import com.movierama.repository.MovieRepository;
+import com.movierama.repository.ReactionBatchRepository;
+import com.movierama.repository.ReactionBatchRepository.Change;
+import com.movierama.repository.ReactionBatchRepository.MovieDelta;
+import com.movierama.repository.ReactionBatchRepository.Pair;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Optional asynchronous reaction ingestion ({@code movierama.reactions.write-behind.enabled}).
+ * Accepted reactions wait in memory, one {@link ReactionTransition} per (user, movie), so any
+ * number of toggles by the same user on the same movie becomes a single write. A background
+ * flush writes them in JDBC batches every {@code flush-interval}, one transaction per
+ * {@code batch-size} pairs. Submitters block while {@code capacity} pairs are waiting and are
+ * rejected after {@code enqueue-timeout}.
+ * <p>
+ * Pairs move from {@code pending} to {@code inFlight} when a flush picks them up and leave
+ * {@code inFlight} once written, so {@link #pendingFor} always sees every accepted reaction that
+ * the database does not show yet. A failed flush puts its pairs back in front of anything
+ * submitted meanwhile.
+ */
+@Slf4j
+@Component
+public class ReactionWriteBehind {
+
+    private final ReactionWriteBehindProperties properties;
+    private final ReactionBatchRepository batchRepository;
+    private final MovieRepository movieRepository;
+    private final MoviePageInvalidator pageInvalidator;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Pair, ReactionTransition> pending = new ConcurrentHashMap<>();
+    private final Map<Pair, ReactionTransition> inFlight = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+
+    // A movie's owner never changes, so submissions are validated without a query per click
+    private final Cache<Long, Long> movieOwners = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .build();
+
+    private ScheduledExecutorService flusher;
+
+    public ReactionWriteBehind(ReactionWriteBehindProperties properties,
+                               ReactionBatchRepository batchRepository,
+                               MovieRepository movieRepository,
+                               MoviePageInvalidator pageInvalidator,
+                               PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.batchRepository = batchRepository;
+        this.movieRepository = movieRepository;
+        this.pageInvalidator = pageInvalidator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long interval = properties.getFlushInterval().toMillis();
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reaction-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        // write whatever was accepted since the last flush
+        flush();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Accepts a reaction request with the same checks and toggle semantics as
+     * {@link MovieService#reactToMovie}; the write happens on the next flush.
+     */
+    public void submit(Long movieId, User user, ReactionType reactionType) {
+        Long ownerId = movieOwners.get(movieId, id -> movieRepository.findOwnerIdById(id).orElse(null));
+        if (ownerId == null) {
+            throw new RuntimeException("Movie not found");
+        }
+        if (ownerId.equals(user.getId())) {
+            throw new RuntimeException("You cannot react to your own movie");
+        }
+
+        Pair key = new Pair(user.getId(), movieId);
+        lock.lock();
+        try {
+            long remainingNanos = properties.getEnqueueTimeout().toNanos();
+            while (!pending.containsKey(key) && pending.size() >= properties.getCapacity()) {
+                if (remainingNanos <= 0) {
+                    throw new ReactionBacklogFullException();
+                }
+                remainingNanos = notFull.awaitNanos(remainingNanos);
+            }
+            pending.merge(key, ReactionTransition.IDENTITY.then(reactionType),
+                    (current, ignored) -> current.then(reactionType));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ReactionBacklogFullException();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The user's accepted reactions on the given movies that the database may not show yet, by
+     * movie id. Applying a transition to the reaction read from the database gives the reaction
+     * the user should see.
+     */
+    public Map<Long, ReactionTransition> pendingFor(Long userId, Collection<Long> movieIds) {
+        if (pending.isEmpty() && inFlight.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, ReactionTransition> transitions = new HashMap<>();
+        // Under the lock so a flush cannot move a pair between the two lookups
+        lock.lock();
+        try {
+            for (Long movieId : movieIds) {
+                Pair key = new Pair(userId, movieId);
+                ReactionTransition flushing = inFlight.get(key);
+                ReactionTransition waiting = pending.get(key);
+                if (flushing != null && waiting != null) {
+                    transitions.put(movieId, flushing.andThen(waiting));
+                } else if (flushing != null || waiting != null) {
+                    transitions.put(movieId, flushing != null ? flushing : waiting);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return transitions;
+    }
+
+    void flush() {
+        Map<Pair, ReactionTransition> batch = drain();
+        List<Pair> keys = new ArrayList<>(batch.keySet());
+        for (int from = 0; from < keys.size(); from += properties.getBatchSize()) {
+            List<Pair> chunk = keys.subList(from, Math.min(from + properties.getBatchSize(), keys.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(chunk, batch));
+            } catch (RuntimeException e) {
+                log.error("Flushing {} reactions failed, retrying on the next flush", chunk.size(), e);
+                requeue(chunk, batch);
+            } finally {
+                chunk.forEach(inFlight::remove);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // an exception would cancel the scheduled flushes
+            log.error("Reaction flush failed", e);
+        }
+    }
+
+    private Map<Pair, ReactionTransition> drain() {
+        lock.lock();
+        try {
+            Map<Pair, ReactionTransition> batch = new HashMap<>(pending);
+            inFlight.putAll(batch);
+            pending.keySet().removeAll(batch.keySet());
+            notFull.signalAll();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void requeue(List<Pair> keys, Map<Pair, ReactionTransition> batch) {
+        lock.lock();
+        try {
+            for (Pair key : keys) {
+                pending.merge(key, batch.get(key), (submittedSince, failed) -> failed.andThen(submittedSince));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(List<Pair> keys, Map<Pair, ReactionTransition> batch) {
+        // The movies are locked before the stored reactions are read, so a flush on another node
+        // or a synchronous reaction cannot change them between the read and the commit
+        batchRepository.lockMovies(keys.stream().map(Pair::movieId).collect(Collectors.toCollection(TreeSet::new)));
+        Map<Pair, ReactionType> current = batchRepository.findReactions(keys);
+
+        List<Change> inserts = new ArrayList<>();
+        List<Change> updates = new ArrayList<>();
+        List<Pair> deletes = new ArrayList<>();
+        Map<Long, MovieDelta> deltas = new TreeMap<>();
+
+        for (Pair key : keys) {
+            ReactionType before = current.get(key);
+            ReactionType after = batch.get(key).apply(before);
+            // From here on readers must see the outcome whether or not the commit has happened
+            inFlight.put(key, ReactionTransition.constant(after));
+            if (before == after) {
+                continue;
+            }
+
+            if (before == null) {
+                inserts.add(new Change(key.userId(), key.movieId(), after));
+            } else if (after == null) {
+                deletes.add(key);
+            } else {
+                updates.add(new Change(key.userId(), key.movieId(), after));
+            }
+            deltas.merge(key.movieId(), new MovieDelta(
+                    MovieService.countDelta(ReactionType.LIKE, before, after),
+                    MovieService.countDelta(ReactionType.HATE, before, after),
+                    trendingSign(after),
+                    before != null ? List.of(key.userId()) : List.of()), MovieDelta::plus);
+        }
+
+        // before the row changes: the trending weights taken back are read from the stored rows
+        batchRepository.adjustReactionCounts(deltas);
+        batchRepository.insert(inserts);
+        batchRepository.update(updates);
+        batchRepository.delete(deletes);
+        deltas.forEach((movieId, delta) ->
+                pageInvalidator.reactionChanged(movieId, delta.likeDelta(), delta.hateDelta()));
+    }
+
+    private static long trendingSign(ReactionType reactionType) {
+        if (reactionType == null) {
+            return 0;
+        }
+        return reactionType == ReactionType.LIKE ? 1 : -1;
+    }
+}
@@ -0,0 +1,27 @@
+package com.movierama.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "movierama.reactions.write-behind")
+public class ReactionWriteBehindProperties {
+
+    // Off by default: reactions are written synchronously by MovieService.reactToMovie
+    private boolean enabled = false;
+
+    // Distinct (user, movie) pairs that may wait for a flush; submitters block beyond this
+    private int capacity = 100_000;
+
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    // Pairs written per transaction and JDBC batch
+    private int batchSize = 500;
+
+    // How long a submitter waits for room before the request is rejected
+    private Duration enqueueTimeout = Duration.ofSeconds(1);
+}
@@ -0,0 +1,182 @@
+package com.movierama.service;
+
+import com.movierama.dto.MovieSuggestionDto;
+import com.movierama.entity.Movie;
+import com.movierama.repository.MovieRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Search-as-you-type title suggestions served from memory. A {@link TitleIndex} snapshot of every
+ * title is built in the background at startup and rebuilt every {@code rebuild-interval}, which
+ * also refreshes the like counts the suggestions are ranked by. Movies created through
+ * {@link MovieService#createMovie} on this node are added as soon as they commit and live in a
+ * small side list until the next rebuild covers them; other nodes' and bulk-imported movies
+ * appear with the next rebuild.
+ * <p>
+ * Prefix matches come first, most liked first; when there are fewer than requested the rest is
+ * filled with typo matches, closest first.
+ */
+@Slf4j
+@Component
+public class TitleAutocomplete {
+
+    public static final int MAX_SUGGESTIONS = 20;
+
+    private final MovieRepository movieRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration rebuildInterval;
+
+    private volatile TitleIndex index = TitleIndex.EMPTY;
+    private final List<TitleIndex.Entry> recent = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService rebuilder;
+
+    public TitleAutocomplete(MovieRepository movieRepository,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${movierama.autocomplete.rebuild-interval:10m}") Duration rebuildInterval) {
+        this.movieRepository = movieRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.rebuildInterval = rebuildInterval;
+
+        Gauge.builder("movies.autocomplete.memory", this, autocomplete -> autocomplete.index.memoryBytes())
+                .description("Approximate heap held by the title autocomplete index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("movies.autocomplete.titles", this, autocomplete -> autocomplete.index.size() + autocomplete.recent.size())
+                .description("Titles the autocomplete index can suggest")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "title-autocomplete");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebuilder.scheduleWithFixedDelay(this::rebuildQuietly, 0, rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+        }
+    }
+
+    /**
+     * Up to {@code limit} (at most {@link #MAX_SUGGESTIONS}) titles for what the user typed so far.
+     */
+    public List<MovieSuggestionDto> suggest(String query, int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        String key = query == null ? "" : TitleIndex.normalize(query);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+
+        TitleIndex current = index;
+        List<TitleIndex.Entry> recentEntries = List.copyOf(recent);
+
+        List<TitleIndex.Entry> matches = new ArrayList<>(current.prefixMatches(key, limit));
+        recentEntries.stream().filter(entry -> entry.key().startsWith(key)).forEach(matches::add);
+        matches = new ArrayList<>(mostLiked(matches, limit));
+
+        if (matches.size() < limit) {
+            Set<Long> seen = new HashSet<>();
+            matches.forEach(entry -> seen.add(entry.id()));
+            long[] queryTrigrams = TitleIndex.trigrams(" " + key);
+            List<TitleIndex.Entry> typos = new ArrayList<>(current.typoMatches(key, limit, seen::contains));
+            recentEntries.stream()
+                    .filter(entry -> !seen.contains(entry.id())
+                            && TitleIndex.similarity(key, queryTrigrams, entry.key()) >= TitleIndex.MIN_SIMILARITY)
+                    .forEach(typos::add);
+            typos.stream()
+                    .sorted(TitleIndex.closestFirst(key, queryTrigrams))
+                    .filter(entry -> seen.add(entry.id()))
+                    .limit(limit - matches.size())
+                    .forEach(matches::add);
+        }
+
+        return matches.stream()
+                .map(entry -> new MovieSuggestionDto(entry.id(), entry.title(), entry.likeCount()))
+                .toList();
+    }
+
+    /**
+     * Makes a new movie suggestible once its transaction commits.
+     */
+    public void movieCreated(Movie movie) {
+        TitleIndex.Entry entry = new TitleIndex.Entry(movie.getId(), movie.getTitle(), movie.getLikeCount());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recent.add(entry);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recent.add(entry);
+            }
+        });
+    }
+
+    /**
+     * Replaces the snapshot with one read from the database. Side-list entries added before the
+     * read started are committed, so the new snapshot has them and they are dropped.
+     */
+    void rebuild() {
+        List<TitleIndex.Entry> covered = List.copyOf(recent);
+        List<TitleIndex.Entry> entries = transactionTemplate.execute(status -> {
+            try (Stream<MovieRepository.TitleRow> rows = movieRepository.streamTitles()) {
+                return rows.map(row -> new TitleIndex.Entry(row.getId(), row.getTitle(), row.getLikeCount())).toList();
+            }
+        });
+        index = new TitleIndex(entries);
+        recent.removeAll(covered);
+        log.info("Title autocomplete index rebuilt: {} titles, ~{} KiB", index.size(), index.memoryBytes() / 1024);
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // keep serving the previous snapshot; the next run retries
+            log.warn("Title autocomplete rebuild failed", e);
+        }
+    }
+
+    private static List<TitleIndex.Entry> mostLiked(List<TitleIndex.Entry> entries, int limit) {
+        Set<Long> ids = new HashSet<>();
+        return entries.stream()
+                .sorted(Comparator.comparingLong(TitleIndex.Entry::likeCount).reversed()
+                        .thenComparing(TitleIndex.Entry::key))
+                .filter(entry -> ids.add(entry.id()))
+                .limit(limit)
+                .toList();
+    }
+}
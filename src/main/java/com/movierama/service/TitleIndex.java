@@ -0,0 +1,317 @@
+package com.movierama.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.LongPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable in-memory title index behind {@link TitleAutocomplete}, built from flat arrays rather
+ * than node objects so a million titles stay compact.
+ * <ul>
+ *   <li>Prefix lookups binary-search the sorted normalized titles for the matching range and take
+ *   the most liked entries of that range from a segment tree of like counts, so a one-letter
+ *   prefix costs the same as a full title.</li>
+ *   <li>Typo lookups use trigram posting lists. A title that shares enough trigrams with the query
+ *   must appear in one of the query's rarest lists, so only those are scanned for candidates,
+ *   which are then scored against the start of the title with the query's length. Rare lists
+ *   keep this well under a millisecond; the candidate cap bounds queries made of common
+ *   trigrams only.</li>
+ * </ul>
+ */
+final class TitleIndex {
+
+    record Entry(long id, String key, String title, long likeCount) {
+
+        Entry(long id, String title, long likeCount) {
+            this(id, normalize(title), title, likeCount);
+        }
+    }
+
+    private record Scored(int index, double similarity) {
+    }
+
+    static final TitleIndex EMPTY = new TitleIndex(List.of());
+
+    // Jaccard similarity of the trigram sets a typo match needs
+    static final double MIN_SIMILARITY = 0.4;
+
+    // Upper bound on the titles scored per typo lookup
+    private static final int MAX_CANDIDATES = 2_000;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private final String[] keys;
+    private final String[] titles;
+    private final long[] ids;
+    private final long[] likeCounts;
+    // Bottom-up segment tree over likeCounts holding the index of the most liked entry per node
+    private final int[] mostLiked;
+    private final Map<Long, int[]> postings;
+    private final long memoryBytes;
+
+    TitleIndex(List<Entry> entries) {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparing(Entry::key).thenComparingLong(Entry::id));
+        int n = sorted.size();
+
+        keys = new String[n];
+        titles = new String[n];
+        ids = new long[n];
+        likeCounts = new long[n];
+        long bytes = 0;
+        for (int i = 0; i < n; i++) {
+            Entry entry = sorted.get(i);
+            keys[i] = entry.key();
+            // share the string when normalizing changed nothing
+            titles[i] = entry.title().equals(entry.key()) ? entry.key() : entry.title();
+            ids[i] = entry.id();
+            likeCounts[i] = entry.likeCount();
+            bytes += stringBytes(keys[i]) + (titles[i] == keys[i] ? 0 : stringBytes(titles[i]));
+        }
+
+        mostLiked = new int[2 * n];
+        for (int i = 0; i < n; i++) {
+            mostLiked[n + i] = i;
+        }
+        for (int node = n - 1; node > 0; node--) {
+            mostLiked[node] = moreLiked(mostLiked[2 * node], mostLiked[2 * node + 1]);
+        }
+
+        postings = buildPostings();
+        for (int[] list : postings.values()) {
+            // array header and contents plus the boxed key and the map entry
+            bytes += 16 + 4L * list.length + 64;
+        }
+        // four reference/primitive arrays sized n and the tree
+        memoryBytes = bytes + 4L * 16 + n * (4L + 4 + 8 + 8) + 8L * n;
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * Approximate heap held by this index, for the footprint gauge.
+     */
+    long memoryBytes() {
+        return memoryBytes;
+    }
+
+    /**
+     * Case, accent and whitespace insensitive form used for both titles and queries.
+     */
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return SPACES.matcher(MARKS.matcher(decomposed).replaceAll("")).replaceAll(" ")
+                .trim()
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Up to {@code limit} titles starting with the normalized {@code prefix}, most liked first.
+     */
+    List<Entry> prefixMatches(String prefix, int limit) {
+        int from = lowerBound(prefix);
+        int to = lowerBound(prefix + Character.MAX_VALUE);
+        List<Entry> matches = new ArrayList<>(Math.min(limit, to - from));
+        if (from >= to) {
+            return matches;
+        }
+
+        // Each range holds its most liked entry; taking one splits the range around it
+        PriorityQueue<int[]> ranges = new PriorityQueue<>(
+                Comparator.comparingLong((int[] range) -> likeCounts[range[2]]).reversed()
+                        .thenComparingInt(range -> range[2]));
+        ranges.add(new int[]{from, to, mostLikedIn(from, to)});
+        while (!ranges.isEmpty() && matches.size() < limit) {
+            int[] range = ranges.poll();
+            int best = range[2];
+            matches.add(entry(best));
+            if (range[0] < best) {
+                ranges.add(new int[]{range[0], best, mostLikedIn(range[0], best)});
+            }
+            if (best + 1 < range[1]) {
+                ranges.add(new int[]{best + 1, range[1], mostLikedIn(best + 1, range[1])});
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Up to {@code limit} titles whose start is within {@link #MIN_SIMILARITY} of the normalized
+     * {@code query}, {@link #closestFirst closest first}, skipping ids {@code exclude} accepts.
+     */
+    List<Entry> typoMatches(String query, int limit, LongPredicate exclude) {
+        long[] queryTrigrams = trigrams(" " + query);
+        if (queryTrigrams.length == 0) {
+            return List.of();
+        }
+        int minShared = (int) Math.ceil(queryTrigrams.length * MIN_SIMILARITY);
+
+        List<int[]> lists = new ArrayList<>();
+        for (long trigram : queryTrigrams) {
+            lists.add(postings.getOrDefault(trigram, new int[0]));
+        }
+        lists.sort(Comparator.comparingInt(list -> list.length));
+
+        int[] candidates = new int[MAX_CANDIDATES];
+        int count = 0;
+        scan:
+        for (int[] list : lists.subList(0, queryTrigrams.length - minShared + 1)) {
+            for (int index : list) {
+                if (count == candidates.length) {
+                    break scan;
+                }
+                candidates[count++] = index;
+            }
+        }
+        Arrays.sort(candidates, 0, count);
+
+        List<Scored> matches = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int index = candidates[i];
+            if ((i == 0 || index != candidates[i - 1]) && !exclude.test(ids[index])) {
+                double similarity = similarity(query, queryTrigrams, keys[index]);
+                if (similarity >= MIN_SIMILARITY) {
+                    matches.add(new Scored(index, similarity));
+                }
+            }
+        }
+        // same order as closestFirst; the index order is the key order
+        matches.sort(Comparator.comparingDouble(Scored::similarity).reversed()
+                .thenComparing(Comparator.comparingLong((Scored match) -> likeCounts[match.index()]).reversed())
+                .thenComparingInt(Scored::index));
+        return matches.stream().limit(limit).map(match -> entry(match.index())).toList();
+    }
+
+    /**
+     * Typo matches order: most similar first, then most liked.
+     */
+    static Comparator<Entry> closestFirst(String query, long[] queryTrigrams) {
+        return Comparator.comparingDouble((Entry entry) -> similarity(query, queryTrigrams, entry.key())).reversed()
+                .thenComparing(Comparator.comparingLong(Entry::likeCount).reversed())
+                .thenComparing(Entry::key);
+    }
+
+    /**
+     * Jaccard similarity of the trigrams of the query and of the start of {@code key} cut to the
+     * query's length plus one; the user is still typing the rest.
+     */
+    static double similarity(String query, long[] queryTrigrams, String key) {
+        // trigrams of " " + the start of key, without building the string
+        int end = Math.min(key.length(), query.length() + 1);
+        int keyTrigrams = 0;
+        int shared = 0;
+        for (int i = -1; i + 2 < end; i++) {
+            char first = i < 0 ? ' ' : key.charAt(i);
+            long trigram = ((long) first << 32) | ((long) key.charAt(i + 1) << 16) | key.charAt(i + 2);
+            keyTrigrams++;
+            if (Arrays.binarySearch(queryTrigrams, trigram) >= 0) {
+                shared++;
+            }
+        }
+        int union = queryTrigrams.length + keyTrigrams - shared;
+        return union == 0 ? 0 : (double) shared / union;
+    }
+
+    /**
+     * Distinct trigrams of {@code text}, sorted, three chars packed per long.
+     */
+    static long[] trigrams(String text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] trigrams = new long[text.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return distinct == trigrams.length ? trigrams : Arrays.copyOf(trigrams, distinct);
+    }
+
+    private Map<Long, int[]> buildPostings() {
+        // Two passes so every list is allocated at its final size, in ascending entry order.
+        // The trigrams are recomputed rather than kept between the passes to bound build memory.
+        Map<Long, int[]> counts = new HashMap<>();
+        for (String key : keys) {
+            for (long trigram : titleTrigrams(key)) {
+                counts.computeIfAbsent(trigram, t -> new int[1])[0]++;
+            }
+        }
+        Map<Long, int[]> lists = new HashMap<>(counts.size() * 2);
+        counts.forEach((trigram, count) -> {
+            lists.put(trigram, new int[count[0]]);
+            // reused as the fill position
+            count[0] = 0;
+        });
+        for (int i = 0; i < keys.length; i++) {
+            for (long trigram : titleTrigrams(keys[i])) {
+                lists.get(trigram)[counts.get(trigram)[0]++] = i;
+            }
+        }
+        return lists;
+    }
+
+    private static long[] titleTrigrams(String key) {
+        return trigrams(" " + key + " ");
+    }
+
+    private int mostLikedIn(int from, int to) {
+        int n = keys.length;
+        int best = from;
+        for (int lo = from + n, hi = to + n; lo < hi; lo >>= 1, hi >>= 1) {
+            if ((lo & 1) == 1) {
+                best = moreLiked(best, mostLiked[lo++]);
+            }
+            if ((hi & 1) == 1) {
+                best = moreLiked(best, mostLiked[--hi]);
+            }
+        }
+        return best;
+    }
+
+    private int moreLiked(int a, int b) {
+        if (likeCounts[a] != likeCounts[b]) {
+            return likeCounts[a] > likeCounts[b] ? a : b;
+        }
+        return Math.min(a, b);
+    }
+
+    private int lowerBound(String key) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private Entry entry(int index) {
+        return new Entry(ids[index], keys[index], titles[index], likeCounts[index]);
+    }
+
+    private static long stringBytes(String value) {
+        // object header, fields and the byte[] of a compact (Latin-1) string
+        return 40 + value.length();
+    }
+}
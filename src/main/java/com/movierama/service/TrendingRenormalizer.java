@@ -0,0 +1,79 @@
+package com.movierama.service;
+
+import com.movierama.cache.MoviePageInvalidator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically runs {@code renormalize_trending()} (V10), which moves the trending epoch to now and
+ * scales every score down by the same factor. Scores only keep their order relative to one epoch,
+ * and fresh reaction weights grow by 2x per half-life of epoch age, so this keeps them in a small
+ * range and lets long-decayed scores drop to zero. Reactions wait while it runs.
+ * <p>
+ * Every node runs it, shortly after startup and then every {@code interval}, so nodes that restart
+ * more often than that still renormalize; a run shortly after another one only rescales by a
+ * factor close to one.
+ */
+@Slf4j
+@Component
+public class TrendingRenormalizer {
+
+    private static final Duration INITIAL_DELAY = Duration.ofMinutes(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MoviePageInvalidator pageInvalidator;
+    private final Duration interval;
+
+    private ScheduledExecutorService scheduler;
+
+    public TrendingRenormalizer(JdbcTemplate jdbcTemplate,
+                                MoviePageInvalidator pageInvalidator,
+                                @Value("${movierama.trending.renormalize-interval:6h}") Duration interval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.pageInvalidator = pageInvalidator;
+        this.interval = interval;
+    }
+
+    @PostConstruct
+    void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trending-renormalizer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long initialDelay = Math.min(INITIAL_DELAY.toMillis(), interval.toMillis());
+        scheduler.scheduleWithFixedDelay(this::renormalizeQuietly, initialDelay, interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    void renormalize() {
+        Long rows = jdbcTemplate.queryForObject("SELECT renormalize_trending()", Long.class);
+        pageInvalidator.trendingRenormalized();
+        log.info("Trending scores renormalized: {} movies rescaled", rows);
+    }
+
+    private void renormalizeQuietly() {
+        try {
+            renormalize();
+        } catch (RuntimeException e) {
+            // an exception would cancel the scheduled runs
+            log.error("Trending renormalization failed", e);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.movierama.service;
 
 import com.movierama.dto.UserRegistrationDto;
 import com.movierama.entity.User;
+import com.movierama.metrics.ServiceMetrics;
 import com.movierama.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
@@ -18,26 +19,29 @@ public class UserService {
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ServiceMetrics serviceMetrics;
     
     @CacheEvict(value = "users", allEntries = true)
     public User registerUser(UserRegistrationDto registrationDto) {
-        if (userRepository.existsByUsername(registrationDto.getUsername())) {
-            throw new RuntimeException("Username already exists");
-        }
-        
-        if (userRepository.existsByEmail(registrationDto.getEmail())) {
-            throw new RuntimeException("Email already exists");
-        }
-        
-        User user = new User();
-        user.setUsername(registrationDto.getUsername());
-        user.setEmail(registrationDto.getEmail());
-        user.setPassword(passwordEncoder.encode(registrationDto.getPassword()));
-        user.setFirstName(registrationDto.getFirstName());
-        user.setLastName(registrationDto.getLastName());
-        user.setRole(User.Role.USER);
-        
-        return userRepository.save(user);
+        return serviceMetrics.time("users.register", null, null, () -> {
+            if (userRepository.existsByUsername(registrationDto.getUsername())) {
+                throw new RuntimeException("Username already exists");
+            }
+
+            if (userRepository.existsByEmail(registrationDto.getEmail())) {
+                throw new RuntimeException("Email already exists");
+            }
+
+            User user = new User();
+            user.setUsername(registrationDto.getUsername());
+            user.setEmail(registrationDto.getEmail());
+            user.setPassword(passwordEncoder.encode(registrationDto.getPassword()));
+            user.setFirstName(registrationDto.getFirstName());
+            user.setLastName(registrationDto.getLastName());
+            user.setRole(User.Role.USER);
+
+            return userRepository.save(user);
+        });
     }
     
     @Transactional(readOnly = true)
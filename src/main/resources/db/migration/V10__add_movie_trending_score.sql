@@ -0,0 +1,138 @@
+-- Time-decayed "trending" score. A reaction made at time t adds sign * exp((t - epoch) / tau) to
+-- its movie's score (LIKE +1, HATE -1), with a 24 hour half-life (tau = 86400 / ln 2 seconds).
+-- Every weight is relative to the same epoch, so the score order equals the order of the scores
+-- decayed to any common "now" and never has to be recomputed per request; the (score, id) index
+-- makes a trending page a plain index range scan.
+--
+-- Weights of fresh reactions grow as the epoch ages, so renormalize_trending() periodically moves
+-- the epoch to now and scales every score down by the same factor, which keeps the order.
+-- Writers take the shared advisory lock of lock_trending_epoch before their first movie row lock
+-- and the renormalization takes it exclusively, so the epoch never moves while a weight computed
+-- from it is being applied.
+
+ALTER TABLE movie ADD COLUMN IF NOT EXISTS trending_score DOUBLE PRECISION NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS trending_epoch (
+    id    BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+    epoch TIMESTAMP NOT NULL
+);
+INSERT INTO trending_epoch (epoch) VALUES (LOCALTIMESTAMP) ON CONFLICT DO NOTHING;
+
+CREATE OR REPLACE FUNCTION lock_trending_epoch(p_exclusive BOOLEAN)
+    RETURNS VOID
+    LANGUAGE plpgsql
+AS
+$$
+BEGIN
+    IF p_exclusive THEN
+        PERFORM pg_advisory_xact_lock(8461203917);
+    ELSE
+        PERFORM pg_advisory_xact_lock_shared(8461203917);
+    END IF;
+END;
+$$;
+
+-- Weight of a reaction of the given type made at p_at, in the units of the current epoch
+CREATE OR REPLACE FUNCTION trending_weight(p_reaction_type TEXT, p_at TIMESTAMP)
+    RETURNS DOUBLE PRECISION
+    LANGUAGE sql
+    STABLE
+AS
+$$
+SELECT (CASE p_reaction_type WHEN 'LIKE' THEN 1 WHEN 'HATE' THEN -1 ELSE 0 END)
+           * exp(extract(EPOCH FROM p_at - e.epoch) / 124649.6)
+FROM trending_epoch e
+$$;
+
+-- Moves the epoch to now and rescales the scores; scores that decayed below 1e-6 of a fresh like
+-- become 0 so later runs only touch movies with recent reactions. Returns the rows rescaled.
+CREATE OR REPLACE FUNCTION renormalize_trending()
+    RETURNS BIGINT
+    LANGUAGE plpgsql
+AS
+$$
+DECLARE
+    v_factor DOUBLE PRECISION;
+    v_rows   BIGINT;
+BEGIN
+    PERFORM lock_trending_epoch(TRUE);
+    SELECT exp(-extract(EPOCH FROM LOCALTIMESTAMP - e.epoch) / 124649.6) INTO v_factor FROM trending_epoch e;
+
+    UPDATE movie
+    SET trending_score = CASE WHEN abs(trending_score * v_factor) < 1e-6 THEN 0 ELSE trending_score * v_factor END
+    WHERE trending_score <> 0;
+    GET DIAGNOSTICS v_rows = ROW_COUNT;
+
+    UPDATE trending_epoch SET epoch = LOCALTIMESTAMP;
+    RETURN v_rows;
+END;
+$$;
+
+UPDATE movie m
+SET trending_score = s.score
+FROM (
+    SELECT movie_id, SUM(trending_weight(reaction_type, created_at)) AS score
+    FROM movie_reaction
+    GROUP BY movie_id
+) s
+WHERE s.movie_id = m.id;
+
+CREATE INDEX IF NOT EXISTS idx_movies_trending_score ON movie (trending_score, id);
+
+-- Same transition as V7, plus the trending weight: the previous reaction's weight (from its
+-- created_at) is taken back and the new one's added, in the same counter UPDATE. created_at now
+-- records when the current reaction type was set, so that weight can be taken back exactly.
+CREATE OR REPLACE FUNCTION react_to_movie(p_user_id BIGINT, p_movie_id BIGINT, p_reaction_type TEXT)
+    RETURNS TABLE (status TEXT, previous_type TEXT, current_type TEXT)
+    LANGUAGE plpgsql
+AS
+$$
+DECLARE
+    v_owner_id    BIGINT;
+    v_previous    TEXT;
+    v_previous_at TIMESTAMP;
+    v_current     TEXT;
+BEGIN
+    PERFORM lock_trending_epoch(FALSE);
+
+    SELECT m.user_id INTO v_owner_id FROM movie m WHERE m.id = p_movie_id FOR NO KEY UPDATE;
+    IF NOT FOUND THEN
+        RETURN QUERY SELECT 'MOVIE_NOT_FOUND'::TEXT, NULL::TEXT, NULL::TEXT;
+        RETURN;
+    END IF;
+    IF v_owner_id = p_user_id THEN
+        RETURN QUERY SELECT 'OWN_MOVIE'::TEXT, NULL::TEXT, NULL::TEXT;
+        RETURN;
+    END IF;
+
+    SELECT r.reaction_type, r.created_at INTO v_previous, v_previous_at
+    FROM movie_reaction r
+    WHERE r.user_id = p_user_id AND r.movie_id = p_movie_id;
+
+    IF v_previous = p_reaction_type THEN
+        DELETE FROM movie_reaction WHERE user_id = p_user_id AND movie_id = p_movie_id;
+        v_current := NULL;
+    ELSE
+        -- ON CONFLICT covers a row written without the movie lock (the write-behind flush)
+        INSERT INTO movie_reaction (reaction_type, created_at, user_id, movie_id)
+        VALUES (p_reaction_type, LOCALTIMESTAMP, p_user_id, p_movie_id)
+        ON CONFLICT (user_id, movie_id) DO UPDATE SET reaction_type = EXCLUDED.reaction_type,
+                                                      created_at    = EXCLUDED.created_at;
+        v_current := p_reaction_type;
+    END IF;
+
+    UPDATE movie
+    SET like_count     = like_count
+                             + (CASE WHEN v_current = 'LIKE' THEN 1 ELSE 0 END)
+                             - (CASE WHEN v_previous = 'LIKE' THEN 1 ELSE 0 END),
+        hate_count     = hate_count
+                             + (CASE WHEN v_current = 'HATE' THEN 1 ELSE 0 END)
+                             - (CASE WHEN v_previous = 'HATE' THEN 1 ELSE 0 END),
+        trending_score = trending_score
+                             + coalesce(trending_weight(v_current, LOCALTIMESTAMP), 0)
+                             - coalesce(trending_weight(v_previous, v_previous_at), 0)
+    WHERE id = p_movie_id;
+
+    RETURN QUERY SELECT 'OK'::TEXT, v_previous, v_current;
+END;
+$$;
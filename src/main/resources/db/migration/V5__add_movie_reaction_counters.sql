@@ -0,0 +1,17 @@
+ALTER TABLE movie ADD COLUMN IF NOT EXISTS like_count BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE movie ADD COLUMN IF NOT EXISTS hate_count BIGINT NOT NULL DEFAULT 0;
+
+UPDATE movie m
+SET like_count = c.like_count,
+    hate_count = c.hate_count
+FROM (
+    SELECT movie_id,
+           COUNT(*) FILTER (WHERE reaction_type = 'LIKE') AS like_count,
+           COUNT(*) FILTER (WHERE reaction_type = 'HATE') AS hate_count
+    FROM movie_reaction
+    GROUP BY movie_id
+) c
+WHERE c.movie_id = m.id;
+
+CREATE INDEX IF NOT EXISTS idx_movies_like_count ON movie (like_count, id);
+CREATE INDEX IF NOT EXISTS idx_movies_hate_count ON movie (hate_count, id);
@@ -0,0 +1,7 @@
+-- Composite (sort key, id) indexes so keyset pages seek straight to the cursor position.
+-- like_count/hate_count are covered by V5.
+CREATE INDEX IF NOT EXISTS idx_movies_created_at_id ON movie (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_movies_title_id ON movie (title, id);
+
+DROP INDEX IF EXISTS idx_movies_created_at;
+DROP INDEX IF EXISTS idx_movies_title;
@@ -0,0 +1,55 @@
+-- Applies one like/hate request (toggle semantics) and the counter change in a single call.
+-- A plain INSERT ... ON CONFLICT cannot delete on a repeated click, and the parts of one
+-- CTE statement all read the same snapshot, so the transition runs as a function instead.
+--
+-- Locking the movie row first serialises reactions per movie (the counter update took that lock
+-- anyway), and every statement after it sees the reactions committed before the lock was granted.
+--
+-- status is OK, MOVIE_NOT_FOUND or OWN_MOVIE; previous_type/current_type are NULL for no reaction.
+CREATE OR REPLACE FUNCTION react_to_movie(p_user_id BIGINT, p_movie_id BIGINT, p_reaction_type TEXT)
+    RETURNS TABLE (status TEXT, previous_type TEXT, current_type TEXT)
+    LANGUAGE plpgsql
+AS
+$$
+DECLARE
+    v_owner_id BIGINT;
+    v_previous TEXT;
+    v_current  TEXT;
+BEGIN
+    SELECT m.user_id INTO v_owner_id FROM movie m WHERE m.id = p_movie_id FOR NO KEY UPDATE;
+    IF NOT FOUND THEN
+        RETURN QUERY SELECT 'MOVIE_NOT_FOUND'::TEXT, NULL::TEXT, NULL::TEXT;
+        RETURN;
+    END IF;
+    IF v_owner_id = p_user_id THEN
+        RETURN QUERY SELECT 'OWN_MOVIE'::TEXT, NULL::TEXT, NULL::TEXT;
+        RETURN;
+    END IF;
+
+    SELECT r.reaction_type INTO v_previous
+    FROM movie_reaction r
+    WHERE r.user_id = p_user_id AND r.movie_id = p_movie_id;
+
+    IF v_previous = p_reaction_type THEN
+        DELETE FROM movie_reaction WHERE user_id = p_user_id AND movie_id = p_movie_id;
+        v_current := NULL;
+    ELSE
+        -- ON CONFLICT covers a row written without the movie lock (the write-behind flush)
+        INSERT INTO movie_reaction (reaction_type, created_at, user_id, movie_id)
+        VALUES (p_reaction_type, now(), p_user_id, p_movie_id)
+        ON CONFLICT (user_id, movie_id) DO UPDATE SET reaction_type = EXCLUDED.reaction_type;
+        v_current := p_reaction_type;
+    END IF;
+
+    UPDATE movie
+    SET like_count = like_count
+                         + (CASE WHEN v_current = 'LIKE' THEN 1 ELSE 0 END)
+                         - (CASE WHEN v_previous = 'LIKE' THEN 1 ELSE 0 END),
+        hate_count = hate_count
+                         + (CASE WHEN v_current = 'HATE' THEN 1 ELSE 0 END)
+                         - (CASE WHEN v_previous = 'HATE' THEN 1 ELSE 0 END)
+    WHERE id = p_movie_id;
+
+    RETURN QUERY SELECT 'OK'::TEXT, v_previous, v_current;
+END;
+$$;
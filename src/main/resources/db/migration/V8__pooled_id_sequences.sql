@@ -0,0 +1,7 @@
+-- Hibernate cannot batch inserts into IDENTITY columns, so the entities now draw their ids from
+-- the BIGSERIAL sequences with a pooled optimizer: one nextval reserves the 50 ids up to and
+-- including the value returned. INCREMENT BY must match allocationSize on the entities.
+-- The column defaults stay, so plain SQL inserts keep working and never hit a reserved range.
+ALTER SEQUENCE user_profile_id_seq INCREMENT BY 50;
+ALTER SEQUENCE movie_id_seq INCREMENT BY 50;
+ALTER SEQUENCE movie_reaction_id_seq INCREMENT BY 50;
@@ -0,0 +1,11 @@
+-- Full-text search over title and description. The vector is a stored generated column, so
+-- every write path (JPA, bulk import, COPY) keeps it current; title matches rank above
+-- description matches.
+ALTER TABLE movie
+    ADD COLUMN IF NOT EXISTS search_vector tsvector
+        GENERATED ALWAYS AS (
+            setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+            setweight(to_tsvector('english', coalesce(description, '')), 'B')
+        ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_movies_search_vector ON movie USING GIN (search_vector);
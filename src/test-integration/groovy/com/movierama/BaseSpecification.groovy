@@ -1,8 +1,12 @@
 package com.movierama
 
+import com.movierama.cache.NearCache
+import com.movierama.sql.SqlCountingConfig
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.cache.CacheManager
 import org.springframework.context.ApplicationContext
+import org.springframework.context.annotation.Import
 import org.springframework.data.redis.core.StringRedisTemplate
 import org.springframework.jdbc.core.JdbcTemplate
 import org.springframework.test.context.DynamicPropertyRegistry
@@ -21,9 +25,11 @@ import spock.util.concurrent.PollingConditions
  * - PostgreSQL database
  * - Redis
  * - WireMock server for HTTP stubbing
+ * - SQL statement counts ({@link com.movierama.sql.SqlCounter#measure})
  */
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ContextConfiguration
+@Import(SqlCountingConfig)
 abstract class BaseSpecification extends Specification {
 
     // ---------- Shared Testcontainers ----------
@@ -51,6 +57,9 @@ abstract class BaseSpecification extends Specification {
         registry.add("spring.data.redis.host") { redis.host }
         registry.add("spring.data.redis.port") { redis.firstMappedPort }
 
+        // statement counts for the query budget assertions
+        registry.add("spring.jpa.properties.hibernate.generate_statistics") { "true" }
+
     }
 
     // ---------- Autowired beans ----------
@@ -73,6 +82,10 @@ abstract class BaseSpecification extends Specification {
 
     def clearRedis() {
         redisTemplate.connectionFactory.connection.flushAll()
+        // the in-process copies would otherwise outlive the flush: L1 entries and page generations
+        def cacheManager = context.getBean(CacheManager)
+        cacheManager.cacheNames.each { cacheManager.getCache(it).clear() }
+        context.getBeansOfType(NearCache).values()*.clearLocal()
     }
 
     def assertCollectionEquals(Collection<?> a, Collection<?> b) {
@@ -24,6 +24,9 @@ import spock.lang.Stepwise
 
 import static org.mockito.ArgumentMatchers.*
 import static org.mockito.BDDMockito.given
+import static org.mockito.Mockito.times
+import static org.mockito.Mockito.verify
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*
 
@@ -111,6 +114,15 @@ class MovieControllerITSpec extends BaseSpecification {
                 .andExpect(jsonPath('$.total').value(0))
     }
 
+    def "GET /api/secured/movies/export returns 401 when principal missing"() {
+        expect:
+        mockMvc.perform(
+                get("/api/secured/movies/export")
+        )
+                .andExpect(status().isUnauthorized())
+                .andExpect(content().string("Authentication required"))
+    }
+
     def "POST /api/secured/movies/{id}/react returns 401 when principal missing"() {
         expect:
         mockMvc.perform(
@@ -161,4 +173,42 @@ class MovieControllerITSpec extends BaseSpecification {
                 .andExpect(status().isBadRequest())
                 .andExpect(content().string("Already reacted"))
     }
+
+    def "GET /api/movies binds the paging parameters and answers a revalidation with 304"() {
+        given:
+        def page = new PagingResponse<MovieDto>(content: [new MovieDto(id: 3L, title: "Zootopia")], page: 1, size: 5)
+        given(movieService.getMoviesPageSorted(eq(1), eq(5), eq("title"), eq("ASC"), isNull())).willReturn(page)
+        def listing = get("/api/movies")
+                .param("page", "1")
+                .param("size", "5")
+                .param("sortBy", "title")
+                .param("sortDirection", "ASC")
+
+        when:
+        def first = mockMvc.perform(listing)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath('$.content[0].id').value(3))
+                .andReturn().response
+        def eTag = first.getHeader("ETag")
+
+        then:
+        eTag ==~ /"[0-9a-f]{32}"/
+        first.getHeader("Cache-Control") == "max-age=5, public"
+        first.getHeaders("Vary").any { it.contains("Authorization") }
+
+        when:
+        def revalidated = mockMvc.perform(get("/api/movies")
+                .param("page", "1")
+                .param("size", "5")
+                .param("sortBy", "title")
+                .param("sortDirection", "ASC")
+                .header("If-None-Match", eTag))
+                .andReturn().response
+
+        then: "the listing is not loaded again"
+        revalidated.status == 304
+        revalidated.getHeader("ETag") == eTag
+        revalidated.contentAsString.isEmpty()
+        verify(movieService, times(1)).getMoviesPageSorted(eq(1), eq(5), eq("title"), eq("ASC"), isNull())
+    }
 }
@@ -0,0 +1,66 @@
+package com.movierama.repository
+
+import com.movierama.BaseSpecification
+import com.movierama.entity.Movie
+import com.movierama.entity.User
+import com.movierama.repository.MovieBatchRepository.NewMovie
+import org.springframework.beans.factory.annotation.Autowired
+
+class MovieBatchRepositoryITSpec extends BaseSpecification {
+
+    @Autowired MovieBatchRepository batchRepository
+    @Autowired MovieRepository movieRepository
+    @Autowired UserRepository userRepository
+
+    // a made-up word, so titles of other specs never collide
+    private final String word = "zq" + UUID.randomUUID().toString().replace("-", "").take(8)
+
+    private User owner
+
+    def setup() {
+        def name = "b" + UUID.randomUUID().toString().replace("-", "").take(12)
+        owner = userRepository.save(new User(username: name, email: "${name}@x.com", password: "p",
+                firstName: "Bea", lastName: "Batch", role: User.Role.USER))
+    }
+
+    def "titles taken by stored movies or earlier rows are skipped, in Postgres' own lower()"() {
+        given:
+        def stored = new Movie(title: "Stored ${word}", user: owner)
+        movieRepository.saveAndFlush(stored)
+
+        when:
+        def inserted = batchRepository.insertSkippingTakenTitles([
+                new NewMovie("First ${word}", "d1"),
+                new NewMovie("STORED ${word}", "taken"),
+                new NewMovie("first ${word}", "repeated"),
+                new NewMovie("Straße ${word}", null)], owner.id)
+
+        then:
+        inserted as List == [true, false, false, true]
+
+        and:
+        def first = movieRepository.findByTitleIgnoreCase("First ${word}").get()
+        first.description == "d1"
+        first.user.id == owner.id
+        first.createdAt != null
+        first.id > stored.id
+        movieRepository.findByTitleIgnoreCase("Straße ${word}").isPresent()
+    }
+
+    def "a chunk larger than one id block gets distinct ids in list order"() {
+        when:
+        def inserted = batchRepository.insertSkippingTakenTitles(
+                (1..120).collect { new NewMovie("${word} ${it}", null) }, owner.id)
+
+        then:
+        inserted.every()
+
+        and:
+        def ids = (1..120).collect { movieRepository.findByTitleIgnoreCase("${word} ${it}").get().id }
+        ids == ids.sort(false)
+        ids.unique(false).size() == 120
+
+        and: "entities saved afterwards draw ids that do not collide"
+        movieRepository.saveAndFlush(new Movie(title: "After ${word}", user: owner)).id != null
+    }
+}
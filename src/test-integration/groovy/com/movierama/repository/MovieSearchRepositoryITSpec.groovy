@@ -0,0 +1,75 @@
+package com.movierama.repository
+
+import com.movierama.BaseSpecification
+import com.movierama.entity.Movie
+import com.movierama.entity.User
+import org.springframework.beans.factory.annotation.Autowired
+
+class MovieSearchRepositoryITSpec extends BaseSpecification {
+
+    @Autowired MovieSearchRepository searchRepository
+    @Autowired MovieRepository movieRepository
+    @Autowired UserRepository userRepository
+
+    // a made-up word, so rows of other specs never match
+    private final String word = "zq" + UUID.randomUUID().toString().replace("-", "").take(8)
+
+    private User owner
+
+    def setup() {
+        def name = "s" + UUID.randomUUID().toString().replace("-", "").take(12)
+        owner = userRepository.save(new User(username: name, email: "${name}@x.com", password: "p",
+                firstName: "Sam", lastName: "Search", role: User.Role.USER))
+    }
+
+    def "title matches rank above description matches and the author is joined in"() {
+        given:
+        def inDescription = movie("Plain ${UUID.randomUUID()}", "about ${word} things", 0)
+        def inTitle = movie("The ${word}", "nothing else", 0)
+
+        when:
+        def hits = searchRepository.search(word, MovieSearchSort.RELEVANCE, null, null, 10)
+
+        then:
+        hits*.movie()*.id == [inTitle.id, inDescription.id]
+        hits[0].rank() > hits[1].rank()
+        hits[0].movie().userName == "Sam Search"
+        hits[0].movie().userId == owner.id
+    }
+
+    def "keyset pages by like count cover every match once"() {
+        given:
+        def movies = (1..5).collect { movie("${word} ${it}", null, it % 3) }
+
+        when:
+        def first = searchRepository.search(word, MovieSearchSort.LIKE_COUNT, null, null, 2)
+        def last = first[-1].movie()
+        def second = searchRepository.search(word, MovieSearchSort.LIKE_COUNT, last.likeCount as String, last.id, 10)
+
+        then:
+        def ids = (first + second)*.movie()*.id
+        ids.size() == 5
+        ids as Set == movies*.id as Set
+        (first + second)*.movie()*.likeCount == [2L, 2L, 1L, 1L, 0L]
+    }
+
+    def "a relevance cursor resumes after the exact rank of the last hit"() {
+        given:
+        (1..4).each { movie("${word} ${word} ${it}", it % 2 ? word : null, 0) }
+
+        when:
+        def first = searchRepository.search(word, MovieSearchSort.RELEVANCE, null, null, 2)
+        def last = first[-1]
+        def second = searchRepository.search(word, MovieSearchSort.RELEVANCE, Float.toString(last.rank()), last.movie().id, 10)
+
+        then:
+        second.size() == 2
+        ((first + second)*.movie()*.id as Set).size() == 4
+    }
+
+    private Movie movie(String title, String description, long likes) {
+        def saved = movieRepository.save(new Movie(title: title, description: description, user: owner))
+        jdbcTemplate.update("UPDATE movie SET like_count = ? WHERE id = ?", likes, saved.id)
+        saved
+    }
+}
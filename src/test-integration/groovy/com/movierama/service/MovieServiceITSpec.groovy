@@ -9,6 +9,9 @@ import com.movierama.entity.User
 import com.movierama.repository.MovieReactionRepository
 import com.movierama.repository.MovieRepository
 import com.movierama.repository.UserRepository
+import jakarta.persistence.EntityManagerFactory
+import org.hibernate.SessionFactory
+import org.hibernate.stat.Statistics
 import org.springframework.beans.factory.annotation.Autowired
 
 class MovieServiceITSpec extends BaseSpecification {
@@ -17,10 +20,15 @@ class MovieServiceITSpec extends BaseSpecification {
     @Autowired MovieRepository movieRepository
     @Autowired MovieReactionRepository reactionRepository
     @Autowired UserRepository userRepository  // used to persist owners/reactors
+    @Autowired EntityManagerFactory entityManagerFactory
 
     private User owner
     private User reactor
 
+    private Statistics getStatistics() {
+        entityManagerFactory.unwrap(SessionFactory).statistics
+    }
+
     def setup() {
         owner = userRepository.save(new User(username: "owner", email: "o@x.com", password: "p", firstName: "O", lastName: "W", role: User.Role.USER))
         reactor = userRepository.save(new User(username: "reactor", email: "r@x.com", password: "p", firstName: "R", lastName: "C", role: User.Role.USER))
@@ -78,6 +86,70 @@ class MovieServiceITSpec extends BaseSpecification {
         resp.content.size() == 2
     }
 
+    def "a listing page is one statement for the rows plus the count and the viewer's reactions (sortBy=#sortBy)"() {
+        given: "a user listing with more movies than fit on the page, one of them liked by the viewer"
+        def movies = (1..3).collect { movieService.createMovie(new MovieRegistrationDto(title: "Rows ${it} ${UUID.randomUUID()}"), owner) }
+        movieService.reactToMovie(movies[0].id, reactor, MovieReaction.ReactionType.LIKE)
+        clearRedis()
+        statistics.clear()
+
+        when:
+        def resp = movieService.getMoviesByUserPaged(owner.id, 0, 2, sortBy, "DESC", reactor)
+
+        then: "content, count and viewer reactions; no per-movie author or reaction loads"
+        statistics.prepareStatementCount == 3
+        resp.content.size() == 2
+        resp.totalElements == 3
+        resp.content.every { it.userName == "O W" && it.userId == owner.id }
+
+        when: "the catalog listing for an anonymous viewer"
+        clearRedis()
+        statistics.clear()
+        def catalog = movieService.getMoviesPageSorted(0, 2, sortBy, "DESC", null)
+
+        then:
+        statistics.prepareStatementCount == 2
+        catalog.content.size() == 2
+
+        where:
+        sortBy << ["id", "title", "createdAt", "likeCount", "hateCount", "trending"]
+    }
+
+    def "listing rows carry the author, the counters and the viewer's own reaction"() {
+        given:
+        def movie = movieService.createMovie(new MovieRegistrationDto(title: "Heat ${UUID.randomUUID()}", description: "LA"), owner)
+        movieService.reactToMovie(movie.id, reactor, MovieReaction.ReactionType.HATE)
+        clearRedis()
+
+        when:
+        def dto = movieService.getMoviesByUserPaged(owner.id, 0, 10, "id", "DESC", reactor).content.find { it.id == movie.id }
+
+        then:
+        dto.title == movie.title
+        dto.description == "LA"
+        dto.userName == owner.fullName
+        dto.createdAt != null
+        dto.hateCount == 1L
+        dto.likeCount == 0L
+        dto.userHated
+        !dto.userLiked
+    }
+
+    def "listing rows name an author with a missing name part as the entity does"() {
+        given:
+        def author = userRepository.save(new User(username: "nameless ${UUID.randomUUID()}", email: "${UUID.randomUUID()}@x.com",
+                password: "p", firstName: "Solo", role: User.Role.USER))
+        def movie = movieService.createMovie(new MovieRegistrationDto(title: "Mononym ${UUID.randomUUID()}"), author)
+        clearRedis()
+
+        when:
+        def dto = movieService.getMoviesByUserPaged(author.id, 0, 10, "id", "DESC", null).content.find { it.id == movie.id }
+
+        then:
+        dto.userName == author.fullName
+        dto.userName == "Solo null"
+    }
+
     def "reactToMovie creates, updates, and toggles reactions"() {
         given:
         def movie = movieService.createMovie(new MovieRegistrationDto(title: "Batman Begins"), owner)
@@ -88,6 +160,7 @@ class MovieServiceITSpec extends BaseSpecification {
         then:
         def r1 = reactionRepository.findByUserIdAndMovieId(reactor.id, movie.id).get()
         r1.reactionType == MovieReaction.ReactionType.LIKE
+        counts(movie.id) == [1L, 0L]
 
         when: "reactor changes to dislike"
         movieService.reactToMovie(movie.id, reactor, MovieReaction.ReactionType.HATE)
@@ -95,12 +168,14 @@ class MovieServiceITSpec extends BaseSpecification {
         then:
         def r2 = reactionRepository.findByUserIdAndMovieId(reactor.id, movie.id).get()
         r2.reactionType == MovieReaction.ReactionType.HATE
+        counts(movie.id) == [0L, 1L]
 
         when: "reactor sends dislike again -> toggle off (delete)"
         movieService.reactToMovie(movie.id, reactor, MovieReaction.ReactionType.HATE)
 
         then:
         !reactionRepository.findByUserIdAndMovieId(reactor.id, movie.id).isPresent()
+        counts(movie.id) == [0L, 0L]
     }
 
     def "reactToMovie prevents reacting to own movie"() {
@@ -114,4 +189,9 @@ class MovieServiceITSpec extends BaseSpecification {
         def ex = thrown(RuntimeException)
         ex.message == "You cannot react to your own movie"
     }
+
+    private List<Long> counts(Long movieId) {
+        def movie = movieRepository.findById(movieId).get()
+        [movie.likeCount, movie.hateCount]
+    }
 }
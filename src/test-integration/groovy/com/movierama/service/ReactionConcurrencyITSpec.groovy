@@ -0,0 +1,113 @@
+package com.movierama.service
+
+import com.movierama.BaseSpecification
+import com.movierama.dto.MovieRegistrationDto
+import com.movierama.entity.MovieReaction
+import com.movierama.entity.User
+import com.movierama.repository.UserRepository
+import org.springframework.beans.factory.annotation.Autowired
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.TimeUnit
+
+class ReactionConcurrencyITSpec extends BaseSpecification {
+
+    @Autowired MovieService movieService
+    @Autowired UserRepository userRepository
+
+    def "parallel toggles by one user end in the state their count implies"() {
+        given:
+        def owner = newUser()
+        def reactor = newUser()
+        def movie = movieService.createMovie(new MovieRegistrationDto(title: "Toggle ${UUID.randomUUID()}"), owner)
+
+        when: "an even number of identical clicks race each other"
+        def failures = race(40) { movieService.reactToMovie(movie.id, reactor, MovieReaction.ReactionType.LIKE) }
+
+        then: "every click was applied, so they cancel out"
+        failures.isEmpty()
+        reactions(movie.id).isEmpty()
+        counts(movie.id) == [0L, 0L]
+    }
+
+    def "parallel likes by different users are all counted"() {
+        given:
+        def owner = newUser()
+        def reactors = (1..30).collect { newUser() }
+        def movie = movieService.createMovie(new MovieRegistrationDto(title: "Likes ${UUID.randomUUID()}"), owner)
+
+        when:
+        def failures = race(reactors.size()) { int i ->
+            movieService.reactToMovie(movie.id, reactors[i], MovieReaction.ReactionType.LIKE)
+        }
+
+        then:
+        failures.isEmpty()
+        reactions(movie.id).size() == 30
+        counts(movie.id) == [30L, 0L]
+    }
+
+    def "random concurrent clicks keep the counters equal to the stored reactions"() {
+        given:
+        def owner = newUser()
+        def reactors = (1..5).collect { newUser() }
+        def movie = movieService.createMovie(new MovieRegistrationDto(title: "Mixed ${UUID.randomUUID()}"), owner)
+
+        when: "the owner's own clicks are mixed in and must all be rejected"
+        def failures = race(200) { int i ->
+            def random = ThreadLocalRandom.current()
+            def user = i % 20 == 0 ? owner : reactors[random.nextInt(reactors.size())]
+            movieService.reactToMovie(movie.id, user,
+                    random.nextBoolean() ? MovieReaction.ReactionType.LIKE : MovieReaction.ReactionType.HATE)
+        }
+
+        then:
+        failures.size() == 10
+        failures.every { it.message == "You cannot react to your own movie" }
+
+        and:
+        def stored = reactions(movie.id)
+        counts(movie.id) == [stored.count { it == "LIKE" } as long, stored.count { it == "HATE" } as long]
+        stored.size() <= reactors.size()
+    }
+
+    private List<Throwable> race(int tasks, Closure action) {
+        def pool = Executors.newFixedThreadPool(16)
+        def start = new CountDownLatch(1)
+        try {
+            def futures = (0..<tasks).collect { int i ->
+                pool.submit({ start.await(); action(i) } as Callable)
+            }
+            start.countDown()
+            return futures.findResults { future ->
+                try {
+                    future.get(30, TimeUnit.SECONDS)
+                    null
+                } catch (ExecutionException e) {
+                    e.cause
+                }
+            }
+        } finally {
+            pool.shutdownNow()
+        }
+    }
+
+    private User newUser() {
+        def name = "u" + UUID.randomUUID().toString().replace("-", "").take(12)
+        userRepository.save(new User(username: name, email: "${name}@x.com", password: "p",
+                firstName: "F", lastName: "L", role: User.Role.USER))
+    }
+
+    private List<String> reactions(Long movieId) {
+        jdbcTemplate.queryForList("SELECT reaction_type FROM movie_reaction WHERE movie_id = ?", String, movieId)
+    }
+
+    private List<Long> counts(Long movieId) {
+        def row = jdbcTemplate.queryForMap("SELECT like_count, hate_count FROM movie WHERE id = ?", movieId)
+        [row.like_count as long, row.hate_count as long]
+    }
+}
@@ -0,0 +1,90 @@
+package com.movierama.service
+
+import com.movierama.BaseSpecification
+import com.movierama.dto.MovieRegistrationDto
+import com.movierama.entity.MovieReaction
+import com.movierama.entity.User
+import com.movierama.repository.UserRepository
+import org.springframework.beans.factory.annotation.Autowired
+
+class TrendingITSpec extends BaseSpecification {
+
+    @Autowired MovieService movieService
+    @Autowired TrendingRenormalizer renormalizer
+    @Autowired UserRepository userRepository
+
+    def "a toggled-off like takes back exactly the weight it added"() {
+        given:
+        def owner = newUser()
+        def reactor = newUser()
+        def movie = movieService.createMovie(new MovieRegistrationDto(title: "Trend ${UUID.randomUUID()}"), owner)
+
+        when:
+        movieService.reactToMovie(movie.id, reactor, MovieReaction.ReactionType.LIKE)
+
+        then:
+        score(movie.id) > 0
+
+        when:
+        movieService.reactToMovie(movie.id, reactor, MovieReaction.ReactionType.LIKE)
+
+        then:
+        Math.abs(score(movie.id)) < 1e-9
+    }
+
+    def "recent reactions outrank older ones and a hate counts against"() {
+        given:
+        def owner = newUser()
+        def reactors = (1..3).collect { newUser() }
+        def old = movieService.createMovie(new MovieRegistrationDto(title: "Old ${UUID.randomUUID()}"), owner)
+        def fresh = movieService.createMovie(new MovieRegistrationDto(title: "Fresh ${UUID.randomUUID()}"), owner)
+        def hated = movieService.createMovie(new MovieRegistrationDto(title: "Hated ${UUID.randomUUID()}"), owner)
+
+        when: "two likes on the old movie are backdated by two days, one like on the fresh one is not"
+        reactors.take(2).each { movieService.reactToMovie(old.id, it, MovieReaction.ReactionType.LIKE) }
+        jdbcTemplate.update("UPDATE movie_reaction SET created_at = created_at - interval '2 days' WHERE movie_id = ?", old.id)
+        jdbcTemplate.update("UPDATE movie SET trending_score = (SELECT sum(trending_weight(reaction_type, created_at)) " +
+                "FROM movie_reaction WHERE movie_id = ?) WHERE id = ?", old.id, old.id)
+        movieService.reactToMovie(fresh.id, reactors[2], MovieReaction.ReactionType.LIKE)
+        movieService.reactToMovie(hated.id, reactors[2], MovieReaction.ReactionType.HATE)
+
+        then: "two likes decayed by two half-lives weigh half of one fresh like"
+        score(fresh.id) > score(old.id)
+        Math.abs(score(old.id) / score(fresh.id) - 0.5) < 0.01
+        score(hated.id) < 0
+    }
+
+    def "renormalizing keeps the order and the removability of weights"() {
+        given:
+        def owner = newUser()
+        def reactors = (1..2).collect { newUser() }
+        def first = movieService.createMovie(new MovieRegistrationDto(title: "First ${UUID.randomUUID()}"), owner)
+        def second = movieService.createMovie(new MovieRegistrationDto(title: "Second ${UUID.randomUUID()}"), owner)
+        reactors.each { movieService.reactToMovie(first.id, it, MovieReaction.ReactionType.LIKE) }
+        movieService.reactToMovie(second.id, reactors[0], MovieReaction.ReactionType.LIKE)
+
+        when: "the epoch is a day old when the renormalization runs"
+        jdbcTemplate.update("UPDATE trending_epoch SET epoch = epoch - interval '1 day'")
+        jdbcTemplate.update("UPDATE movie SET trending_score = trending_score * 2 WHERE trending_score <> 0")
+        renormalizer.renormalize()
+
+        then:
+        score(first.id) > score(second.id)
+
+        when: "a like made before the renormalization is taken back afterwards"
+        movieService.reactToMovie(second.id, reactors[0], MovieReaction.ReactionType.LIKE)
+
+        then:
+        Math.abs(score(second.id)) < 1e-9
+    }
+
+    private double score(Long movieId) {
+        jdbcTemplate.queryForObject("SELECT trending_score FROM movie WHERE id = ?", Double, movieId)
+    }
+
+    private User newUser() {
+        def name = "t" + UUID.randomUUID().toString().replace("-", "").take(12)
+        userRepository.save(new User(username: name, email: "${name}@x.com", password: "p",
+                firstName: "F", lastName: "L", role: User.Role.USER))
+    }
+}
@@ -0,0 +1,113 @@
+package com.movierama.sql
+
+import org.springframework.jdbc.datasource.DelegatingDataSource
+
+import javax.sql.DataSource
+import java.lang.reflect.InvocationHandler
+import java.lang.reflect.InvocationTargetException
+import java.lang.reflect.Method
+import java.lang.reflect.Proxy
+import java.sql.Connection
+import java.sql.ResultSet
+import java.sql.SQLException
+import java.sql.Statement
+
+/**
+ * Data source that reports every statement, round trip and fetched row to {@link SqlCounter}.
+ * It sits below Hibernate, so the JdbcTemplate queries (search, bulk import and export) are
+ * counted along with the JPA ones.
+ * <ul>
+ *   <li>statements: each execute, and each entry of an executed batch</li>
+ *   <li>round trips: each execute, batch execute, commit and rollback</li>
+ *   <li>rows: each successful {@code ResultSet.next()}</li>
+ * </ul>
+ */
+class CountingDataSource extends DelegatingDataSource implements Closeable {
+
+    private static final Set<String> EXECUTES = ['execute', 'executeQuery', 'executeUpdate', 'executeLargeUpdate'] as Set
+    private static final Set<String> BATCH_EXECUTES = ['executeBatch', 'executeLargeBatch'] as Set
+
+    CountingDataSource(DataSource target) {
+        super(target)
+    }
+
+    @Override
+    Connection getConnection() throws SQLException {
+        connection(super.getConnection())
+    }
+
+    @Override
+    Connection getConnection(String username, String password) throws SQLException {
+        connection(super.getConnection(username, password))
+    }
+
+    // the pool is closed through this wrapper when the context shuts down
+    @Override
+    void close() throws IOException {
+        if (targetDataSource instanceof Closeable) {
+            ((Closeable) targetDataSource).close()
+        }
+    }
+
+    private static Connection connection(Connection target) {
+        proxy(Connection, target) { Method method, Object[] args ->
+            if (method.name in ['commit', 'rollback']) {
+                SqlCounter.roundTrip()
+            }
+            def result = invoke(target, method, args)
+            Statement.isAssignableFrom(method.returnType) ? statement(method.returnType, (Statement) result) : result
+        }
+    }
+
+    private static Statement statement(Class<?> type, Statement target) {
+        int batched = 0
+        proxy(type, target) { Method method, Object[] args ->
+            if (method.name in EXECUTES) {
+                SqlCounter.executed(1)
+            } else if (method.name in BATCH_EXECUTES) {
+                SqlCounter.executed(batched)
+                batched = 0
+            } else if (method.name == 'addBatch') {
+                batched++
+            } else if (method.name == 'clearBatch') {
+                batched = 0
+            }
+            def result = invoke(target, method, args)
+            method.returnType == ResultSet ? resultSet((ResultSet) result) : result
+        }
+    }
+
+    private static ResultSet resultSet(ResultSet target) {
+        if (target == null) {
+            return null
+        }
+        proxy(ResultSet, target) { Method method, Object[] args ->
+            def result = invoke(target, method, args)
+            if (method.name == 'next' && result) {
+                SqlCounter.fetched()
+            }
+            result
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, Closure<?> handler) {
+        (T) Proxy.newProxyInstance(CountingDataSource.classLoader, [type] as Class[], { Object self, Method method, Object[] args ->
+            // identity of the proxy, not of the target, for the pools and maps it ends up in
+            if (method.name == 'equals' && method.parameterCount == 1) {
+                return self.is(args[0])
+            }
+            if (method.name == 'hashCode' && method.parameterCount == 0) {
+                return System.identityHashCode(self)
+            }
+            handler.call(method, args)
+        } as InvocationHandler)
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) {
+        try {
+            method.invoke(target, args)
+        } catch (InvocationTargetException e) {
+            throw e.cause
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.movierama.sql
+
+import com.movierama.BaseSpecification
+import com.movierama.dto.MovieRegistrationDto
+import com.movierama.entity.MovieReaction
+import com.movierama.entity.User
+import com.movierama.paging.PagingRequest
+import com.movierama.repository.UserRepository
+import com.movierama.security.jwt.JwtTokenProvider
+import com.movierama.service.MovieService
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.web.client.TestRestTemplate
+import org.springframework.core.io.ClassPathResource
+import org.springframework.http.HttpEntity
+import org.springframework.http.HttpHeaders
+import org.springframework.http.HttpStatus
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator
+import spock.lang.Shared
+
+import javax.sql.DataSource
+
+/**
+ * Statement, round trip and row budgets of the API's queries, measured at the JDBC level over
+ * the dataset of {@code sql/budget-dataset.sql}. Every measurement starts from an empty Redis,
+ * so cached pages and totals do not hide the queries. A budget that is exceeded fails the
+ * build; one that is undercut can be tightened.
+ */
+class SqlBudgetITSpec extends BaseSpecification {
+
+    @Autowired MovieService movieService
+    @Autowired UserRepository userRepository
+    @Autowired JwtTokenProvider jwtTokenProvider
+    @Autowired TestRestTemplate restTemplate
+    @Autowired DataSource dataSource
+
+    @Shared boolean seeded
+
+    private User viewer
+    private User author
+
+    def setup() {
+        if (!seeded) {
+            new ResourceDatabasePopulator(new ClassPathResource("sql/budget-dataset.sql")).execute(dataSource)
+            seeded = true
+        }
+        viewer = userRepository.findByUsername("budget_1").orElseThrow()
+        author = userRepository.findByUsername("budget_2").orElseThrow()
+        clearRedis()
+    }
+
+    private User viewerIf(boolean authenticated) {
+        authenticated ? viewer : null
+    }
+
+    def "an offset page of 50 stays within budget (#listing listing, authenticated=#authenticated)"() {
+        when:
+        def page
+        def sql = SqlCounter.measure {
+            page = listing == "catalog"
+                    ? movieService.getMoviesPageSorted(0, 50, "likeCount", "DESC", viewerIf(authenticated))
+                    : movieService.getMoviesByUserPaged(author.id, 0, 50, "likeCount", "DESC", viewerIf(authenticated))
+        }
+
+        then: "the rows, the total and the viewer's reactions; nothing per movie"
+        page.content.size() == 50
+        sql.statements <= statements
+        sql.roundTrips <= roundTrips
+        sql.rows <= rows
+
+        where:
+        listing   | authenticated || statements | roundTrips | rows
+        "catalog" | false         || 2          | 4          | 51
+        "catalog" | true          || 3          | 6          | 101
+        "user"    | false         || 2          | 4          | 51
+        "user"    | true          || 3          | 6          | 101
+    }
+
+    def "every sort order keeps an authenticated catalog page within budget (sortBy=#sortBy)"() {
+        when:
+        def sql = SqlCounter.measure { movieService.getMoviesPageSorted(0, 50, sortBy, "DESC", viewer) }
+
+        then:
+        sql.statements <= 3
+        sql.rows <= 101
+
+        where:
+        sortBy << ["id", "title", "createdAt", "likeCount", "hateCount", "trending"]
+    }
+
+    def "a cached page only costs the viewer's reactions"() {
+        given:
+        movieService.getMoviesPageSorted(0, 50, "trending", "DESC", null)
+
+        when:
+        def anonymous = SqlCounter.measure { movieService.getMoviesPageSorted(0, 50, "trending", "DESC", null) }
+        def authenticated = SqlCounter.measure { movieService.getMoviesPageSorted(0, 50, "trending", "DESC", viewer) }
+
+        then:
+        anonymous.statements == 0
+        authenticated.statements <= 1
+        authenticated.rows <= 50
+    }
+
+    def "a slice of 50 skips the total (authenticated=#authenticated)"() {
+        when:
+        def sql = SqlCounter.measure { movieService.getMoviesSlice(0, 50, "createdAt", "DESC", viewerIf(authenticated)) }
+
+        then: "one row past the page tells whether there is a next one"
+        sql.statements <= statements
+        sql.roundTrips <= roundTrips
+        sql.rows <= rows
+
+        where:
+        authenticated || statements | roundTrips | rows
+        false         || 1          | 2          | 51
+        true          || 2          | 4          | 101
+    }
+
+    def "cursor pages of 50 cost the same at any depth"() {
+        given:
+        def first = movieService.getMoviesPageByCursor(null, null, 50, "likeCount", "DESC", viewer)
+
+        when:
+        def firstPage = SqlCounter.measure { movieService.getMoviesPageByCursor(null, null, 50, "likeCount", "DESC", viewer) }
+        def nextPage = SqlCounter.measure { movieService.getMoviesPageByCursor(null, first.nextCursor, 50, "likeCount", "DESC", viewer) }
+
+        then: "the rows with their authors in one join, and the viewer's reactions"
+        [firstPage, nextPage].every { it.statements <= 2 && it.roundTrips <= 4 && it.rows <= 101 }
+    }
+
+    def "a search page of 50 stays within budget (authenticated=#authenticated)"() {
+        when:
+        def page
+        def sql = SqlCounter.measure { page = movieService.searchMovies("heist", "relevance", null, 50, viewerIf(authenticated)) }
+
+        then:
+        page.content.size() == 50
+        sql.statements <= statements
+        sql.roundTrips <= roundTrips
+        sql.rows <= rows
+
+        where:
+        authenticated || statements | roundTrips | rows
+        false         || 1          | 2          | 51
+        true          || 2          | 4          | 101
+    }
+
+    def "a reaction is one statement"() {
+        given:
+        def movieId = jdbcTemplate.queryForObject("SELECT min(id) FROM movie WHERE user_id = ?", Long, author.id)
+
+        when:
+        def sql = SqlCounter.measure { movieService.reactToMovie(movieId, viewer, MovieReaction.ReactionType.LIKE) }
+
+        then: "the react_to_movie call and the commit"
+        sql.statements <= 1
+        sql.roundTrips <= 2
+        sql.rows <= 1
+    }
+
+    def "creating a movie is at most an id block and the insert"() {
+        when:
+        def sql = SqlCounter.measure {
+            movieService.createMovie(new MovieRegistrationDto(title: "Budget new ${UUID.randomUUID()}", description: "x"), author)
+        }
+
+        then:
+        sql.statements <= 2
+        sql.roundTrips <= 3
+        sql.rows <= 1
+    }
+
+    def "POST /api/movies stays within budget over HTTP (authenticated=#authenticated)"() {
+        given:
+        def headers = new HttpHeaders()
+        if (authenticated) {
+            headers.setBearerAuth(jwtTokenProvider.generateToken(viewer))
+        }
+        def request = new HttpEntity<>(new PagingRequest(size: 50, sortBy: "likeCount", sortDirection: "DESC"), headers)
+
+        when:
+        def response
+        def sql = SqlCounter.measure { response = restTemplate.postForEntity("/api/movies", request, String) }
+
+        then: "the listing, plus the principal for an authenticated request"
+        response.statusCode == HttpStatus.OK
+        sql.statements <= statements
+        sql.roundTrips <= roundTrips
+        sql.rows <= rows
+
+        where:
+        authenticated || statements | roundTrips | rows
+        false         || 2          | 4          | 51
+        true          || 4          | 8          | 102
+    }
+}
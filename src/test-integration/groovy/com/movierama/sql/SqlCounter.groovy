@@ -0,0 +1,44 @@
+package com.movierama.sql
+
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Running totals of {@link CountingDataSource}. They are process-wide rather than per thread, so
+ * that queries run on request threads or the page loader's threads are counted too, which means
+ * background jobs that touch the database while a call is measured are counted as well.
+ */
+final class SqlCounter {
+
+    private static final AtomicLong statements = new AtomicLong()
+    private static final AtomicLong roundTrips = new AtomicLong()
+    private static final AtomicLong rows = new AtomicLong()
+
+    private SqlCounter() {
+    }
+
+    /**
+     * Runs {@code work} and returns what it asked of the database.
+     */
+    static SqlCounts measure(Closure<?> work) {
+        def before = snapshot()
+        work.call()
+        snapshot() - before
+    }
+
+    static SqlCounts snapshot() {
+        new SqlCounts(statements.get(), roundTrips.get(), rows.get())
+    }
+
+    static void executed(int count) {
+        statements.addAndGet(count)
+        roundTrips.incrementAndGet()
+    }
+
+    static void roundTrip() {
+        roundTrips.incrementAndGet()
+    }
+
+    static void fetched() {
+        rows.incrementAndGet()
+    }
+}
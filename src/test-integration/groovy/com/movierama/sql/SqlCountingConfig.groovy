@@ -0,0 +1,27 @@
+package com.movierama.sql
+
+import org.springframework.beans.factory.config.BeanPostProcessor
+import org.springframework.boot.test.context.TestConfiguration
+import org.springframework.context.annotation.Bean
+
+import javax.sql.DataSource
+
+/**
+ * Puts a {@link CountingDataSource} in front of the application's data source.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+class SqlCountingConfig {
+
+    // static, so the post processor does not need this configuration to be instantiated first
+    @Bean
+    static BeanPostProcessor countingDataSourcePostProcessor() {
+        new BeanPostProcessor() {
+            @Override
+            Object postProcessAfterInitialization(Object bean, String beanName) {
+                bean instanceof DataSource && !(bean instanceof CountingDataSource)
+                        ? new CountingDataSource((DataSource) bean)
+                        : bean
+            }
+        }
+    }
+}
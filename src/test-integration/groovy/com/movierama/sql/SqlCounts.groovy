@@ -0,0 +1,22 @@
+package com.movierama.sql
+
+import groovy.transform.EqualsAndHashCode
+import groovy.transform.ToString
+import groovy.transform.TupleConstructor
+
+/**
+ * Statements, round trips and rows counted by {@link CountingDataSource} over some span of work.
+ */
+@TupleConstructor
+@EqualsAndHashCode
+@ToString(includePackage = false, includeNames = true)
+class SqlCounts {
+
+    final long statements
+    final long roundTrips
+    final long rows
+
+    SqlCounts minus(SqlCounts earlier) {
+        new SqlCounts(statements - earlier.statements, roundTrips - earlier.roundTrips, rows - earlier.rows)
+    }
+}
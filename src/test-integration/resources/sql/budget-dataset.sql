@@ -0,0 +1,50 @@
+-- Dataset for the statement budget specs: 200 users with 50 movies each and about 100,000
+-- reactions, far more than V4__insert_dummy_data.sql, so that a query repeated per row or a
+-- fetch that grows with the table shows in the counts. Rerunning it changes nothing.
+INSERT INTO user_profile (username, email, password, first_name, last_name, role)
+SELECT 'budget_' || u, 'budget_' || u || '@example.com', 'not-a-hash', 'Budget', 'User ' || u, 'USER'
+FROM generate_series(1, 200) AS u
+ON CONFLICT DO NOTHING;
+
+INSERT INTO movie (title, description, user_id, created_at, updated_at)
+SELECT 'Budget movie ' || m,
+       'A ' || (ARRAY ['heist', 'space', 'war', 'love', 'robot'])[m % 5 + 1] || ' story, number ' || m,
+       p.id,
+       LOCALTIMESTAMP - m * INTERVAL '1 minute',
+       LOCALTIMESTAMP - m * INTERVAL '1 minute'
+FROM generate_series(1, 10000) AS m
+         JOIN user_profile p ON p.username = 'budget_' || (m % 200 + 1)
+ON CONFLICT DO NOTHING;
+
+-- Every user reacts to one movie in twenty, a third of them hates; ordinals rather than ids,
+-- which the pooled sequences space 50 apart
+WITH users AS (SELECT id, row_number() OVER (ORDER BY id) AS n
+               FROM user_profile
+               WHERE username LIKE 'budget\_%'),
+     movies AS (SELECT id, user_id, created_at, row_number() OVER (ORDER BY id) AS n
+                FROM movie
+                WHERE title LIKE 'Budget movie %')
+INSERT INTO movie_reaction (reaction_type, created_at, user_id, movie_id)
+SELECT CASE WHEN (u.n * 7 + m.n) % 3 = 0 THEN 'HATE' ELSE 'LIKE' END,
+       m.created_at + (LOCALTIMESTAMP - m.created_at) / 2,
+       u.id,
+       m.id
+FROM movies m
+         JOIN users u ON u.id <> m.user_id AND (u.n + m.n) % 20 = 0
+ON CONFLICT DO NOTHING;
+
+UPDATE movie m
+SET like_count     = c.like_count,
+    hate_count     = c.hate_count,
+    trending_score = c.score
+FROM (SELECT movie_id,
+             COUNT(*) FILTER (WHERE reaction_type = 'LIKE') AS like_count,
+             COUNT(*) FILTER (WHERE reaction_type = 'HATE') AS hate_count,
+             SUM(trending_weight(reaction_type, created_at)) AS score
+      FROM movie_reaction
+      GROUP BY movie_id) c
+WHERE c.movie_id = m.id;
+
+ANALYZE user_profile;
+ANALYZE movie;
+ANALYZE movie_reaction;
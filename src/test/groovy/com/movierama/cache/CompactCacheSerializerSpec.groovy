@@ -0,0 +1,104 @@
+package com.movierama.cache
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.dataformat.smile.SmileFactory
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule
+import com.movierama.dto.MovieDto
+import com.movierama.entity.User
+import com.movierama.paging.PagingResponse
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer
+import org.springframework.data.redis.serializer.SerializationException
+import spock.lang.Specification
+
+import java.time.LocalDateTime
+
+class CompactCacheSerializerSpec extends Specification {
+
+    ObjectMapper smileMapper = new ObjectMapper(new SmileFactory()).registerModule(new JavaTimeModule())
+
+    SmileCacheSerializer pageSerializer = new SmileCacheSerializer(smileMapper,
+            smileMapper.typeFactory.constructParametricType(PagingResponse, MovieDto))
+
+    def "typed Smile round-trips a movie page without type metadata"() {
+        given:
+        def page = page(3)
+
+        when:
+        byte[] bytes = pageSerializer.serialize(page)
+        PagingResponse<MovieDto> read = pageSerializer.deserialize(bytes)
+
+        then:
+        read == page
+        read.content[0] instanceof MovieDto
+        !new String(bytes, "ISO-8859-1").contains("@class")
+    }
+
+    def "typed Smile round-trips a user"() {
+        given:
+        def serializer = new SmileCacheSerializer(smileMapper, smileMapper.constructType(User))
+        def user = new User(id: 7L, username: "alice", firstName: "Alice", lastName: "Doe", role: User.Role.USER)
+
+        when:
+        User read = serializer.deserialize(serializer.serialize(user))
+
+        then:
+        read.id == 7L
+        read.username == "alice"
+        read.fullName == "Alice Doe"
+    }
+
+    def "values below the threshold are stored raw, larger ones compressed"() {
+        given:
+        def serializer = new Lz4CompressingSerializer(pageSerializer, 1024)
+        def small = page(1)
+        def large = page(50)
+
+        when:
+        byte[] smallBytes = serializer.serialize(small)
+        byte[] largeBytes = serializer.serialize(large)
+
+        then:
+        smallBytes[0] == (byte) 0
+        largeBytes[0] == (byte) 1
+        largeBytes.length < pageSerializer.serialize(large).length
+
+        and:
+        serializer.deserialize(smallBytes) == small
+        serializer.deserialize(largeBytes) == large
+    }
+
+    def "unknown format markers are rejected"() {
+        when:
+        new Lz4CompressingSerializer(pageSerializer, 1024).deserialize([(byte) 9, (byte) 1] as byte[])
+
+        then:
+        thrown(SerializationException)
+    }
+
+    def "the compact codec is a fraction of the default-typed JSON payload"() {
+        given:
+        def jsonMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+        jsonMapper.activateDefaultTyping(jsonMapper.polymorphicTypeValidator, ObjectMapper.DefaultTyping.NON_FINAL)
+        def json = new GenericJackson2JsonRedisSerializer(jsonMapper)
+        def compact = new Lz4CompressingSerializer(pageSerializer, 1024)
+        def page = page(20)
+
+        expect:
+        compact.serialize(page).length * 2 < json.serialize(page).length
+    }
+
+    private static PagingResponse<MovieDto> page(int movies) {
+        def response = new PagingResponse<MovieDto>()
+        response.content = (1..movies).collect { i ->
+            new MovieDto(id: (long) i, title: "Movie $i", description: "Description of movie number $i",
+                    userName: "Author ${i % 3}", userId: (long) (i % 3), createdAt: LocalDateTime.of(2024, 1, 1, 12, 0).plusDays(i),
+                    likeCount: i * 2, hateCount: i)
+        }
+        response.page = 0
+        response.size = movies
+        response.totalElements = movies
+        response.totalPages = 1
+        response.last = true
+        return response
+    }
+}
@@ -0,0 +1,61 @@
+package com.movierama.cache
+
+import com.movierama.dto.MovieDto
+import com.movierama.paging.PagingResponse
+import org.springframework.cache.concurrent.ConcurrentMapCache
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Duration
+
+class IndexingCacheSpec extends Specification {
+
+    ConcurrentMapCache delegate = new ConcurrentMapCache("moviePage")
+    MoviePageIndex index = Mock()
+
+    @Subject
+    IndexingCache cache = new IndexingCache(delegate, index, Duration.ofMinutes(10))
+
+    PagingResponse<MovieDto> page = new PagingResponse<MovieDto>(content: [new MovieDto(id: 1L), new MovieDto(id: 2L)])
+
+    def "a loaded page is recorded and kept when none of its movies changed while it loaded"() {
+        when:
+        def value = cache.get("k", { page })
+
+        then:
+        1 * index.changeSequence() >> 7L
+        1 * index.record("k", page, Duration.ofMinutes(10))
+        1 * index.changedSince(page, 7L) >> false
+
+        and:
+        value.is(page)
+        delegate.get("k").get().is(page)
+    }
+
+    def "a loaded page is evicted again when a movie changed while it loaded"() {
+        when:
+        def value = cache.get("k", { page })
+
+        then:
+        1 * index.changeSequence() >> 7L
+        1 * index.changedSince(page, 7L) >> true
+
+        and: "the caller still gets the page, the next one reloads it"
+        value.is(page)
+        delegate.get("k") == null
+    }
+
+    def "a cached page is not checked again"() {
+        given:
+        delegate.put("k", page)
+
+        when:
+        def value = cache.get("k", { throw new IllegalStateException("not called") })
+
+        then:
+        0 * index._
+
+        and:
+        value.is(page)
+    }
+}
@@ -0,0 +1,65 @@
+package com.movierama.cache
+
+import com.movierama.entity.User
+import com.movierama.paging.PagingMode
+import com.movierama.paging.PagingRequest
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Duration
+
+class ListingETagsSpec extends Specification {
+
+    MoviePageKeys keys = Mock()
+
+    @Subject
+    ListingETags eTags = new ListingETags(keys, Duration.ofSeconds(5))
+
+    def "the ETag is strong and changes only with the listing version, the request or the viewer"() {
+        given:
+        keys.listingVersion("global", "likeCount") >>> ["e:1:2:3", "e:1:2:3", "e:1:2:4", "e:1:2:3", "e:1:2:3"]
+        def request = new PagingRequest(page: 1, size: 20, sortBy: "likeCount", sortDirection: "DESC")
+
+        when:
+        def first = eTags.eTag(null, request, null)
+        def again = eTags.eTag(null, request, null)
+        def reacted = eTags.eTag(null, request, null)
+        def nextPage = eTags.eTag(null, new PagingRequest(page: 2, size: 20, sortBy: "likeCount", sortDirection: "DESC"), null)
+        def signedIn = eTags.eTag(null, request, new User(id: 4L))
+
+        then:
+        first ==~ /"[0-9a-f]{32}"/
+        again == first
+        [reacted, nextPage, signedIn].every { it != first }
+    }
+
+    def "a user listing is versioned by the author's scope"() {
+        when:
+        eTags.eTag(7L, new PagingRequest(mode: PagingMode.CURSOR, cursor: "abc", sortBy: "title"), null)
+
+        then:
+        1 * keys.listingVersion("user:7", "title") >> "e:0:0"
+    }
+
+    def "If-None-Match matches the ETag in a list, weakly or as a wildcard"() {
+        expect:
+        ListingETags.matches('"abc"', headers as String[]) == matches
+
+        where:
+        headers                  || matches
+        null                     || false
+        ['"abc"']                || true
+        ['"xyz", "abc"']         || true
+        ['W/"abc"']              || true
+        ['*']                    || true
+        ['"abcd"']               || false
+        ['"xyz"', '"abc"']       || true
+    }
+
+    def "anonymous listings are public for max-age, a viewer's are private and always revalidated"() {
+        expect:
+        eTags.cacheControl(null).headerValue == "max-age=5, public"
+        eTags.cacheControl(new User(id: 1L)).headerValue == "no-cache, private"
+        new ListingETags(keys, Duration.ZERO).cacheControl(null).headerValue == "no-cache, public"
+    }
+}
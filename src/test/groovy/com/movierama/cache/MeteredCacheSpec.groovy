@@ -0,0 +1,56 @@
+package com.movierama.cache
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.cache.concurrent.ConcurrentMapCache
+import spock.lang.Specification
+import spock.lang.Subject
+
+class MeteredCacheSpec extends Specification {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    @Subject
+    MeteredCache cache = new MeteredCache(new ConcurrentMapCache("moviePage"), meterRegistry)
+
+    def "lookups are timed as hits or misses per cache"() {
+        when:
+        cache.get("a")
+        cache.put("a", "page")
+        cache.get("a")
+        cache.get("a", String)
+
+        then:
+        gets("miss") == 1
+        gets("hit") == 2
+        meterRegistry.get("cache.puts").tag("cache", "moviePage").counter().count() == 1
+    }
+
+    def "a lookup that runs the loader is a miss, later ones are hits"() {
+        when:
+        def first = cache.get("b", { "loaded" })
+        def second = cache.get("b", { throw new IllegalStateException("not called") })
+
+        then:
+        first == "loaded"
+        second == "loaded"
+        gets("miss") == 1
+        gets("hit") == 1
+    }
+
+    def "evictions and clears are counted"() {
+        given:
+        cache.put("a", "page")
+
+        when:
+        cache.evict("a")
+        cache.evictIfPresent("missing")
+        cache.clear()
+
+        then:
+        meterRegistry.get("cache.evictions").tag("cache", "moviePage").counter().count() == 2
+    }
+
+    private long gets(String result) {
+        meterRegistry.get("cache.gets").tags("cache", "moviePage", "result", result).timer().count()
+    }
+}
@@ -0,0 +1,90 @@
+package com.movierama.cache
+
+import com.movierama.repository.MovieRepository
+import org.springframework.data.redis.core.StringRedisTemplate
+import org.springframework.data.redis.core.ValueOperations
+import org.springframework.data.redis.core.script.RedisScript
+import spock.lang.Specification
+
+import java.time.Duration
+
+class MovieCountsSpec extends Specification {
+
+    ValueOperations<String, String> valueOps = Mock()
+    StringRedisTemplate redisTemplate = Mock() {
+        opsForValue() >> valueOps
+    }
+    MovieRepository movieRepository = Mock()
+
+    MovieCounts counts = new MovieCounts(redisTemplate, movieRepository, Duration.ofMinutes(10), 0)
+
+    def "a stored total is served without counting"() {
+        when:
+        def total = counts.countByUser(7L)
+
+        then:
+        1 * valueOps.get("movieCount:user:7") >> "42"
+        0 * movieRepository._
+
+        and:
+        total == 42L
+    }
+
+    def "a missing total is counted once and stored with the ttl"() {
+        when:
+        def total = counts.countAll()
+
+        then:
+        1 * valueOps.get("movieCount:global") >> null
+        1 * movieRepository.count() >> 1_000L
+        1 * valueOps.setIfAbsent("movieCount:global", "1000", Duration.ofMinutes(10)) >> true
+
+        and:
+        total == 1_000L
+    }
+
+    def "a total stored by a concurrent request wins"() {
+        when:
+        def total = counts.countByUser(7L)
+
+        then:
+        1 * valueOps.get("movieCount:user:7") >> null
+        1 * movieRepository.countByUserId(7L) >> 3L
+        1 * valueOps.setIfAbsent("movieCount:user:7", "3", _) >> false
+        1 * valueOps.get("movieCount:user:7") >> "4"
+
+        and:
+        total == 4L
+    }
+
+    def "a large catalog is estimated instead of counted"() {
+        given:
+        def estimating = new MovieCounts(redisTemplate, movieRepository, Duration.ofMinutes(10), 1_000_000)
+
+        when:
+        def total = estimating.countAll()
+
+        then:
+        1 * valueOps.get("movieCount:global") >> null
+        1 * movieRepository.estimateCount() >> estimate
+        counted * movieRepository.count() >> 5L
+        1 * valueOps.setIfAbsent("movieCount:global", _, _) >> true
+
+        and:
+        total == expected
+
+        where:
+        estimate   | counted | expected
+        12_000_000 | 0       | 12_000_000L
+        900_000    | 1       | 5L
+        -1         | 1       | 5L
+    }
+
+    def "added movies adjust only a stored total"() {
+        when:
+        counts.added("user:7", 3)
+
+        then:
+        1 * redisTemplate.execute(_ as RedisScript, ["movieCount:user:7"], "3")
+    }
+}
@@ -0,0 +1,97 @@
+package com.movierama.cache
+
+import org.springframework.cache.Cache
+import org.springframework.cache.CacheManager
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import spock.lang.Specification
+import spock.lang.Subject
+
+class MoviePageInvalidatorSpec extends Specification {
+
+    MoviePageKeys keys = Mock()
+    MoviePageIndex index = Mock()
+    Cache cache = Mock()
+    CacheManager cacheManager = Mock() {
+        getCache("moviePage") >> cache
+    }
+    MovieCounts counts = Mock()
+
+    @Subject
+    MoviePageInvalidator invalidator = new MoviePageInvalidator(keys, index, cacheManager, counts)
+
+    def cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization()
+        }
+    }
+
+    def "movieCreated bumps the global and author scopes and their totals"() {
+        when:
+        invalidator.movieCreated(5L)
+
+        then:
+        1 * keys.bumpScope("global")
+        1 * keys.bumpScope("user:5")
+        1 * counts.added("global", 1)
+        1 * counts.added("user:5", 1)
+        0 * _
+    }
+
+    def "moviesCreated adds the whole batch to the totals"() {
+        when:
+        invalidator.moviesCreated(5L, 40)
+
+        then:
+        1 * keys.bumpScope("global")
+        1 * keys.bumpScope("user:5")
+        1 * counts.added("global", 40)
+        1 * counts.added("user:5", 40)
+    }
+
+    def "a like evicts the pages showing the movie and bumps only the likeCount, trending and reaction generations"() {
+        when:
+        invalidator.reactionChanged(10L, 1L, 0L)
+
+        then:
+        1 * keys.bumpOrder("likeCount")
+        1 * keys.bumpOrder("trending")
+        1 * keys.bumpReactions()
+        1 * index.markChanged(10L)
+
+        then: "the movie is stamped before its pages are looked up"
+        1 * index.removePagesContaining(10L) >> (["global:g1_0_10_title_ASC", "user:2:g0_0_10_id_ASC"] as Set)
+        1 * cache.evict("global:g1_0_10_title_ASC")
+        1 * cache.evict("user:2:g0_0_10_id_ASC")
+        0 * keys.bumpOrder("hateCount")
+        0 * keys.bumpScope(_)
+    }
+
+    def "switching a like to a hate bumps both count orders"() {
+        when:
+        invalidator.reactionChanged(10L, -1L, 1L)
+
+        then:
+        1 * keys.bumpOrder("likeCount")
+        1 * keys.bumpOrder("hateCount")
+        1 * index.removePagesContaining(10L) >> ([] as Set)
+    }
+
+    def "changes wait for the transaction to commit"() {
+        given:
+        TransactionSynchronizationManager.initSynchronization()
+
+        when:
+        invalidator.movieCreated(5L)
+
+        then:
+        0 * keys._
+        0 * counts._
+
+        when:
+        TransactionSynchronizationManager.synchronizations*.afterCommit()
+
+        then:
+        1 * keys.bumpScope("global")
+        1 * keys.bumpScope("user:5")
+    }
+}
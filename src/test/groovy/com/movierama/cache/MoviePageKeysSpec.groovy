@@ -0,0 +1,143 @@
+package com.movierama.cache
+
+import org.springframework.data.redis.core.StringRedisTemplate
+import org.springframework.data.redis.core.ValueOperations
+import spock.lang.Specification
+import spock.lang.Subject
+
+class MoviePageKeysSpec extends Specification {
+
+    ValueOperations<String, String> valueOps = Mock()
+    StringRedisTemplate redisTemplate = Mock() {
+        opsForValue() >> valueOps
+    }
+
+    NearCacheInvalidationBus invalidationBus = Mock()
+
+    @Subject
+    MoviePageKeys keys = new MoviePageKeys(redisTemplate, invalidationBus)
+
+    def "page key carries only the scope generation for non-count orders"() {
+        when:
+        def key = keys.page(2, 20, "title", "ASC")
+
+        then:
+        1 * valueOps.multiGet(["moviePage:gen:global"]) >> ["4"]
+
+        and:
+        key == "global:g4_2_20_title_ASC"
+    }
+
+    def "count orders also carry the order generation, missing counters read as 0"() {
+        when:
+        def key = keys.userPage(7L, 0, 10, "likeCount", "DESC")
+
+        then:
+        1 * valueOps.multiGet(["moviePage:gen:user:7", "moviePage:gen:order:likeCount"]) >> [null, "12"]
+
+        and:
+        key == "user:7:g0:o12_0_10_likeCount_DESC"
+    }
+
+    def "generations are read from Redis once and then served locally"() {
+        when:
+        def first = keys.page(0, 10, "likeCount", "DESC")
+        def second = keys.page(3, 10, "likeCount", "ASC")
+        def slice = keys.page(0, 10, "title", "ASC")
+
+        then:
+        1 * valueOps.multiGet(["moviePage:gen:global", "moviePage:gen:order:likeCount"]) >> ["4", null]
+        0 * valueOps._
+
+        and:
+        first == "global:g4:o0_0_10_likeCount_DESC"
+        second == "global:g4:o0_3_10_likeCount_ASC"
+        slice == "global:g4_0_10_title_ASC"
+    }
+
+    def "a bump stores the new generation locally and drops it on the other nodes"() {
+        given:
+        valueOps.multiGet(["moviePage:gen:global"]) >> ["4"]
+        keys.page(0, 10, "title", "ASC")
+
+        when:
+        keys.bumpScope("global")
+        def key = keys.page(0, 10, "title", "ASC")
+
+        then:
+        1 * valueOps.increment("moviePage:gen:global") >> 5L
+        1 * invalidationBus.publishEvict("moviePage:gen", "moviePage:gen:global")
+        0 * valueOps.multiGet(_)
+
+        and:
+        key == "global:g5_0_10_title_ASC"
+    }
+
+    def "a bump on another node makes the next key read the generation again"() {
+        given:
+        valueOps.multiGet(["moviePage:gen:global"]) >> ["5"]
+        keys.page(0, 10, "title", "ASC")
+
+        when:
+        keys.evictLocal("moviePage:gen:global")
+        def key = keys.page(0, 10, "title", "ASC")
+
+        then:
+        1 * valueOps.multiGet(["moviePage:gen:global"]) >> ["6"]
+
+        and:
+        key == "global:g6_0_10_title_ASC"
+    }
+
+    def "the keys register with the invalidation bus"() {
+        when:
+        new MoviePageKeys(redisTemplate, invalidationBus)
+
+        then:
+        1 * invalidationBus.register({ it.name == "moviePage:gen" })
+    }
+
+    def "bumps increment the matching counters"() {
+        when:
+        keys.bumpScope(MoviePageKeys.userScope(3L))
+        keys.bumpOrder("hateCount")
+
+        then:
+        1 * valueOps.increment("moviePage:gen:user:3")
+        1 * valueOps.increment("moviePage:gen:order:hateCount")
+    }
+
+    def "a listing version reads the epoch, the page generations and the reaction generation at once"() {
+        when:
+        def version = keys.listingVersion("user:7", "trending")
+
+        then:
+        1 * valueOps.multiGet(["moviePage:gen:epoch", "moviePage:gen:user:7", "moviePage:gen:order:trending",
+                               "moviePage:gen:reactions"]) >> ["e1", "3", null, "41"]
+        0 * valueOps.setIfAbsent(*_)
+
+        and:
+        version == "e1:3:0:41"
+    }
+
+    def "the first listing version creates the epoch, keeping one stored concurrently"() {
+        when:
+        def version = keys.listingVersion("global", "title")
+
+        then:
+        1 * valueOps.multiGet(["moviePage:gen:epoch", "moviePage:gen:global", "moviePage:gen:reactions"]) >> [null, null, null]
+        1 * valueOps.setIfAbsent("moviePage:gen:epoch", _ as String) >> false
+        1 * valueOps.get("moviePage:gen:epoch") >> "other"
+
+        and:
+        version == "other:0:0"
+    }
+
+    def "bumpReactions increments the reaction generation"() {
+        when:
+        keys.bumpReactions()
+
+        then:
+        1 * valueOps.increment("moviePage:gen:reactions")
+    }
+}
@@ -0,0 +1,85 @@
+package com.movierama.cache
+
+import org.springframework.data.redis.connection.DefaultMessage
+import org.springframework.data.redis.core.StringRedisTemplate
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+class NearCacheInvalidationBusSpec extends Specification {
+
+    StringRedisTemplate redisTemplate = Mock()
+
+    NearCacheInvalidationBus publisher = new NearCacheInvalidationBus(redisTemplate)
+    NearCacheInvalidationBus receiver = new NearCacheInvalidationBus(Mock(StringRedisTemplate))
+
+    TwoLevelCache publisherCache = Mock() {
+        getName() >> "moviePage"
+    }
+    TwoLevelCache receiverCache = Mock() {
+        getName() >> "moviePage"
+    }
+
+    def setup() {
+        publisher.register(publisherCache)
+        receiver.register(receiverCache)
+    }
+
+    def "an eviction published by one node drops the L1 entry on the others"() {
+        given:
+        String payload = null
+
+        when:
+        publisher.publishEvict("moviePage", "global:g3_0_10_title_ASC")
+
+        then:
+        1 * redisTemplate.convertAndSend(NearCacheInvalidationBus.CHANNEL, _) >> { String channel, String body ->
+            payload = body
+            1L
+        }
+
+        when:
+        receiver.onMessage(message(payload), null)
+
+        then:
+        1 * receiverCache.evictLocal("global:g3_0_10_title_ASC")
+        0 * receiverCache.clearLocal()
+    }
+
+    def "a clear without a key clears the whole L1 cache"() {
+        given:
+        String payload = null
+        redisTemplate.convertAndSend(NearCacheInvalidationBus.CHANNEL, _) >> { String channel, String body ->
+            payload = body
+            1L
+        }
+        publisher.publishClear("moviePage")
+
+        when:
+        receiver.onMessage(message(payload), null)
+
+        then:
+        1 * receiverCache.clearLocal()
+    }
+
+    def "a node ignores its own messages"() {
+        given:
+        String payload = null
+        redisTemplate.convertAndSend(NearCacheInvalidationBus.CHANNEL, _) >> { String channel, String body ->
+            payload = body
+            1L
+        }
+        publisher.publishEvict("moviePage", "k")
+
+        when:
+        publisher.onMessage(message(payload), null)
+
+        then:
+        0 * publisherCache._
+    }
+
+    private static DefaultMessage message(String body) {
+        new DefaultMessage(NearCacheInvalidationBus.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8))
+    }
+}
@@ -0,0 +1,158 @@
+package com.movierama.cache
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.cache.Cache
+import org.springframework.cache.concurrent.ConcurrentMapCache
+import org.springframework.data.redis.core.StringRedisTemplate
+import org.springframework.data.redis.core.ValueOperations
+import org.springframework.data.redis.core.script.RedisScript
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Duration
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+
+class SingleFlightCacheSpec extends Specification {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    ConcurrentMapCache delegate = new ConcurrentMapCache("moviePage")
+
+    @Subject
+    SingleFlightCache cache = new SingleFlightCache(delegate, null, Duration.ofSeconds(5), meterRegistry)
+
+    def "loads of missing keys are counted, cache hits are not"() {
+        given:
+        delegate.put("cached", "page")
+
+        expect:
+        cache.get("cached", { throw new IllegalStateException("not called") }) == "page"
+        cache.get("p", { "page" }) == "page"
+        delegate.get("p").get() == "page"
+        loads() == 1
+    }
+
+    def "a failed load reaches the caller and the next call loads again"() {
+        when:
+        cache.get("p", { throw new IllegalStateException("db down") })
+
+        then:
+        def e = thrown(Cache.ValueRetrievalException)
+        e.cause.message == "db down"
+
+        and:
+        cache.get("p", { "page" }) == "page"
+        loads() == 2
+    }
+
+    def "an eviction does not wait for a load in progress"() {
+        given:
+        def loading = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def evicting = new SingleFlightCache(new LoaderRunningCache(), null, Duration.ofSeconds(5), meterRegistry)
+
+        when:
+        def leader = Thread.start {
+            evicting.get("p", { loading.countDown(); release.await(); "old" })
+        }
+        loading.await()
+        evicting.evict("p")
+        def fresh = evicting.get("p", { "new" })
+        release.countDown()
+        leader.join()
+
+        then:
+        fresh == "new"
+        loads() == 2
+    }
+
+    def "across nodes, the node that takes the load lock loads and releases it"() {
+        given:
+        ValueOperations<String, String> valueOps = Mock()
+        StringRedisTemplate redisTemplate = Mock() {
+            opsForValue() >> valueOps
+        }
+        def distributed = new SingleFlightCache(delegate, redisTemplate, Duration.ofSeconds(5), meterRegistry)
+
+        when:
+        def value = distributed.get("p", { "page" })
+
+        then:
+        1 * valueOps.setIfAbsent("cacheLoad:moviePage::p", _ as String, Duration.ofSeconds(5)) >> true
+        1 * redisTemplate.execute(_ as RedisScript, ["cacheLoad:moviePage::p"], _ as String)
+
+        and:
+        value == "page"
+        delegate.get("p").get() == "page"
+        loads() == 1
+    }
+
+    def "across nodes, a node that finds the lock taken waits for the other node's value"() {
+        given:
+        ValueOperations<String, String> valueOps = Mock()
+        StringRedisTemplate redisTemplate = Mock() {
+            opsForValue() >> valueOps
+        }
+        def distributed = new SingleFlightCache(delegate, redisTemplate, Duration.ofSeconds(5), meterRegistry)
+
+        when:
+        def value = distributed.get("p", { throw new IllegalStateException("not called") })
+
+        then:
+        1 * valueOps.setIfAbsent("cacheLoad:moviePage::p", _, _) >> false
+        1 * redisTemplate.hasKey("cacheLoad:moviePage::p") >> {
+            // the other node stores the page while this one polls
+            this.delegate.put("p", "remote page")
+            true
+        }
+
+        and:
+        value == "remote page"
+        loads() == 0
+        coalesced() == 1
+    }
+
+    def "across nodes, a node loads itself when the lock is released without a value"() {
+        given:
+        ValueOperations<String, String> valueOps = Mock()
+        StringRedisTemplate redisTemplate = Mock() {
+            opsForValue() >> valueOps
+        }
+        def distributed = new SingleFlightCache(delegate, redisTemplate, Duration.ofSeconds(5), meterRegistry)
+
+        when:
+        def value = distributed.get("p", { "page" })
+
+        then:
+        1 * valueOps.setIfAbsent("cacheLoad:moviePage::p", _, _) >> false
+        1 * redisTemplate.hasKey("cacheLoad:moviePage::p") >> false
+
+        and:
+        value == "page"
+        loads() == 1
+        coalesced() == 0
+    }
+
+    private double loads() {
+        meterRegistry.get("cache.loads").tag("cache", "moviePage").counter().count()
+    }
+
+    private double coalesced() {
+        meterRegistry.get("cache.loads.coalesced").tags("cache", "moviePage", "source", "remote").counter().count()
+    }
+
+    /**
+     * Runs every loader it is given, on the caller's thread, without any locking.
+     */
+    private static class LoaderRunningCache extends ConcurrentMapCache {
+
+        LoaderRunningCache() {
+            super("moviePage")
+        }
+
+        @Override
+        <T> T get(Object key, Callable<T> valueLoader) {
+            valueLoader.call()
+        }
+    }
+}
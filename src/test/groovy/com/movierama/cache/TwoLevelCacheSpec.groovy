@@ -0,0 +1,181 @@
+package com.movierama.cache
+
+import com.github.benmanes.caffeine.cache.Caffeine
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.cache.Cache
+import org.springframework.cache.support.SimpleValueWrapper
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.util.concurrent.CountDownLatch
+import java.util.function.UnaryOperator
+
+class TwoLevelCacheSpec extends Specification {
+
+    Cache remote = Mock() {
+        getName() >> "users"
+    }
+    NearCacheInvalidationBus invalidationBus = Mock()
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    @Subject
+    TwoLevelCache cache = new TwoLevelCache(remote, Caffeine.newBuilder().maximumSize(10).buildAsync(),
+            UnaryOperator.identity(), invalidationBus, meterRegistry)
+
+    def "an L2 hit is copied into L1 and later reads stay in process"() {
+        when:
+        def first = cache.get("alice")
+        def second = cache.get("alice")
+
+        then:
+        1 * remote.get("alice") >> new SimpleValueWrapper("user-alice")
+
+        and:
+        first.get() == "user-alice"
+        second.get() == "user-alice"
+        count("l1", "hit") == 1
+        count("l1", "miss") == 1
+        count("l2", "hit") == 1
+        count("l2", "miss") == 0
+    }
+
+    def "a miss on both levels loads once and stores in both"() {
+        when:
+        def loaded = cache.get(5L, { "user-5" })
+        def cached = cache.get("5", String)
+
+        then:
+        1 * remote.get(5L) >> null
+        1 * remote.put(5L, "user-5")
+        0 * remote.get("5")
+
+        and:
+        loaded == "user-5"
+        cached == "user-5"
+        count("l2", "miss") == 1
+    }
+
+    def "a caller that waits for another caller's load is counted as coalesced"() {
+        given:
+        def loading = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        remote.get(_) >> null
+
+        when:
+        def leader = Thread.start {
+            cache.get("k", { loading.countDown(); release.await(); "page" })
+        }
+        loading.await()
+        def follower
+        def waiting = Thread.start { follower = cache.get("k", { throw new IllegalStateException("not called") }) }
+        while (coalesced() == 0) {
+            Thread.sleep(5)
+        }
+        release.countDown()
+        [leader, waiting]*.join()
+
+        then:
+        follower == "page"
+        coalesced() == 1
+
+        and: "a caller served from L1 afterwards is a hit, not coalesced"
+        cache.get("k", { throw new IllegalStateException("not called") }) == "page"
+        coalesced() == 1
+    }
+
+    def "concurrent misses wait for one load, and an eviction does not wait for it"() {
+        given:
+        def loading = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def loads = 0
+        remote.get(_) >> null
+
+        when:
+        def leader = Thread.start {
+            cache.get("k", { loads++; loading.countDown(); release.await(); "page" })
+        }
+        loading.await()
+        def follower
+        def waiting = Thread.start { follower = cache.get("k", { loads++; "again" }) }
+        cache.evict("k")
+
+        then: "the eviction returned while the load is still running"
+        leader.alive
+
+        when:
+        release.countDown()
+        [leader, waiting]*.join()
+
+        then:
+        loads in [1, 2]
+        follower in ["page", "again"]
+    }
+
+    def "values stored by this node enter L1 as the local copy"() {
+        given:
+        def copying = new TwoLevelCache(remote, Caffeine.newBuilder().maximumSize(10).buildAsync(),
+                { it + " (copy)" } as UnaryOperator, invalidationBus, meterRegistry)
+
+        when:
+        copying.put("alice", "user-alice")
+        def loaded = copying.get("bob", { "user-bob" })
+
+        then:
+        1 * remote.put("alice", "user-alice")
+        1 * remote.put("bob", "user-bob")
+        1 * remote.get("bob") >> null
+
+        and:
+        copying.get("alice").get() == "user-alice (copy)"
+        loaded == "user-bob (copy)"
+        copying.get("bob").get() == "user-bob (copy)"
+    }
+
+    def "evict drops both levels and broadcasts the key"() {
+        given:
+        cache.put("alice", "user-alice")
+
+        when:
+        cache.evict("alice")
+        def after = cache.get("alice")
+
+        then:
+        1 * remote.evict("alice")
+        1 * invalidationBus.publishEvict("users", "alice")
+        1 * remote.get("alice") >> null
+
+        and:
+        after == null
+    }
+
+    def "remote invalidations only touch L1"() {
+        given:
+        cache.put("alice", "user-alice")
+        cache.put("bob", "user-bob")
+
+        when:
+        cache.evictLocal("alice")
+
+        then:
+        0 * remote.evict(_)
+        0 * invalidationBus._
+
+        when:
+        cache.clearLocal()
+        cache.get("bob")
+
+        then:
+        1 * remote.get("bob") >> null
+    }
+
+    private double coalesced() {
+        meterRegistry.get("cache.loads.coalesced").tags("cache", "users", "source", "local").counter().count()
+    }
+
+    private double count(String level, String result) {
+        meterRegistry.get("cache.level.gets")
+                .tags("cache", "users", "level", level, "result", result)
+                .counter()
+                .count()
+    }
+}
@@ -1,16 +1,32 @@
 package com.movierama.controller
 
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.movierama.cache.ListingETags
 import com.movierama.dto.MovieDto
+import com.movierama.dto.MovieImportSummary
 import com.movierama.dto.MovieRegistrationDto
+import com.movierama.dto.MovieSuggestionDto
 import com.movierama.entity.Movie
 import com.movierama.entity.MovieReaction
 import com.movierama.entity.User
+import com.movierama.exception.TooManyExportsException
 import com.movierama.mapper.MovieMapper
+import com.movierama.paging.PagingMode
 import com.movierama.paging.PagingRequest
 import com.movierama.paging.PagingResponse
 import com.movierama.repository.MovieRepository
+import com.movierama.service.MovieExportService
+import com.movierama.service.MovieFileFormat
+import com.movierama.service.MovieImportService
 import com.movierama.service.MovieService
+import com.movierama.service.ReactionWriteBehind
+import com.movierama.service.TitleAutocomplete
+import org.springframework.http.CacheControl
 import org.springframework.http.ResponseEntity
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.web.context.request.ServletWebRequest
 import spock.lang.Specification
 
 class MovieControllerSpec extends Specification {
@@ -18,11 +34,20 @@ class MovieControllerSpec extends Specification {
     MovieService movieService = Mock()
     MovieMapper movieMapper = Mock()
     MovieRepository movieRepository = Mock()
+    ReactionWriteBehind reactionWriteBehind = Mock()
+    MovieImportService movieImportService = Mock()
+    MovieExportService movieExportService = Mock()
+    TitleAutocomplete titleAutocomplete = Mock()
+    ListingETags listingETags = Mock() {
+        cacheControl(null) >> CacheControl.maxAge(java.time.Duration.ofSeconds(5)).cachePublic()
+        cacheControl(_ as User) >> CacheControl.noCache().cachePrivate()
+    }
 
     MovieController controller
 
     def setup() {
-        controller = new MovieController(movieService, movieMapper, movieRepository)
+        controller = new MovieController(movieService, movieMapper, movieRepository, reactionWriteBehind, movieImportService,
+                movieExportService, titleAutocomplete, listingETags)
     }
 
     def "listMovies delegates to service and returns 200 with body"() {
@@ -41,6 +66,61 @@ class MovieControllerSpec extends Specification {
         resp.body == page
     }
 
+    def "listMovies delegates to the cursor listing in CURSOR mode"() {
+        given:
+        def req = new PagingRequest(mode: PagingMode.CURSOR, cursor: "abc", size: 20, sortBy: "likeCount", sortDirection: "DESC")
+        def page = new PagingResponse<MovieDto>(content: [], nextCursor: "def")
+
+        when:
+        def resp = controller.listMovies(req, null)
+
+        then:
+        1 * movieService.getMoviesPageByCursor(null, "abc", 20, "likeCount", "DESC", null) >> page
+        0 * movieService.getMoviesPageSorted(*_)
+        resp.body == page
+    }
+
+    def "listMoviesByUser delegates to the slice listing in SLICE mode"() {
+        given:
+        def req = new PagingRequest(mode: PagingMode.SLICE, page: 3, size: 20, sortBy: "title", sortDirection: "ASC")
+        def page = new PagingResponse<MovieDto>(content: [], page: 3, last: true)
+
+        when:
+        def resp = controller.listMoviesByUser(7L, req, null)
+
+        then:
+        1 * movieService.getMoviesByUserSlice(7L, 3, 20, "title", "ASC", null) >> page
+        0 * movieService.getMoviesByUserPaged(*_)
+        resp.body == page
+    }
+
+    def "searchMovies delegates to the service with the viewer"() {
+        given:
+        def user = new User(id: 10L, username: "alice")
+        def page = new PagingResponse<MovieDto>(content: [new MovieDto(id: 1L, title: "Alien")], nextCursor: "abc")
+
+        when:
+        def resp = controller.searchMovies("alien", "likeCount", "xyz", 20, user)
+
+        then:
+        1 * movieService.searchMovies("alien", "likeCount", "xyz", 20, user) >> page
+        resp.statusCode.value() == 200
+        resp.body == page
+    }
+
+    def "suggestTitles returns the autocomplete suggestions"() {
+        given:
+        def suggestions = [new MovieSuggestionDto(1L, "Alien", 7L)]
+
+        when:
+        def resp = controller.suggestTitles("ali", 5)
+
+        then:
+        1 * titleAutocomplete.suggest("ali", 5) >> suggestions
+        resp.statusCode.value() == 200
+        resp.body == suggestions
+    }
+
     def "createMovie throws when duplicate title exists (case-insensitive)"() {
         given:
         def user = new User(id: 10L, username: "alice")
@@ -84,6 +164,66 @@ class MovieControllerSpec extends Specification {
         resp.body == pageResp
     }
 
+    def "GET listings answer a matching If-None-Match with 304 without loading the page"() {
+        given:
+        def req = new PagingRequest(page: 0, size: 10, sortBy: "likeCount", sortDirection: "DESC")
+        def webRequest = new ServletWebRequest(new MockHttpServletRequest("GET", "/api/movies").tap {
+            addHeader("If-None-Match", '"v1"')
+        })
+
+        when:
+        def resp = controller.getMovies(req, null, webRequest)
+
+        then:
+        1 * listingETags.eTag(null, req, null) >> '"v1"'
+        0 * movieService._
+        resp.statusCode.value() == 304
+        resp.headers.getETag() == '"v1"'
+        resp.headers.getCacheControl() == "max-age=5, public"
+        resp.headers.getVary() == ["Authorization"]
+        resp.body == null
+    }
+
+    def "GET listings return the page with its ETag when it changed"() {
+        given:
+        def req = new PagingRequest(mode: PagingMode.SLICE, page: 1, size: 10, sortBy: "title", sortDirection: "ASC")
+        def user = new User(id: 10L, username: "alice")
+        def page = new PagingResponse<MovieDto>(content: [new MovieDto(id: 1L)], page: 1, last: true)
+        def webRequest = new ServletWebRequest(new MockHttpServletRequest("GET", "/api/movies/user/7").tap {
+            addHeader("If-None-Match", '"old"')
+        })
+
+        when:
+        def resp = controller.getMoviesByUser(7L, req, user, webRequest)
+
+        then:
+        1 * reactionWriteBehind.isEnabled() >> false
+        1 * listingETags.eTag(7L, req, user) >> '"new"'
+        1 * movieService.getMoviesByUserSlice(7L, 1, 10, "title", "ASC", user) >> page
+        resp.statusCode.value() == 200
+        resp.headers.getETag() == '"new"'
+        resp.headers.getCacheControl() == "no-cache, private"
+        resp.body == page
+    }
+
+    def "a viewer gets no ETag while reactions are buffered by the write-behind"() {
+        given:
+        def req = new PagingRequest()
+        def user = new User(id: 10L, username: "alice")
+        def page = new PagingResponse<MovieDto>(content: [])
+
+        when:
+        def resp = controller.getMovies(req, user, new ServletWebRequest(new MockHttpServletRequest("GET", "/api/movies")))
+
+        then:
+        1 * reactionWriteBehind.isEnabled() >> true
+        0 * listingETags.eTag(*_)
+        1 * movieService.getMoviesPageSorted(0, 10, "id", "DESC", user) >> page
+        resp.statusCode.value() == 200
+        resp.headers.getETag() == null
+        resp.body == page
+    }
+
     def "reactToMovie returns 401 when not authenticated"() {
         when:
         def resp = controller.reactToMovie(5L, "LIKE", null)
@@ -99,8 +239,83 @@ class MovieControllerSpec extends Specification {
         when:
         def resp = controller.reactToMovie(5L, "like", user)
         then:
+        1 * reactionWriteBehind.isEnabled() >> false
         1 * movieService.reactToMovie(5L, user, MovieReaction.ReactionType.LIKE)
         resp.statusCode.value() == 200
         resp.body == [message: "Reaction updated successfully"]
     }
+
+    def "reactToMovie hands the reaction to the write-behind buffer when it is enabled"() {
+        given:
+        def user = new User(id: 42L, username: "bob")
+        when:
+        def resp = controller.reactToMovie(5L, "hate", user)
+        then:
+        1 * reactionWriteBehind.isEnabled() >> true
+        1 * reactionWriteBehind.submit(5L, user, MovieReaction.ReactionType.HATE)
+        0 * movieService._
+        resp.statusCode.value() == 200
+    }
+
+    def "importMovies picks the format from the content type and returns the summary"() {
+        given:
+        def user = new User(id: 42L, username: "bob")
+        def body = new ByteArrayInputStream(new byte[0])
+        def summary = new MovieImportSummary(received: 3, imported: 3)
+
+        when:
+        def resp = controller.importMovies(contentType, body, user)
+
+        then:
+        1 * movieImportService.importMovies(body, format, user) >> summary
+        resp.statusCode.value() == 200
+        resp.body.is(summary)
+
+        where:
+        contentType               | format
+        "text/csv; charset=UTF-8" | MovieFileFormat.CSV
+        "application/x-ndjson"    | MovieFileFormat.NDJSON
+    }
+
+    def "exportMovies streams the requested format in a reserved slot and releases it at the end"() {
+        given:
+        def out = new ByteArrayOutputStream()
+        def slots = new MovieExportService(Stub(JdbcTemplate), Stub(PlatformTransactionManager), new ObjectMapper(), 1)
+        def slot = slots.reserveSlot()
+
+        when:
+        def resp = controller.exportMovies("csv")
+        resp.body.writeTo(out)
+
+        then:
+        1 * movieExportService.reserveSlot() >> slot
+        1 * movieExportService.export(MovieFileFormat.CSV, out)
+
+        and:
+        resp.statusCode.value() == 200
+        resp.headers.getContentType().toString() == "text/csv"
+        resp.headers.getFirst("Content-Disposition") == "attachment; filename=movies.csv"
+
+        and: "the slot is free again"
+        slots.reserveSlot() != null
+    }
+
+    def "exportMovies is refused before streaming when every slot is taken"() {
+        when:
+        controller.exportMovies("ndjson")
+
+        then:
+        1 * movieExportService.reserveSlot() >> { throw new TooManyExportsException() }
+        0 * movieExportService.export(_, _)
+        thrown(TooManyExportsException)
+    }
+
+    def "exportMovies rejects unknown formats"() {
+        when:
+        controller.exportMovies("xml")
+
+        then:
+        thrown(IllegalArgumentException)
+        0 * movieExportService._
+    }
 }
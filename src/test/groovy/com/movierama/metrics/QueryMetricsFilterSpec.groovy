@@ -0,0 +1,57 @@
+package com.movierama.metrics
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import jakarta.servlet.FilterChain
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import org.springframework.web.servlet.HandlerMapping
+import spock.lang.Specification
+import spock.lang.Subject
+
+class QueryMetricsFilterSpec extends Specification {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    @Subject
+    QueryMetricsFilter filter = new QueryMetricsFilter(meterRegistry)
+
+    def "a request's statements, loads and fetches are recorded under its route template"() {
+        given:
+        def request = new MockHttpServletRequest("POST", "/api/movies/user/7")
+        FilterChain chain = { req, res ->
+            3.times { QueryTally.statementPrepared() }
+            QueryTally.entityLoaded()
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/movies/user/{userId}")
+        }
+
+        when:
+        filter.doFilter(request, new MockHttpServletResponse(), chain)
+
+        then:
+        summary("movierama.request.statements").totalAmount() == 3
+        summary("movierama.request.entity.loads").totalAmount() == 1
+        summary("movierama.request.collection.fetches").totalAmount() == 0
+
+        and: "nothing is tallied once the request is over"
+        QueryTally.current() == null
+    }
+
+    def "helper threads count into the tally they are handed"() {
+        given:
+        def tally = QueryTally.start()
+
+        when:
+        Thread.start { QueryTally.callWith(tally, { QueryTally.statementPrepared() }) }.join()
+        QueryTally.statementPrepared()
+
+        then:
+        tally.statements() == 2
+
+        cleanup:
+        QueryTally.stop()
+    }
+
+    private summary(String name) {
+        meterRegistry.get(name).tags("method", "POST", "uri", "/api/movies/user/{userId}").summary()
+    }
+}
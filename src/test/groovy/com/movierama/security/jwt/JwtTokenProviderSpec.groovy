@@ -0,0 +1,82 @@
+package com.movierama.security.jwt
+
+import com.movierama.entity.User
+import io.jsonwebtoken.JwtException
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+import spock.lang.Subject
+
+class JwtTokenProviderSpec extends Specification {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    @Subject
+    JwtTokenProvider provider = new JwtTokenProvider(meterRegistry)
+
+    User alice = new User(username: "alice")
+
+    def "a generated token verifies to its subject and validates for its user"() {
+        given:
+        def jwt = provider.generateToken(alice)
+
+        when:
+        def token = provider.verify(jwt)
+
+        then:
+        token.username == "alice"
+        provider.validateToken(token, alice)
+        !provider.validateToken(token, new User(username: "bob"))
+    }
+
+    def "a token verified before is answered from memory"() {
+        given:
+        def jwt = provider.generateToken(alice)
+
+        expect:
+        provider.verify(jwt).is(provider.verify(jwt))
+    }
+
+    def "a token signed with another key is rejected"() {
+        given:
+        def foreign = new JwtTokenProvider(new SimpleMeterRegistry()).generateToken(alice)
+
+        when:
+        provider.verify(foreign)
+
+        then:
+        thrown(JwtException)
+    }
+
+    def "a tampered token is rejected even after the original was cached"() {
+        given:
+        def jwt = provider.generateToken(alice)
+        provider.verify(jwt)
+        def tampered = jwt.substring(0, jwt.length() - 2) + (jwt.endsWith("AA") ? "BB" : "AA")
+
+        when:
+        provider.verify(tampered)
+
+        then:
+        thrown(JwtException)
+    }
+
+    def "verifications are timed by result"() {
+        given:
+        def jwt = provider.generateToken(alice)
+
+        when:
+        provider.verify(jwt)
+        provider.verify(jwt)
+        provider.verify(jwt.substring(0, jwt.length() - 2) + (jwt.endsWith("AA") ? "BB" : "AA"))
+
+        then:
+        thrown(JwtException)
+        verifications("checked") == 1
+        verifications("cached") == 1
+        verifications("rejected") == 1
+    }
+
+    private long verifications(String result) {
+        meterRegistry.get("movierama.jwt.verify").tag("result", result).timer().count()
+    }
+}
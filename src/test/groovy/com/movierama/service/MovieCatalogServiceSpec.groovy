@@ -0,0 +1,254 @@
+package com.movierama.service
+
+import com.movierama.cache.MovieCounts
+import com.movierama.dto.MovieDto
+import com.movierama.entity.Movie
+import com.movierama.mapper.MovieMapper
+import com.movierama.paging.PageCursor
+import com.movierama.paging.PagingResponse
+import com.movierama.repository.MovieRepository
+import com.movierama.repository.MovieSortField
+import org.springframework.data.domain.*
+import spock.lang.Specification
+import spock.lang.Subject
+
+class MovieCatalogServiceSpec extends Specification {
+
+    MovieRepository movieRepository = Mock()
+    MovieMapper movieMapper = Mock()
+    MovieCounts movieCounts = Mock()
+
+    @Subject
+    MovieCatalogService service = new MovieCatalogService(movieRepository, movieMapper, new PageLoader(false), movieCounts)
+
+
+    def "getMoviesPage returns mapped DTOs with paging metadata (property sort)"() {
+        given:
+        def m1 = row(1L); def m2 = row(2L)
+
+        and:
+        def d1 = new MovieDto(id: 1L)
+        def d2 = new MovieDto(id: 2L)
+
+        when:
+        PagingResponse<MovieDto> resp = service.getMoviesPage(0, 2, "title", "ASC")
+
+        then:
+        1 * movieRepository.findPageRows({ Pageable p -> p.sort == Sort.by(Sort.Direction.ASC, "title", "id") }) >> [m1, m2]
+        1 * movieCounts.countAll() >> 5
+        1 * movieMapper.toDto(m1) >> d1
+        1 * movieMapper.toDto(m2) >> d2
+
+        and:
+        resp.content*.id == [1L, 2L]
+        resp.page == 0
+        resp.size == 2
+        resp.totalElements == 5
+        resp.totalPages == 3
+        !resp.last
+        0 * _
+    }
+
+    // ---------------- getMoviesPage (default sort by id when sortBy empty)
+
+    def "getMoviesPage uses default sort by id ASC when sortBy is empty"() {
+        given:
+        def m1 = row(3L); def m2 = row(5L)
+
+        when:
+        def resp = service.getMoviesPage(0, 2, "", "ASC")
+
+        then:
+        1 * movieRepository.findPageRows({ Pageable p -> p.sort == Sort.by(Sort.Direction.ASC, "id") }) >> [m1, m2]
+        1 * movieCounts.countAll() >> 4
+        1 * movieMapper.toDto(m1) >> new MovieDto(id: 3L)
+        1 * movieMapper.toDto(m2) >> new MovieDto(id: 5L)
+
+        and:
+        resp.content*.id == [3L, 5L]
+        resp.totalElements == 4
+        resp.totalPages == 2
+        0 * _
+    }
+
+    def "getMoviesPage reaction sort orders by the counter column with id tiebreaker"() {
+        given:
+        def m1 = row(10L)
+
+        when:
+        PagingResponse<MovieDto> resp = service.getMoviesPage(1, 2, "likeCount", "DESC")
+
+        then:
+        1 * movieRepository.findPageRows({ Pageable p ->
+            p.sort == Sort.by(Sort.Direction.DESC, "likeCount", "id") && p.pageNumber == 1 && p.pageSize == 2
+        }) >> [m1]
+        1 * movieMapper.toDto(m1) >> new MovieDto(id: 10L)
+
+        and: "a short page is the last one, so no count query is needed"
+        resp.content*.id == [10L]
+        resp.page == 1
+        resp.totalElements == 3
+        resp.totalPages == 2
+        0 * _
+    }
+
+    def "getMoviesPage trending sort orders by the stored decayed score"() {
+        given:
+        def m1 = row(10L)
+
+        when:
+        service.getMoviesPage(0, 2, "trending", "DESC")
+
+        then:
+        1 * movieRepository.findPageRows({ Pageable p -> p.sort == Sort.by(Sort.Direction.DESC, "trendingScore", "id") }) >> [m1]
+        1 * movieMapper.toDto(m1) >> new MovieDto(id: 10L)
+        0 * _
+    }
+
+    def "getMoviesByUserPage queries repo by user id and maps DTOs"() {
+        given:
+        def m1 = row(10L); def m2 = row(11L)
+
+        when:
+        def resp = service.getMoviesByUserPage(7L, 1, 2, "createdAt", "DESC")
+
+        then:
+        1 * movieRepository.findPageRowsByUserId(7L, { Pageable p ->
+            p.pageNumber == 1 && p.pageSize == 2 && p.sort == Sort.by(Sort.Direction.DESC, "createdAt", "id")
+        }) >> [m1, m2]
+        1 * movieCounts.countByUser(7L) >> 4
+        1 * movieMapper.toDto(m1) >> new MovieDto(id: 10L)
+        1 * movieMapper.toDto(m2) >> new MovieDto(id: 11L)
+
+        and:
+        resp.content*.id == [10L, 11L]
+        resp.page == 1
+        resp.size == 2
+        resp.totalElements == 4
+        resp.totalPages == 2
+        0 * _
+    }
+
+    def "getMoviesByUserPage uses default id ASC when sortBy is empty"() {
+        given:
+        def m1 = row(1L); def m2 = row(2L)
+
+        when:
+        def resp = service.getMoviesByUserPage(9L, 0, 2, "", "ASC")
+
+        then:
+        1 * movieRepository.findPageRowsByUserId(9L, { Pageable p ->
+            p.pageNumber == 0 && p.pageSize == 2 && p.sort == Sort.by(Sort.Direction.ASC, "id")
+        }) >> [m1, m2]
+        1 * movieCounts.countByUser(9L) >> 2
+        1 * movieMapper.toDto(m1) >> new MovieDto(id: 1L)
+        1 * movieMapper.toDto(m2) >> new MovieDto(id: 2L)
+
+        and:
+        resp.content*.id == [1L, 2L]
+        resp.totalElements == 2
+        resp.totalPages == 1
+        0 * _
+    }
+
+    def "getMoviesSlice reports only whether another page follows, without counting"() {
+        given:
+        def r1 = row(1L); def r2 = row(2L)
+
+        when:
+        def resp = service.getMoviesSlice(3, 2, "likeCount", "DESC")
+
+        then:
+        1 * movieRepository.findSliceRows({ Pageable p ->
+            p.pageNumber == 3 && p.pageSize == 2 && p.sort == Sort.by(Sort.Direction.DESC, "likeCount", "id")
+        }) >> new SliceImpl([r1, r2], PageRequest.of(3, 2), true)
+        1 * movieMapper.toDto(r1) >> new MovieDto(id: 1L)
+        1 * movieMapper.toDto(r2) >> new MovieDto(id: 2L)
+
+        and:
+        resp.content*.id == [1L, 2L]
+        resp.page == 3
+        resp.size == 2
+        !resp.last
+        resp.totalElements == 0
+        0 * _
+    }
+
+    def "getMoviesByUserSlice marks the final slice as last"() {
+        given:
+        def r1 = row(4L)
+
+        when:
+        def resp = service.getMoviesByUserSlice(7L, 1, 2, "", "ASC")
+
+        then:
+        1 * movieRepository.findSliceRowsByUserId(7L, { Pageable p -> p.sort == Sort.by(Sort.Direction.ASC, "id") }) >>
+                new SliceImpl([r1], PageRequest.of(1, 2), false)
+        1 * movieMapper.toDto(r1) >> new MovieDto(id: 4L)
+
+        and:
+        resp.content*.id == [4L]
+        resp.last
+        0 * _
+    }
+
+    def "getMoviesPageByCursor reads one extra row to decide whether a next cursor exists"() {
+        given:
+        def m1 = new Movie(id: 9L, likeCount: 5L); def m2 = new Movie(id: 4L, likeCount: 3L); def m3 = new Movie(id: 2L, likeCount: 1L)
+
+        when:
+        def resp = service.getMoviesPageByCursor(null, null, 2, "likeCount", "DESC")
+
+        then:
+        1 * movieRepository.findKeysetPage(null, MovieSortField.LIKE_COUNT, Sort.Direction.DESC, null, null, 3) >> [m1, m2, m3]
+        1 * movieMapper.toDto(m1) >> new MovieDto(id: 9L)
+        1 * movieMapper.toDto(m2) >> new MovieDto(id: 4L)
+
+        and:
+        resp.content*.id == [9L, 4L]
+        !resp.last
+        resp.prevCursor == null
+        def next = PageCursor.decode(resp.nextCursor)
+        next.id == 4L
+        next.value == "3"
+        !next.backward
+        0 * _
+    }
+
+    def "getMoviesPageByCursor seeks after the cursor position and offers a previous cursor"() {
+        given:
+        def cursor = new PageCursor("title", "ASC", false, 4L, "Heat").encode()
+        def m1 = new Movie(id: 7L, title: "Jaws")
+
+        when:
+        def resp = service.getMoviesPageByCursor(3L, cursor, 2, "title", "ASC")
+
+        then:
+        1 * movieRepository.findKeysetPage(3L, MovieSortField.TITLE, Sort.Direction.ASC, "Heat", 4L, 3) >> [m1]
+        1 * movieMapper.toDto(m1) >> new MovieDto(id: 7L)
+
+        and:
+        resp.content*.id == [7L]
+        resp.last
+        resp.nextCursor == null
+        PageCursor.decode(resp.prevCursor).backward
+        0 * _
+    }
+
+    def "getMoviesPageByCursor rejects a cursor issued for another sort order"() {
+        given:
+        def cursor = new PageCursor("title", "ASC", false, 4L, "Heat").encode()
+
+        when:
+        service.getMoviesPageByCursor(null, cursor, 2, "likeCount", "DESC")
+
+        then:
+        def ex = thrown(IllegalArgumentException)
+        ex.message == "Cursor does not match the requested sort order"
+        0 * _
+    }
+
+    private MovieRepository.MovieRow row(Long id) {
+        Stub(MovieRepository.MovieRow) { getId() >> id }
+    }
+}
@@ -0,0 +1,130 @@
+package com.movierama.service
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.dataformat.csv.CsvMapper
+import com.fasterxml.jackson.dataformat.csv.CsvSchema
+import com.movierama.exception.TooManyExportsException
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.jdbc.core.RowCallbackHandler
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.TransactionDefinition
+import org.springframework.transaction.TransactionStatus
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.sql.ResultSet
+import java.sql.Timestamp
+import java.time.LocalDateTime
+
+class MovieExportServiceSpec extends Specification {
+
+    JdbcTemplate jdbcTemplate = Mock()
+    PlatformTransactionManager transactionManager = Mock()
+
+    MovieExportService service = new MovieExportService(jdbcTemplate, transactionManager, new ObjectMapper(), 2)
+
+    def rows = [
+            [id: 1L, title: "Alien", description: "In space", created_at: Timestamp.valueOf(LocalDateTime.of(2024, 1, 15, 12, 0)),
+             user_id: 7L, first_name: "Ellen", last_name: "Ripley", like_count: 3L, hate_count: 1L],
+            [id: 2L, title: "Heat, the movie", description: null, created_at: Timestamp.valueOf(LocalDateTime.of(2024, 2, 1, 9, 30, 15)),
+             user_id: 8L, first_name: "Vincent", last_name: "Hanna", like_count: 0L, hate_count: 0L]
+    ]
+
+    def "NDJSON export writes one object per row from the cursor inside a read-only transaction"() {
+        given:
+        def out = new ByteArrayOutputStream()
+
+        when:
+        service.export(MovieFileFormat.NDJSON, out)
+
+        then:
+        1 * transactionManager.getTransaction({ TransactionDefinition definition -> definition.readOnly }) >> Stub(TransactionStatus)
+        1 * jdbcTemplate.query(MovieExportService.EXPORT_QUERY, _ as RowCallbackHandler) >> { String sql, RowCallbackHandler handler ->
+            rows.each { handler.processRow(resultSet(it)) }
+        }
+        1 * transactionManager.commit(_)
+
+        and:
+        def lines = out.toString(StandardCharsets.UTF_8).readLines()
+        lines.size() == 2
+        new ObjectMapper().readValue(lines[0], Map) == [id: 1, title: "Alien", description: "In space",
+                createdAt: "2024-01-15T12:00:00", userId: 7, userName: "Ellen Ripley", likeCount: 3, hateCount: 1]
+        new ObjectMapper().readValue(lines[1], Map).description == null
+    }
+
+    def "CSV export writes a header and quotes values where needed"() {
+        given:
+        def out = new ByteArrayOutputStream()
+        transactionManager.getTransaction(_) >> Stub(TransactionStatus)
+        jdbcTemplate.query(_, _ as RowCallbackHandler) >> { String sql, RowCallbackHandler handler ->
+            rows.each { handler.processRow(resultSet(it)) }
+        }
+
+        when:
+        service.export(MovieFileFormat.CSV, out)
+
+        then:
+        def lines = out.toString(StandardCharsets.UTF_8).readLines()
+        lines[0] == "id,title,description,createdAt,userId,userName,likeCount,hateCount"
+
+        and: "values with separators survive a round trip"
+        def parsed = new CsvMapper().readerFor(Map).with(CsvSchema.emptySchema().withHeader())
+                .readValues(out.toString(StandardCharsets.UTF_8)).readAll()
+        parsed*.title == ["Alien", "Heat, the movie"]
+        parsed*.description == ["In space", ""]
+        parsed*.createdAt == ["2024-01-15T12:00:00", "2024-02-01T09:30:15"]
+        parsed*.userName == ["Ellen Ripley", "Vincent Hanna"]
+        parsed*.likeCount == ["3", "0"]
+    }
+
+    def "a client that goes away stops the export with the write error"() {
+        given:
+        def out = Stub(OutputStream) {
+            write(*_) >> { throw new IOException("Broken pipe") }
+        }
+        transactionManager.getTransaction(_) >> Stub(TransactionStatus)
+        jdbcTemplate.query(_, _ as RowCallbackHandler) >> { String sql, RowCallbackHandler handler ->
+            // enough rows to overflow the generator's buffer
+            2_000.times { handler.processRow(resultSet(rows[0])) }
+        }
+
+        when:
+        service.export(MovieFileFormat.NDJSON, out)
+
+        then:
+        def e = thrown(IOException)
+        e.message == "Broken pipe"
+    }
+
+    private ResultSet resultSet(Map<String, Object> row) {
+        Stub(ResultSet) {
+            getLong(_) >> { String column -> row[column] as long }
+            getString(_) >> { String column -> row[column] as String }
+            getTimestamp(_) >> { String column -> row[column] }
+        }
+    }
+
+    def "only max-concurrent export slots are handed out and a slot is released once"() {
+        given:
+        def first = service.reserveSlot()
+        def second = service.reserveSlot()
+
+        when:
+        service.reserveSlot()
+
+        then:
+        thrown(TooManyExportsException)
+
+        when: "closing a slot twice frees a single slot"
+        first.close()
+        first.close()
+        def third = service.reserveSlot()
+        service.reserveSlot()
+
+        then:
+        thrown(TooManyExportsException)
+
+        cleanup:
+        [second, third]*.close()
+    }
+}
@@ -0,0 +1,155 @@
+package com.movierama.service
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.movierama.cache.MoviePageInvalidator
+import com.movierama.dto.MovieImportSummary.Outcome
+import com.movierama.entity.User
+import com.movierama.repository.MovieBatchRepository
+import com.movierama.repository.MovieBatchRepository.NewMovie
+import org.springframework.dao.DataIntegrityViolationException
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.nio.charset.StandardCharsets
+
+class MovieImportServiceSpec extends Specification {
+
+    MovieBatchRepository movieBatchRepository = Mock()
+    MoviePageInvalidator pageInvalidator = Mock()
+
+    @Subject
+    MovieImportService service = new MovieImportService(movieBatchRepository, pageInvalidator, new ObjectMapper())
+
+    User owner = new User(id: 7L)
+
+    def "NDJSON rows are inserted in one statement and the skipped ones reported as duplicates"() {
+        given:
+        def body = stream('''\
+            {"title": " Alien ", "description": "d1"}
+            {"title": "Heat", "description": "d2"}
+
+            {"title": "ALIEN", "description": "repeated in the file"}
+            {"title": "Up"}
+            not json
+            {"title": "  "}
+            '''.stripIndent())
+
+        when:
+        def summary = service.importMovies(body, MovieFileFormat.NDJSON, owner)
+
+        then:
+        1 * movieBatchRepository.insertSkippingTakenTitles(
+                [new NewMovie("Alien", "d1"), new NewMovie("Heat", "d2"), new NewMovie("ALIEN", "repeated in the file"),
+                 new NewMovie("Up", null)], 7L) >> ([true, false, false, true] as boolean[])
+        1 * pageInvalidator.moviesCreated(7L, 2)
+        0 * _
+
+        and:
+        summary.received == 6
+        summary.imported == 2
+        summary.duplicates == 2
+        summary.invalid == 2
+        summary.rejectedRows.collect { [it.row, it.outcome] } as Set == [
+                [2L, Outcome.DUPLICATE], [3L, Outcome.DUPLICATE],
+                [5L, Outcome.INVALID], [6L, Outcome.INVALID]] as Set
+    }
+
+    def "CSV rows are read by header"() {
+        given:
+        def body = stream('title,description\nAlien,"a, quoted description"\nHeat,d2\n')
+
+        when:
+        def summary = service.importMovies(body, MovieFileFormat.CSV, owner)
+
+        then:
+        1 * movieBatchRepository.insertSkippingTakenTitles(
+                [new NewMovie("Alien", "a, quoted description"), new NewMovie("Heat", "d2")], 7L) >> ([true, false] as boolean[])
+        1 * pageInvalidator.moviesCreated(7L, 1)
+
+        and:
+        summary.received == 2
+        summary.imported == 1
+        summary.duplicates == 1
+        summary.rejectedRows*.title == ["Heat"]
+    }
+
+    def "only the rows of a chunk that cannot be stored are reported as failed"() {
+        given:
+        def rows = MovieImportService.CHUNK_SIZE + 1
+        def body = stream((1..rows).collect { /{"title": "Movie $it"}/ }.join("\n"))
+
+        when:
+        def summary = service.importMovies(body, MovieFileFormat.NDJSON, owner)
+
+        then:
+        1 * movieBatchRepository.insertSkippingTakenTitles({ it.size() == MovieImportService.CHUNK_SIZE }, 7L) >>
+                { throw new DataIntegrityViolationException("movie_user_id_fkey") }
+        1 * movieBatchRepository.insertSkippingTakenTitles({ it.size() == 1 }, 7L) >> ([true] as boolean[])
+        1 * pageInvalidator.moviesCreated(7L, 1)
+
+        and:
+        summary.imported == 1
+        summary.failed == MovieImportService.CHUNK_SIZE
+        summary.duplicates == 0
+    }
+
+    def "large imports are chunked and the cache is invalidated once"() {
+        given:
+        def rows = MovieImportService.CHUNK_SIZE + 1
+        def body = stream((1..rows).collect { /{"title": "Movie $it"}/ }.join("\n"))
+
+        when:
+        def summary = service.importMovies(body, MovieFileFormat.NDJSON, owner)
+
+        then:
+        1 * movieBatchRepository.insertSkippingTakenTitles({ it.size() == MovieImportService.CHUNK_SIZE }, 7L) >>
+                allInserted(MovieImportService.CHUNK_SIZE)
+        1 * movieBatchRepository.insertSkippingTakenTitles({ it.size() == 1 }, 7L) >> ([true] as boolean[])
+        1 * pageInvalidator.moviesCreated(7L, rows)
+
+        and:
+        summary.imported == rows
+        summary.rejectedRows.isEmpty()
+    }
+
+    def "the chunks committed before the body fails are still invalidated"() {
+        given:
+        def rows = (1..MovieImportService.CHUNK_SIZE).collect { /{"title": "Movie $it"}/ }.join("\n") + "\n"
+        def aborted = new InputStream() {
+            @Override
+            int read() throws IOException {
+                throw new IOException("client aborted")
+            }
+        }
+        def body = new SequenceInputStream(stream(rows), aborted)
+
+        when:
+        service.importMovies(body, MovieFileFormat.NDJSON, owner)
+
+        then:
+        thrown(IOException)
+        1 * movieBatchRepository.insertSkippingTakenTitles({ it.size() == MovieImportService.CHUNK_SIZE }, 7L) >>
+                allInserted(MovieImportService.CHUNK_SIZE)
+        1 * pageInvalidator.moviesCreated(7L, MovieImportService.CHUNK_SIZE)
+    }
+
+    def "nothing is invalidated when no row was imported"() {
+        when:
+        def summary = service.importMovies(stream('{"title": ""}\n'), MovieFileFormat.NDJSON, owner)
+
+        then:
+        0 * movieBatchRepository._
+        0 * pageInvalidator._
+        summary.invalid == 1
+    }
+
+    private static boolean[] allInserted(int count) {
+        def inserted = new boolean[count]
+        Arrays.fill(inserted, true)
+        inserted
+    }
+
+    private static InputStream stream(String content) {
+        new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))
+    }
+}
@@ -0,0 +1,95 @@
+package com.movierama.service
+
+import com.movierama.dto.MovieDto
+import com.movierama.paging.PageCursor
+import com.movierama.repository.MovieSearchRepository
+import com.movierama.repository.MovieSearchSort
+import spock.lang.Specification
+import spock.lang.Subject
+
+class MovieSearchServiceSpec extends Specification {
+
+    MovieSearchRepository searchRepository = Mock()
+
+    @Subject
+    MovieSearchService service = new MovieSearchService(searchRepository)
+
+    def "normalize collapses whitespace and case"() {
+        expect:
+        MovieSearchService.normalize("  The   Dark\tKNIGHT ") == "the dark knight"
+    }
+
+    def "normalize rejects empty and overlong queries"() {
+        when:
+        MovieSearchService.normalize(query)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        query << [null, "   ", "x" * (MovieSearchService.MAX_QUERY_LENGTH + 1)]
+    }
+
+    def "first page reads one extra hit to decide whether there is a next page"() {
+        when:
+        def resp = service.search("alien", "relevance", "", 2)
+
+        then:
+        1 * searchRepository.search("alien", MovieSearchSort.RELEVANCE, null, null, 3) >>
+                [hit(7L, 0.9f, 1), hit(3L, 0.6f, 5), hit(5L, 0.2f, 9)]
+
+        and:
+        resp.content*.id == [7L, 3L]
+        !resp.last
+
+        and: "the cursor resumes after the last hit on the page"
+        def next = PageCursor.decode(resp.nextCursor)
+        next.sortBy == "relevance"
+        next.id == 3L
+        Float.parseFloat(next.value) == 0.6f
+    }
+
+    def "a cursor page seeks from the cursor position"() {
+        given:
+        def cursor = new PageCursor("likeCount", "DESC", false, 3L, "5").encode()
+
+        when:
+        def resp = service.search("alien", "likeCount", cursor, 2)
+
+        then:
+        1 * searchRepository.search("alien", MovieSearchSort.LIKE_COUNT, "5", 3L, 3) >> [hit(5L, 0.2f, 4)]
+
+        and:
+        resp.content*.id == [5L]
+        resp.last
+        resp.nextCursor == null
+    }
+
+    def "a cursor from another sort order is rejected"() {
+        given:
+        def cursor = new PageCursor("relevance", "DESC", false, 3L, "0.5").encode()
+
+        when:
+        service.search("alien", "likeCount", cursor, 2)
+
+        then:
+        thrown(IllegalArgumentException)
+        0 * searchRepository._
+    }
+
+    def "page size is bounded"() {
+        when:
+        service.search("alien", "relevance", "", size)
+
+        then:
+        thrown(IllegalArgumentException)
+        0 * searchRepository._
+
+        where:
+        size << [0, MovieSearchService.MAX_PAGE_SIZE + 1]
+    }
+
+    private static MovieSearchRepository.Hit hit(Long id, float rank, long likes) {
+        new MovieSearchRepository.Hit(new MovieDto(id: id, likeCount: likes), rank)
+    }
+}
@@ -1,15 +1,18 @@
 package com.movierama.service
 
+import com.movierama.cache.MoviePageInvalidator
 import com.movierama.dto.MovieDto
 import com.movierama.dto.MovieRegistrationDto
 import com.movierama.entity.Movie
 import com.movierama.entity.MovieReaction
 import com.movierama.entity.User
 import com.movierama.mapper.MovieMapper
+import com.movierama.metrics.ServiceMetrics
 import com.movierama.paging.PagingResponse
 import com.movierama.repository.MovieReactionRepository
 import com.movierama.repository.MovieRepository
-import org.springframework.data.domain.*
+import io.micrometer.core.instrument.Timer
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import spock.lang.Specification
 import spock.lang.Subject
 
@@ -18,9 +21,16 @@ class MovieServiceSpec extends Specification {
     MovieRepository movieRepository = Mock()
     MovieReactionRepository reactionRepository = Mock()
     MovieMapper movieMapper = Mock()
+    MovieCatalogService catalogService = Mock()
+    MoviePageInvalidator pageInvalidator = Mock()
+    ReactionWriteBehind reactionWriteBehind = Mock()
+    MovieSearchService searchService = Mock()
+    TitleAutocomplete titleAutocomplete = Mock()
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
 
     @Subject
-    MovieService service = new MovieService(movieRepository, reactionRepository, movieMapper)
+    MovieService service = new MovieService(movieRepository, reactionRepository, movieMapper, catalogService,
+            pageInvalidator, reactionWriteBehind, searchService, titleAutocomplete, new ServiceMetrics(meterRegistry))
 
 
     def "createMovie maps DTO, sets owner, and saves"() {
@@ -37,6 +47,8 @@ class MovieServiceSpec extends Specification {
         1 * movieRepository.save(mapped) >> { Movie m ->
             m.id = 10L; return m
         }
+        1 * pageInvalidator.movieCreated(1L)
+        1 * titleAutocomplete.movieCreated({ it.id == 10L })
 
         and:
         0 * _
@@ -44,213 +56,184 @@ class MovieServiceSpec extends Specification {
         saved.user.id == 1L
     }
 
-    def "getMoviesPageSorted returns mapped DTOs with paging metadata (property sort, no user)"() {
+    def "getMoviesPageSorted returns the shared page untouched for anonymous viewers"() {
         given:
-        def m1 = new Movie(id: 1L); def m2 = new Movie(id: 2L)
-        def pageable = PageRequest.of(0, 2, Sort.by("title").ascending())
-        def page = new PageImpl<Movie>([m1, m2], pageable, 5)
-
-        and: "mapper without user context is used"
-        def d1 = new MovieDto(id: 1L)
-        def d2 = new MovieDto(id: 2L)
+        def shared = page(new MovieDto(id: 1L), new MovieDto(id: 2L))
 
         when:
-        PagingResponse<MovieDto> resp = service.getMoviesPageSorted(0, 2, "title", "ASC", null)
+        def resp = service.getMoviesPageSorted(0, 2, "title", "ASC", null)
 
         then:
-        1 * movieRepository.findAll({ Pageable p -> p.sort == Sort.by("title").ascending() }) >> page
-        1 * movieMapper.toDto(m1) >> d1
-        1 * movieMapper.toDto(m2) >> d2
+        1 * catalogService.getMoviesPage(0, 2, "title", "ASC") >> shared
 
         and:
-        resp.content*.id == [1L, 2L]
-        resp.page == 0
-        resp.size == 2
-        resp.totalElements == 5
-        resp.totalPages == 3
-        !resp.last
+        resp.is(shared)
         0 * _
     }
 
-    // ---------------- getMoviesPageSorted (default sort by id when sortBy empty)
-
-    def "getMoviesPageSorted uses default sort by id ASC when sortBy is empty"() {
+    def "listings are timed by operation, sort order and viewer, unknown sorts folded into one tag"() {
         given:
-        def m1 = new Movie(id: 3L); def m2 = new Movie(id: 5L)
-        def pageable = PageRequest.of(0, 2, Sort.by(Sort.Direction.ASC, "id"))
-        def page = new PageImpl<Movie>([m1, m2], pageable, 4)
+        catalogService.getMoviesPage(*_) >> page()
 
         when:
-        def resp = service.getMoviesPageSorted(0, 2, "", "ASC", null)
+        service.getMoviesPageSorted(0, 2, "likeCount", "DESC", null)
+        service.getMoviesPageSorted(0, 2, "likeCount", "DESC", null)
+        service.getMoviesPageSorted(0, 2, "nonsense", "DESC", new User(id: 42L))
 
         then:
-        1 * movieRepository.findAll({ Pageable p -> p.sort == Sort.by(Sort.Direction.ASC, "id") }) >> page
-        1 * movieMapper.toDto(m1) >> new MovieDto(id: 3L)
-        1 * movieMapper.toDto(m2) >> new MovieDto(id: 5L)
+        timer("movies.list", "likeCount", "anonymous", "success").count() == 2
+        timer("movies.list", "other", "authenticated", "success").count() == 1
+    }
 
-        and:
-        resp.content*.id == [3L, 5L]
-        resp.totalElements == 4
-        resp.totalPages == 2
-        0 * _
+    def "a failed operation is timed with the error outcome"() {
+        given:
+        catalogService.getMoviesPage(*_) >> { throw new IllegalArgumentException("bad sort") }
+
+        when:
+        service.getMoviesPageSorted(0, 2, "title", "ASC", null)
+
+        then:
+        thrown(IllegalArgumentException)
+        timer("movies.list", "title", "anonymous", "error").count() == 1
     }
 
-    def "getMoviesPageSorted reaction sort uses Specification and passes current user to mapper"() {
+    def "searchMovies normalizes the query and passes an empty cursor for the first page"() {
         given:
-        def currentUser = new User(id: 42L, username: "bob")
-        def m1 = new Movie(id: 10L)
-        def unsorted = PageRequest.of(1, 2)
-        def page = new PageImpl<Movie>([m1], unsorted, 3)
+        def shared = page(new MovieDto(id: 1L))
+
         when:
-        PagingResponse<MovieDto> resp = service.getMoviesPageSorted(1, 2, "likeCount", "DESC", currentUser)
+        def resp = service.searchMovies("  Star   WARS ", "relevance", null, 10, null)
 
         then:
-        1 * movieRepository.findAll(_ as org.springframework.data.jpa.domain.Specification<Movie>, { Pageable p ->
-            !p.sort.isSorted() && p.pageNumber == 1 && p.pageSize == 2
-        }) >> page
-        1 * movieMapper.toDto(m1, 42L) >> new MovieDto(id: 10L, userLiked: true, userHated: false)
+        1 * searchService.search("star wars", "relevance", "", 10) >> shared
 
         and:
-        resp.content*.id == [10L]
-        resp.page == 1
-        resp.size == 2
-        resp.totalElements == 3
-        resp.totalPages == 2
+        resp.is(shared)
         0 * _
     }
 
-    def "getMoviesByUserPaged queries repo by user id and maps DTOs (with user context)"() {
+    def "getMoviesPageSorted returns the shared page when the viewer has no reactions on it"() {
         given:
-        def requestingUser = new User(id: 77L)
-        def m1 = new Movie(id: 10L); def m2 = new Movie(id: 11L)
-        def pageable = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "createdAt"))
-        def page = new PageImpl<Movie>([m1, m2], pageable, 4)
+        def shared = page(new MovieDto(id: 1L), new MovieDto(id: 2L))
 
         when:
-        def resp = service.getMoviesByUserPaged(7L, 1, 2, "createdAt", "DESC", requestingUser)
+        def resp = service.getMoviesPageSorted(0, 2, "likeCount", "DESC", new User(id: 42L))
 
         then:
-        1 * movieRepository.findByUserId(7L, { Pageable p ->
-            p.pageNumber == 1 && p.pageSize == 2 && p.sort == Sort.by(Sort.Direction.DESC, "createdAt")
-        }) >> page
-        1 * movieMapper.toDto(m1, 77L) >> new MovieDto(id: 10L)
-        1 * movieMapper.toDto(m2, 77L) >> new MovieDto(id: 11L)
+        1 * catalogService.getMoviesPage(0, 2, "likeCount", "DESC") >> shared
+        1 * reactionRepository.findUserReactions(42L, [1L, 2L]) >> []
+        1 * reactionWriteBehind.pendingFor(42L, [1L, 2L]) >> [:]
 
         and:
-        resp.content*.id == [10L, 11L]
-        resp.page == 1
-        resp.size == 2
-        resp.totalElements == 4
-        resp.totalPages == 2
+        resp.is(shared)
         0 * _
     }
 
-    def "getMoviesByUserPaged uses default id ASC when sortBy is empty"() {
+    def "getMoviesByUserPaged overlays the viewer's reactions on copies of the shared DTOs"() {
         given:
-        def m1 = new Movie(id: 1L); def m2 = new Movie(id: 2L)
-        def pageable = PageRequest.of(0, 2, Sort.by(Sort.Direction.ASC, "id"))
-        def page = new PageImpl<Movie>([m1, m2], pageable, 2)
+        def d1 = new MovieDto(id: 10L); def d2 = new MovieDto(id: 11L)
+        def shared = page(d1, d2)
+        shared.nextCursor = "next"
+        def reactions = [(10L): MovieReaction.ReactionType.LIKE]
 
         when:
-        def resp = service.getMoviesByUserPaged(9L, 0, 2, "", "ASC", null)
+        def resp = service.getMoviesByUserPaged(7L, 1, 2, "createdAt", "DESC", new User(id: 77L))
 
         then:
-        1 * movieRepository.findByUserId(9L, { Pageable p ->
-            p.pageNumber == 0 && p.pageSize == 2 && p.sort == Sort.by(Sort.Direction.ASC, "id")
-        }) >> page
-        1 * movieMapper.toDto(m1) >> new MovieDto(id: 1L)
-        1 * movieMapper.toDto(m2) >> new MovieDto(id: 2L)
-
-        and:
-        resp.content*.id == [1L, 2L]
-        resp.totalElements == 2
-        resp.totalPages == 1
+        1 * catalogService.getMoviesByUserPage(7L, 1, 2, "createdAt", "DESC") >> shared
+        1 * reactionRepository.findUserReactions(77L, [10L, 11L]) >> [userReaction(10L, MovieReaction.ReactionType.LIKE)]
+        1 * reactionWriteBehind.pendingFor(77L, [10L, 11L]) >> [:]
+        1 * movieMapper.toDto(d1, reactions) >> new MovieDto(id: 10L, userLiked: true)
+        1 * movieMapper.toDto(d2, reactions) >> new MovieDto(id: 11L)
+
+        and: "the cached page is not modified"
+        !resp.is(shared)
+        resp.content*.userLiked == [true, false]
+        !shared.content[0].userLiked
+        resp.page == shared.page
+        resp.totalElements == shared.totalElements
+        resp.nextCursor == "next"
         0 * _
     }
 
-    def "reactToMovie creates a new reaction when none exists"() {
+    def "getMoviesPageByCursor delegates to the catalog and applies the overlay"() {
         given:
-        def owner = new User(id: 1L)
-        def movie = new Movie(id: 100L, user: owner)
-        def reactor = new User(id: 2L)
+        def d1 = new MovieDto(id: 9L)
+        def shared = page(d1)
 
         when:
-        service.reactToMovie(100L, reactor, MovieReaction.ReactionType.LIKE)
+        def resp = service.getMoviesPageByCursor(null, "c", 1, "likeCount", "DESC", new User(id: 5L))
 
         then:
-        1 * movieRepository.findById(100L) >> Optional.of(movie)
-        1 * reactionRepository.findByUserIdAndMovieId(2L, 100L) >> Optional.empty()
+        1 * catalogService.getMoviesPageByCursor(null, "c", 1, "likeCount", "DESC") >> shared
+        1 * reactionRepository.findUserReactions(5L, [9L]) >> [userReaction(9L, MovieReaction.ReactionType.HATE)]
+        1 * reactionWriteBehind.pendingFor(5L, [9L]) >> [:]
+        1 * movieMapper.toDto(d1, [(9L): MovieReaction.ReactionType.HATE]) >> new MovieDto(id: 9L, userHated: true)
 
         and:
-        1 * reactionRepository.save({ MovieReaction r ->
-            assert r.movie.id == 100L
-            assert r.user.id == 2L
-            assert r.reactionType == MovieReaction.ReactionType.LIKE
-            true
-        })
-        0 * reactionRepository.delete(_)
+        resp.content*.userHated == [true]
         0 * _
     }
 
-    def "reactToMovie toggles (deletes) when same reaction is sent again"() {
+    def "reactions waiting in the write-behind buffer are applied on top of the stored ones"() {
         given:
-        def owner = new User(id: 1L)
-        def movie = new Movie(id: 101L, user: owner)
-        def reactor = new User(id: 2L)
-        def existing = new MovieReaction(id: 5L, movie: movie, user: reactor, reactionType: MovieReaction.ReactionType.LIKE)
+        def d1 = new MovieDto(id: 1L, likeCount: 3); def d2 = new MovieDto(id: 2L, likeCount: 1, hateCount: 1)
+        def shared = page(d1, d2)
+        def reactions = [(2L): MovieReaction.ReactionType.LIKE]
 
         when:
-        service.reactToMovie(101L, reactor, MovieReaction.ReactionType.LIKE)
+        def resp = service.getMoviesPageSorted(0, 2, "likeCount", "DESC", new User(id: 42L))
 
         then:
-        1 * movieRepository.findById(101L) >> Optional.of(movie)
-        1 * reactionRepository.findByUserIdAndMovieId(2L, 101L) >> Optional.of(existing)
-
-        and:
-        1 * reactionRepository.delete(existing)
-        0 * reactionRepository.save(_)
+        1 * catalogService.getMoviesPage(0, 2, "likeCount", "DESC") >> shared
+        1 * reactionRepository.findUserReactions(42L, [1L, 2L]) >> [userReaction(2L, MovieReaction.ReactionType.LIKE)]
+        1 * reactionWriteBehind.pendingFor(42L, [1L, 2L]) >> [
+                (1L): ReactionTransition.IDENTITY.then(MovieReaction.ReactionType.LIKE),
+                (2L): ReactionTransition.IDENTITY.then(MovieReaction.ReactionType.HATE)]
+        1 * movieMapper.toDto(d1, reactions) >> new MovieDto(id: 1L, likeCount: 3)
+        1 * movieMapper.toDto(d2, reactions) >> new MovieDto(id: 2L, likeCount: 1, hateCount: 1, userLiked: true)
+
+        and: "a pending like on an unrated movie, and a pending hate replacing a stored like"
+        resp.content*.userLiked == [true, false]
+        resp.content*.userHated == [false, true]
+        resp.content*.likeCount == [4L, 0L]
+        resp.content*.hateCount == [0L, 2L]
+        shared.content*.likeCount == [3L, 1L]
         0 * _
     }
 
-    def "reactToMovie updates when different reaction is sent"() {
+    def "reactToMovie applies the transition in one call and invalidates with the count deltas"() {
         given:
-        def owner = new User(id: 1L)
-        def movie = new Movie(id: 102L, user: owner)
         def reactor = new User(id: 2L)
-        def existing = new MovieReaction(id: 6L, movie: movie, user: reactor, reactionType: MovieReaction.ReactionType.LIKE)
 
         when:
-        service.reactToMovie(102L, reactor, MovieReaction.ReactionType.HATE)
+        service.reactToMovie(100L, reactor, requested)
 
         then:
-        1 * movieRepository.findById(102L) >> Optional.of(movie)
-        1 * reactionRepository.findByUserIdAndMovieId(2L, 102L) >> Optional.of(existing)
-
-        and:
-        1 * reactionRepository.save({ MovieReaction r ->
-            assert r.is(existing)
-            assert r.reactionType == MovieReaction.ReactionType.HATE
-            true
-        })
-        0 * reactionRepository.delete(_)
+        1 * reactionRepository.react(2L, 100L, requested.name()) >> outcome("OK", previous, current)
+        1 * pageInvalidator.reactionChanged(100L, likeDelta, hateDelta)
         0 * _
+
+        where:
+        requested                       | previous | current | likeDelta | hateDelta
+        MovieReaction.ReactionType.LIKE | null     | "LIKE"  | 1L        | 0L
+        MovieReaction.ReactionType.LIKE | "LIKE"   | null    | -1L       | 0L
+        MovieReaction.ReactionType.HATE | "LIKE"   | "HATE"  | -1L       | 1L
     }
 
     def "reactToMovie throws when user reacts to own movie"() {
         given:
         def owner = new User(id: 9L)
-        def movie = new Movie(id: 200L, user: owner)
 
         when:
         service.reactToMovie(200L, owner, MovieReaction.ReactionType.LIKE)
 
         then:
-        1 * movieRepository.findById(200L) >> Optional.of(movie)
+        1 * reactionRepository.react(9L, 200L, "LIKE") >> outcome("OWN_MOVIE", null, null)
 
         and:
         def ex = thrown(RuntimeException)
         ex.message == "You cannot react to your own movie"
-        0 * reactionRepository._
         0 * _
     }
 
@@ -262,12 +245,29 @@ class MovieServiceSpec extends Specification {
         service.reactToMovie(404L, reactor, MovieReaction.ReactionType.HATE)
 
         then:
-        1 * movieRepository.findById(404L) >> Optional.empty()
+        1 * reactionRepository.react(3L, 404L, "HATE") >> outcome("MOVIE_NOT_FOUND", null, null)
 
         and:
         def ex = thrown(RuntimeException)
         ex.message == "Movie not found"
-        0 * reactionRepository._
         0 * _
     }
+
+    private static PagingResponse<MovieDto> page(MovieDto... content) {
+        new PagingResponse<MovieDto>(content: content as List, page: 1, size: 2, totalElements: 4, totalPages: 2, last: true)
+    }
+
+    private static MovieReactionRepository.UserReaction userReaction(Long movieId, MovieReaction.ReactionType type) {
+        [getMovieId: { movieId }, getReactionType: { type }] as MovieReactionRepository.UserReaction
+    }
+
+    private static MovieReactionRepository.ReactionOutcome outcome(String status, String previous, String current) {
+        [getStatus: { status }, getPreviousType: { previous }, getCurrentType: { current }] as MovieReactionRepository.ReactionOutcome
+    }
+
+    private Timer timer(String operation, String sort, String viewer, String outcome) {
+        meterRegistry.get("movierama.service")
+                .tags("operation", operation, "sort", sort, "viewer", viewer, "outcome", outcome)
+                .timer()
+    }
 }
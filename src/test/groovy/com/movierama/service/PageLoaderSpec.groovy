@@ -0,0 +1,90 @@
+package com.movierama.service
+
+import org.springframework.data.domain.PageRequest
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class PageLoaderSpec extends Specification {
+
+    def "platform mode runs the queries on the caller's thread and skips a count the content implies"() {
+        given:
+        def loader = new PageLoader(false)
+        def caller = Thread.currentThread()
+        def counted = false
+
+        when:
+        def page = loader.load(PageRequest.of(0, 10), { assert Thread.currentThread().is(caller); [1, 2, 3] }, { counted = true; 99L })
+
+        then:
+        page.content == [1, 2, 3]
+        page.totalElements == 3
+        !counted
+    }
+
+    def "virtual-thread mode runs the content and count queries at the same time"() {
+        given:
+        def loader = new PageLoader(true)
+        // each query waits for the other to start, which only finishes when they overlap
+        def started = new CountDownLatch(2)
+        def query = { result ->
+            started.countDown()
+            assert started.await(5, TimeUnit.SECONDS)
+            assert Thread.currentThread().isVirtual()
+            result
+        }
+
+        when:
+        def page = loader.load(PageRequest.of(1, 2), { query([3, 4]) }, { query(7L) })
+
+        then:
+        page.content == [3, 4]
+        page.totalElements == 7
+        page.totalPages == 4
+
+        cleanup:
+        loader.shutdown()
+    }
+
+    def "a failing #failing query fails the load without waiting for its sibling, which is cancelled"() {
+        given:
+        def loader = new PageLoader(true)
+        def siblingStarted = new CountDownLatch(1)
+        def siblingInterrupted = new CountDownLatch(1)
+        def failingQuery = {
+            // fail only once the sibling runs, so there is a query to cancel
+            assert siblingStarted.await(5, TimeUnit.SECONDS)
+            throw new IllegalStateException("$failing failed")
+        }
+        def slowQuery = { result ->
+            siblingStarted.countDown()
+            try {
+                Thread.sleep(10_000)
+            } catch (InterruptedException ignored) {
+                siblingInterrupted.countDown()
+            }
+            result
+        }
+
+        when:
+        def started = System.nanoTime()
+        if (failing == "content") {
+            loader.load(PageRequest.of(0, 2), failingQuery, { slowQuery(0L) })
+        } else {
+            loader.load(PageRequest.of(0, 2), { slowQuery([1, 2]) }, failingQuery)
+        }
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.message == "$failing failed"
+        TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started) < 5
+        siblingInterrupted.await(5, TimeUnit.SECONDS)
+
+        cleanup:
+        loader.shutdown()
+
+        where:
+        failing << ["content", "count"]
+    }
+}
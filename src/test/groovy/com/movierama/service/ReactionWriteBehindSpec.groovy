@@ -0,0 +1,140 @@
+package com.movierama.service
+
+import com.movierama.cache.MoviePageInvalidator
+import com.movierama.entity.MovieReaction.ReactionType
+import com.movierama.entity.User
+import com.movierama.exception.ReactionBacklogFullException
+import com.movierama.repository.MovieRepository
+import com.movierama.repository.ReactionBatchRepository
+import com.movierama.repository.ReactionBatchRepository.Change
+import com.movierama.repository.ReactionBatchRepository.MovieDelta
+import com.movierama.repository.ReactionBatchRepository.Pair
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.TransactionStatus
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Duration
+
+class ReactionWriteBehindSpec extends Specification {
+
+    ReactionWriteBehindProperties properties = new ReactionWriteBehindProperties(
+            enabled: true, capacity: 2, batchSize: 10, enqueueTimeout: Duration.ofMillis(20))
+    ReactionBatchRepository batchRepository = Mock()
+    MovieRepository movieRepository = Stub {
+        findOwnerIdById(404L) >> Optional.empty()
+        findOwnerIdById(_) >> Optional.of(1L)
+    }
+    MoviePageInvalidator pageInvalidator = Mock()
+    PlatformTransactionManager transactionManager = Stub {
+        getTransaction(_) >> Stub(TransactionStatus)
+    }
+
+    @Subject
+    ReactionWriteBehind writeBehind = new ReactionWriteBehind(
+            properties, batchRepository, movieRepository, pageInvalidator, transactionManager)
+
+    User viewer = new User(id: 42L)
+
+    def "repeated clicks on one movie coalesce into a single pending transition"() {
+        when:
+        writeBehind.submit(5L, viewer, ReactionType.LIKE)
+        writeBehind.submit(5L, viewer, ReactionType.HATE)
+        writeBehind.submit(5L, viewer, ReactionType.HATE)
+        writeBehind.submit(5L, viewer, ReactionType.LIKE)
+
+        then: "the last click wins whatever was stored before"
+        def pending = writeBehind.pendingFor(42L, [5L, 6L])
+        pending.keySet() == [5L] as Set
+        pending[5L].apply(null) == ReactionType.LIKE
+        pending[5L].apply(ReactionType.HATE) == ReactionType.LIKE
+    }
+
+    def "submit rejects unknown movies"() {
+        when:
+        writeBehind.submit(404L, viewer, ReactionType.LIKE)
+
+        then:
+        def ex = thrown(RuntimeException)
+        ex.message == "Movie not found"
+    }
+
+    def "submit rejects reactions to the user's own movie"() {
+        when:
+        writeBehind.submit(5L, new User(id: 1L), ReactionType.LIKE)
+
+        then:
+        def ex = thrown(RuntimeException)
+        ex.message == "You cannot react to your own movie"
+        writeBehind.pendingFor(1L, [5L]).isEmpty()
+    }
+
+    def "a full buffer rejects new pairs but still accepts clicks on pending ones"() {
+        given:
+        writeBehind.submit(1L, new User(id: 2L), ReactionType.LIKE)
+        writeBehind.submit(3L, new User(id: 2L), ReactionType.LIKE)
+
+        when:
+        writeBehind.submit(3L, new User(id: 2L), ReactionType.HATE)
+
+        then:
+        noExceptionThrown()
+
+        when:
+        writeBehind.submit(4L, new User(id: 2L), ReactionType.LIKE)
+
+        then:
+        thrown(ReactionBacklogFullException)
+    }
+
+    def "flush turns pending transitions into inserts, updates and deletes with per-movie count and trending deltas"() {
+        given:
+        properties.capacity = 10
+        writeBehind.submit(10L, viewer, ReactionType.LIKE)
+        writeBehind.submit(11L, viewer, ReactionType.HATE)
+        writeBehind.submit(12L, viewer, ReactionType.LIKE)
+
+        when:
+        writeBehind.flush()
+
+        then: "the movies are locked in id order before their reactions are read"
+        1 * batchRepository.lockMovies({ it as List == [10L, 11L, 12L] })
+
+        then:
+        1 * batchRepository.findReactions({ it as Set == [new Pair(42L, 10L), new Pair(42L, 11L), new Pair(42L, 12L)] as Set }) >> [
+                (new Pair(42L, 11L)): ReactionType.LIKE,
+                (new Pair(42L, 12L)): ReactionType.LIKE]
+        1 * batchRepository.insert([new Change(42L, 10L, ReactionType.LIKE)])
+        1 * batchRepository.update([new Change(42L, 11L, ReactionType.HATE)])
+        1 * batchRepository.delete([new Pair(42L, 12L)])
+        1 * batchRepository.adjustReactionCounts({
+            it == [(10L): new MovieDelta(1L, 0L, 1L, []),
+                   (11L): new MovieDelta(-1L, 1L, -1L, [42L]),
+                   (12L): new MovieDelta(-1L, 0L, 0L, [42L])]
+        })
+        1 * pageInvalidator.reactionChanged(10L, 1L, 0L)
+        1 * pageInvalidator.reactionChanged(11L, -1L, 1L)
+        1 * pageInvalidator.reactionChanged(12L, -1L, 0L)
+
+        and: "nothing is left to overlay once written"
+        writeBehind.pendingFor(42L, [10L, 11L, 12L]).isEmpty()
+    }
+
+    def "a failed flush keeps the reactions and replays newer clicks after them"() {
+        given:
+        writeBehind.submit(10L, viewer, ReactionType.LIKE)
+
+        when:
+        writeBehind.flush()
+
+        then:
+        1 * batchRepository.findReactions(_) >> [:]
+        1 * batchRepository.insert(_) >> { throw new IllegalStateException("connection reset") }
+
+        when:
+        writeBehind.submit(10L, viewer, ReactionType.HATE)
+
+        then: "the failed like is followed by the newer hate"
+        writeBehind.pendingFor(42L, [10L])[10L].apply(null) == ReactionType.HATE
+    }
+}
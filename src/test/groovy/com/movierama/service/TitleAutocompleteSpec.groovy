@@ -0,0 +1,86 @@
+package com.movierama.service
+
+import com.movierama.entity.Movie
+import com.movierama.repository.MovieRepository
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.transaction.PlatformTransactionManager
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Duration
+
+class TitleAutocompleteSpec extends Specification {
+
+    MovieRepository movieRepository = Mock()
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    @Subject
+    TitleAutocomplete autocomplete = new TitleAutocomplete(movieRepository, Mock(PlatformTransactionManager),
+            meterRegistry, Duration.ofMinutes(10))
+
+    def setup() {
+        movieRepository.streamTitles() >> {
+            [
+                    row(1L, "The Matrix", 50),
+                    row(2L, "The Matrix Reloaded", 20),
+                    row(3L, "The Mask", 90),
+                    row(4L, "Amélie", 30),
+                    row(5L, "Alien", 70),
+                    row(6L, "Aliens", 10),
+            ].stream()
+        }
+        autocomplete.rebuild()
+    }
+
+    def "prefix matches are ranked by like count"() {
+        expect:
+        autocomplete.suggest("the ma", 3)*.title == ["The Mask", "The Matrix", "The Matrix Reloaded"]
+        autocomplete.suggest("ALI", 10)*.id == [5L, 6L]
+    }
+
+    def "case, accents and extra whitespace are ignored"() {
+        expect:
+        autocomplete.suggest("  ame", 5)*.title == ["Amélie"]
+        autocomplete.suggest("the   matrix", 2)*.id == [1L, 2L]
+    }
+
+    def "a typo falls back to similar titles, closest first"() {
+        expect:
+        autocomplete.suggest("the matirx", 2)*.id == [1L, 2L]
+        autocomplete.suggest("aliem", 5)*.id == [5L, 6L]
+    }
+
+    def "typo matches only top up what the prefix matches left"() {
+        when:
+        def suggestions = autocomplete.suggest("aliens", 3)
+
+        then: "the prefix match comes first even though it has fewer likes"
+        suggestions*.id == [6L, 5L]
+    }
+
+    def "a created movie is suggested before the next rebuild"() {
+        when:
+        autocomplete.movieCreated(new Movie(id: 9L, title: "Matilda"))
+
+        then:
+        autocomplete.suggest("mati", 5)*.id == [9L]
+    }
+
+    def "the limit is bounded"() {
+        when:
+        autocomplete.suggest("a", TitleAutocomplete.MAX_SUGGESTIONS + 1)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "the index reports its size and footprint"() {
+        expect:
+        meterRegistry.get("movies.autocomplete.titles").gauge().value() == 6
+        meterRegistry.get("movies.autocomplete.memory").gauge().value() > 0
+    }
+
+    private static MovieRepository.TitleRow row(Long id, String title, long likes) {
+        [getId: { id }, getTitle: { title }, getLikeCount: { likes }] as MovieRepository.TitleRow
+    }
+}
@@ -2,7 +2,9 @@ package com.movierama.service
 
 import com.movierama.dto.UserRegistrationDto
 import com.movierama.entity.User
+import com.movierama.metrics.ServiceMetrics
 import com.movierama.repository.UserRepository
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import org.springframework.security.core.userdetails.UsernameNotFoundException
 import org.springframework.security.crypto.password.PasswordEncoder
 import spock.lang.Specification
@@ -16,7 +18,7 @@ class UserServiceSpec extends Specification {
     PasswordEncoder passwordEncoder = Mock()
 
     @Subject
-    UserService service = new UserService(userRepository, passwordEncoder)
+    UserService service = new UserService(userRepository, passwordEncoder, new ServiceMetrics(new SimpleMeterRegistry()))
 
     def "registerUser throws when username already exists"() {
         given: